@@ -0,0 +1,53 @@
+package com.example.nutritracker;
+
+import android.os.Debug;
+
+/**
+ * Wall time and bytes allocated per run of a piece of code, for the on-device
+ * benchmarks that compare two implementations of the same thing.
+ *
+ * Allocation is read from ART's "art.gc.bytes-allocated" counter, which covers every
+ * thread, so keep the code under test on the calling thread and the device otherwise idle.
+ * Warm both sides up before measuring, so the JIT has compiled them.
+ */
+public final class AllocationBenchmark {
+
+    public interface Run {
+        void run() throws Exception;
+    }
+
+    public final double microsPerRun;
+    public final long bytesPerRun;
+
+    private AllocationBenchmark(double microsPerRun, long bytesPerRun) {
+        this.microsPerRun = microsPerRun;
+        this.bytesPerRun = bytesPerRun;
+    }
+
+    public static void warmUp(int iterations, Run run) throws Exception {
+        for (int i = 0; i < iterations; i++) {
+            run.run();
+        }
+    }
+
+    public static AllocationBenchmark measure(int iterations, Run run) throws Exception {
+        Runtime.getRuntime().gc();
+        long bytesBefore = allocatedBytes();
+        long start = System.nanoTime();
+        for (int i = 0; i < iterations; i++) {
+            run.run();
+        }
+        long elapsed = System.nanoTime() - start;
+        long bytes = allocatedBytes() - bytesBefore;
+        return new AllocationBenchmark(elapsed / 1000.0 / iterations, bytes / iterations);
+    }
+
+    private static long allocatedBytes() {
+        return Long.parseLong(Debug.getRuntimeStat("art.gc.bytes-allocated"));
+    }
+
+    @Override
+    public String toString() {
+        return String.format("%.1f us/run, %d KB allocated/run", microsPerRun, bytesPerRun / 1024);
+    }
+}
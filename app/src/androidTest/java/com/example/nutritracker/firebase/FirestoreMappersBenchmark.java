@@ -0,0 +1,115 @@
+package com.example.nutritracker.firebase;
+
+import android.util.Log;
+
+import androidx.test.ext.junit.runners.AndroidJUnit4;
+
+import com.example.nutritracker.AllocationBenchmark;
+import com.google.android.gms.tasks.Tasks;
+import com.google.firebase.Timestamp;
+import com.google.firebase.firestore.CollectionReference;
+import com.google.firebase.firestore.DocumentSnapshot;
+import com.google.firebase.firestore.FirebaseFirestore;
+import com.google.firebase.firestore.QuerySnapshot;
+import com.google.firebase.firestore.Source;
+
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+import org.junit.runner.RunWith;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+import static org.junit.Assert.*;
+
+/**
+ * Compares the hand-written mappers with DocumentSnapshot.toObject() on a year of
+ * synthetic entries, about what fixDateIssuesInEntries reads for a heavy user. That both
+ * produce the same models is checked in {@link FirestoreMappersTest}.
+ *
+ * The documents only ever live in Firestore's local cache: the network is disabled before
+ * they are written, and the cache, pending writes included, is cleared afterwards. No
+ * Firebase project is touched. Results are written to logcat under "MapperBenchmark".
+ */
+@RunWith(AndroidJUnit4.class)
+public class FirestoreMappersBenchmark {
+    private static final String TAG = "MapperBenchmark";
+    private static final String COLLECTION = "mapper_benchmark";
+    private static final int DOCUMENTS = 2000;
+    private static final int WARMUP_ITERATIONS = 5;
+    private static final int ITERATIONS = 20;
+    private static final long TIMEOUT_SECONDS = 30;
+    private static final String[] MEALS = {"Breakfast", "Lunch", "Snack", "Dinner"};
+
+    private FirebaseFirestore db;
+    private List<DocumentSnapshot> documents;
+
+    @Before
+    public void setUp() throws Exception {
+        db = FirebaseFirestore.getInstance();
+        Tasks.await(db.disableNetwork(), TIMEOUT_SECONDS, TimeUnit.SECONDS);
+
+        CollectionReference collection = db.collection(COLLECTION);
+        for (int i = 0; i < DOCUMENTS; i++) {
+            NutritionEntry entry = new NutritionEntry("benchmark-user",
+                    String.format("2024-%02d-%02d", 1 + i % 12, 1 + i % 28),
+                    MEALS[i % MEALS.length], "Synthetic food " + i,
+                    120.5 + i % 400, 8.25 + i % 40, 3.5 + i % 25, 100 + i % 3);
+            entry.setTimestamp(new Timestamp(1700000000L + i * 600L, 0));
+            entry.setUpdatedAt(1700000000000L + i);
+            // Offline writes only complete once the server has them, so don't wait for them;
+            // they are in the local cache as soon as set() returns
+            collection.document("entry-" + i).set(entry);
+        }
+        QuerySnapshot snapshot = Tasks.await(collection.get(Source.CACHE), TIMEOUT_SECONDS, TimeUnit.SECONDS);
+        documents = snapshot.getDocuments();
+        assertEquals(DOCUMENTS, documents.size());
+    }
+
+    @After
+    public void tearDown() throws Exception {
+        Tasks.await(db.terminate(), TIMEOUT_SECONDS, TimeUnit.SECONDS);
+        Tasks.await(db.clearPersistence(), TIMEOUT_SECONDS, TimeUnit.SECONDS);
+    }
+
+    @Test
+    public void compareAllocationsAndWallTime() throws Exception {
+        AllocationBenchmark.Run reflectiveRun = this::mapWithToObject;
+        AllocationBenchmark.Run mappedRun = this::mapWithMapper;
+        AllocationBenchmark.warmUp(WARMUP_ITERATIONS, reflectiveRun);
+        AllocationBenchmark.warmUp(WARMUP_ITERATIONS, mappedRun);
+
+        AllocationBenchmark reflective = AllocationBenchmark.measure(ITERATIONS, reflectiveRun);
+        AllocationBenchmark mapped = AllocationBenchmark.measure(ITERATIONS, mappedRun);
+
+        Log.i(TAG, DOCUMENTS + " documents per run");
+        Log.i(TAG, "toObject: " + reflective + perDocument(reflective));
+        Log.i(TAG, "Mapper:   " + mapped + perDocument(mapped));
+
+        assertTrue("Mapper should allocate less", mapped.bytesPerRun < reflective.bytesPerRun);
+    }
+
+    private List<NutritionEntry> mapWithToObject() {
+        List<NutritionEntry> entries = new ArrayList<>(documents.size());
+        for (DocumentSnapshot document : documents) {
+            NutritionEntry entry = document.toObject(NutritionEntry.class);
+            entry.setId(document.getId());
+            entries.add(entry);
+        }
+        return entries;
+    }
+
+    private List<NutritionEntry> mapWithMapper() {
+        List<NutritionEntry> entries = new ArrayList<>(documents.size());
+        for (DocumentSnapshot document : documents) {
+            entries.add(FirestoreMappers.toNutritionEntry(document));
+        }
+        return entries;
+    }
+
+    private static String perDocument(AllocationBenchmark result) {
+        return String.format(" (%.2f us/doc)", result.microsPerRun / DOCUMENTS);
+    }
+}
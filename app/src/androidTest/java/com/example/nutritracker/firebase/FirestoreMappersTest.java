@@ -0,0 +1,195 @@
+package com.example.nutritracker.firebase;
+
+import androidx.test.ext.junit.runners.AndroidJUnit4;
+
+import com.google.android.gms.tasks.Tasks;
+import com.google.firebase.Timestamp;
+import com.google.firebase.firestore.DocumentReference;
+import com.google.firebase.firestore.DocumentSnapshot;
+import com.google.firebase.firestore.FirebaseFirestore;
+import com.google.firebase.firestore.Source;
+
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+import org.junit.runner.RunWith;
+
+import java.util.HashMap;
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+
+import static org.junit.Assert.*;
+
+/**
+ * Checks that each of {@link FirestoreMappers} gives the same model as
+ * DocumentSnapshot.toObject(), for a document written by set(model) and for one with
+ * most fields missing, as older documents are.
+ *
+ * Like {@link FirestoreMappersBenchmark}, the documents only live in the local cache of a
+ * Firestore instance whose network is disabled, and the cache is cleared afterwards.
+ */
+@RunWith(AndroidJUnit4.class)
+public class FirestoreMappersTest {
+    private static final String COLLECTION = "mapper_test";
+    private static final long TIMEOUT_SECONDS = 30;
+
+    private FirebaseFirestore db;
+
+    @Before
+    public void setUp() throws Exception {
+        db = FirebaseFirestore.getInstance();
+        Tasks.await(db.disableNetwork(), TIMEOUT_SECONDS, TimeUnit.SECONDS);
+    }
+
+    @After
+    public void tearDown() throws Exception {
+        Tasks.await(db.terminate(), TIMEOUT_SECONDS, TimeUnit.SECONDS);
+        Tasks.await(db.clearPersistence(), TIMEOUT_SECONDS, TimeUnit.SECONDS);
+    }
+
+    @Test
+    public void nutritionEntry() throws Exception {
+        NutritionEntry populated = new NutritionEntry("user-1", "2024-03-01", "Lunch", "Chicken, breast, roasted",
+                247.5, 46.5, 5.4, 150);
+        populated.setTimestamp(new Timestamp(1709290000L, 123000));
+        populated.setUpdatedAt(1709290000123L);
+        assertSameEntry(write("entry-populated", populated));
+
+        Map<String, Object> sparse = new HashMap<>();
+        sparse.put("userId", "user-1");
+        sparse.put("date", "2024-03-01");
+        sparse.put("kcal", 250L); // Whole numbers come back as Long
+        assertSameEntry(write("entry-sparse", sparse));
+    }
+
+    @Test
+    public void userActivity() throws Exception {
+        UserActivityModel populated = new UserActivityModel("user-1", "add_food", "Banana, raw");
+        populated.setCount(4);
+        assertSameActivity(write("activity-populated", populated));
+
+        // Written before events were coalesced: no count, which means one
+        Map<String, Object> sparse = new HashMap<>();
+        sparse.put("userId", "user-1");
+        sparse.put("activityType", "login");
+        sparse.put("timestamp", new Timestamp(1709290000L, 0));
+        UserActivityModel mapped = assertSameActivity(write("activity-sparse", sparse));
+        assertEquals(1, mapped.getCount());
+    }
+
+    @Test
+    public void userProfile() throws Exception {
+        UserProfile populated = new UserProfile("user-1", "alice", "alice@example.com");
+        populated.setGoalKcal(1850);
+        populated.setSubscriptionPlan("Premium");
+        assertSameProfile(write("profile-populated", populated));
+
+        Map<String, Object> sparse = new HashMap<>();
+        sparse.put("userId", "user-1");
+        sparse.put("email", "alice@example.com");
+        sparse.put("goalKcal", 2000L);
+        assertSameProfile(write("profile-sparse", sparse));
+    }
+
+    @Test
+    public void dailySummary() throws Exception {
+        DailySummary populated = new DailySummary("user-1", "2024-03-01");
+        populated.add(new NutritionEntry("user-1", "2024-03-01", "Breakfast", "Oats", 379, 13, 6.5, 100));
+        populated.add(new NutritionEntry("user-1", "2024-03-01", "Lunch", "Chicken", 247.5, 46.5, 5.4, 150));
+        assertSameSummary(write("summary-populated", populated));
+
+        Map<String, Object> sparse = new HashMap<>();
+        sparse.put("userId", "user-1");
+        sparse.put("date", "2024-03-01");
+        sparse.put("kcal", 500L);
+        Map<String, Object> mealKcal = new HashMap<>();
+        mealKcal.put("Dinner", 500L);
+        sparse.put("mealKcal", mealKcal);
+        assertSameSummary(write("summary-sparse", sparse));
+    }
+
+    @Test
+    public void missingDocumentsMapToNull() throws Exception {
+        DocumentReference reference = db.collection(COLLECTION).document("deleted");
+        reference.set(new NutritionEntry());
+        reference.delete();
+        DocumentSnapshot document = Tasks.await(reference.get(Source.CACHE), TIMEOUT_SECONDS, TimeUnit.SECONDS);
+
+        assertFalse(document.exists());
+        assertNull(FirestoreMappers.toNutritionEntry(document));
+        assertNull(FirestoreMappers.toUserActivity(document));
+        assertNull(FirestoreMappers.toUserProfile(document));
+        assertNull(FirestoreMappers.toDailySummary(document));
+    }
+
+    // Offline writes only complete once the server has them, so don't wait for them; the
+    // document is in the local cache as soon as set() returns
+    private DocumentSnapshot write(String id, Object data) throws Exception {
+        DocumentReference reference = db.collection(COLLECTION).document(id);
+        reference.set(data);
+        return Tasks.await(reference.get(Source.CACHE), TIMEOUT_SECONDS, TimeUnit.SECONDS);
+    }
+
+    private static void assertSameEntry(DocumentSnapshot document) {
+        NutritionEntry reflective = document.toObject(NutritionEntry.class);
+        reflective.setId(document.getId());
+        NutritionEntry mapped = FirestoreMappers.toNutritionEntry(document);
+
+        assertEquals(reflective.getId(), mapped.getId());
+        assertEquals(reflective.getUserId(), mapped.getUserId());
+        assertEquals(reflective.getDate(), mapped.getDate());
+        assertEquals(reflective.getMealType(), mapped.getMealType());
+        assertEquals(reflective.getFoodName(), mapped.getFoodName());
+        assertEquals(reflective.getKcal(), mapped.getKcal(), 0);
+        assertEquals(reflective.getProtein(), mapped.getProtein(), 0);
+        assertEquals(reflective.getFat(), mapped.getFat(), 0);
+        assertEquals(reflective.getQuantity(), mapped.getQuantity(), 0);
+        assertEquals(reflective.getTimestamp(), mapped.getTimestamp());
+        assertEquals(reflective.getUpdatedAt(), mapped.getUpdatedAt());
+    }
+
+    private static UserActivityModel assertSameActivity(DocumentSnapshot document) {
+        UserActivityModel reflective = document.toObject(UserActivityModel.class);
+        reflective.setId(document.getId());
+        UserActivityModel mapped = FirestoreMappers.toUserActivity(document);
+
+        assertEquals(reflective.getId(), mapped.getId());
+        assertEquals(reflective.getUserId(), mapped.getUserId());
+        assertEquals(reflective.getActivityType(), mapped.getActivityType());
+        assertEquals(reflective.getActivityDetails(), mapped.getActivityDetails());
+        assertEquals(reflective.getTimestamp(), mapped.getTimestamp());
+        assertEquals(reflective.getCount(), mapped.getCount());
+        return mapped;
+    }
+
+    private static void assertSameProfile(DocumentSnapshot document) {
+        UserProfile reflective = document.toObject(UserProfile.class);
+        reflective.setId(document.getId());
+        UserProfile mapped = FirestoreMappers.toUserProfile(document);
+
+        assertEquals(reflective.getId(), mapped.getId());
+        assertEquals(reflective.getUserId(), mapped.getUserId());
+        assertEquals(reflective.getUsername(), mapped.getUsername());
+        assertEquals(reflective.getEmail(), mapped.getEmail());
+        assertEquals(reflective.getGoalKcal(), mapped.getGoalKcal());
+        assertEquals(reflective.getGoalProtein(), mapped.getGoalProtein());
+        assertEquals(reflective.getGoalFat(), mapped.getGoalFat());
+        assertEquals(reflective.getSubscriptionPlan(), mapped.getSubscriptionPlan());
+        assertEquals(reflective.getCreatedAt(), mapped.getCreatedAt());
+        assertEquals(reflective.getUpdatedAt(), mapped.getUpdatedAt());
+    }
+
+    private static void assertSameSummary(DocumentSnapshot document) {
+        DailySummary reflective = document.toObject(DailySummary.class);
+        DailySummary mapped = FirestoreMappers.toDailySummary(document);
+
+        assertEquals(reflective.getUserId(), mapped.getUserId());
+        assertEquals(reflective.getDate(), mapped.getDate());
+        assertEquals(reflective.getKcal(), mapped.getKcal(), 0);
+        assertEquals(reflective.getProtein(), mapped.getProtein(), 0);
+        assertEquals(reflective.getFat(), mapped.getFat(), 0);
+        assertEquals(reflective.getEntryCount(), mapped.getEntryCount());
+        assertEquals(reflective.getMealKcal(), mapped.getMealKcal());
+        assertEquals(reflective.getUpdatedAt(), mapped.getUpdatedAt());
+    }
+}
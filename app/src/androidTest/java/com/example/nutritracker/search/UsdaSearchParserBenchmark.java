@@ -0,0 +1,177 @@
+package com.example.nutritracker.search;
+
+import android.util.Log;
+
+import androidx.test.ext.junit.runners.AndroidJUnit4;
+
+import com.example.nutritracker.AllocationBenchmark;
+import com.example.nutritracker.FoodItem;
+
+import org.json.JSONArray;
+import org.json.JSONObject;
+import org.junit.Test;
+import org.junit.runner.RunWith;
+
+import java.io.StringReader;
+import java.util.ArrayList;
+import java.util.List;
+
+import static org.junit.Assert.*;
+
+/**
+ * Compares the streaming search parser with the old responseBody.string() + JSONObject
+ * path on a synthetic 20-item branded response. Runs on a device so the numbers reflect
+ * ART's allocator; results are written to logcat under the "ParserBenchmark" tag.
+ */
+@RunWith(AndroidJUnit4.class)
+public class UsdaSearchParserBenchmark {
+    private static final String TAG = "ParserBenchmark";
+    private static final int WARMUP_ITERATIONS = 20;
+    private static final int ITERATIONS = 200;
+
+    @Test
+    public void streamingParserMatchesJsonObjectParser() throws Exception {
+        String body = buildBrandedResponse(20, 80);
+
+        List<FoodItem> legacy = parseWithJsonObject(body);
+        List<FoodItem> streaming = UsdaSearchParser.parse(new StringReader(body));
+
+        assertEquals(legacy.size(), streaming.size());
+        for (int i = 0; i < legacy.size(); i++) {
+            assertEquals(legacy.get(i).getFdcId(), streaming.get(i).getFdcId());
+            assertEquals(legacy.get(i).getDescription(), streaming.get(i).getDescription());
+            assertEquals(legacy.get(i).getBrand(), streaming.get(i).getBrand());
+            assertEquals(legacy.get(i).getKcal(), streaming.get(i).getKcal(), 0.0001);
+            assertEquals(legacy.get(i).getProtein(), streaming.get(i).getProtein(), 0.0001);
+            assertEquals(legacy.get(i).getFat(), streaming.get(i).getFat(), 0.0001);
+        }
+    }
+
+    @Test
+    public void compareAllocationsAndWallTime() throws Exception {
+        String body = buildBrandedResponse(20, 80);
+        Log.i(TAG, "Response size: " + body.length() / 1024 + " KB");
+
+        AllocationBenchmark.Run legacyRun = () -> parseWithJsonObject(body);
+        AllocationBenchmark.Run streamingRun = () -> UsdaSearchParser.parse(new StringReader(body));
+        AllocationBenchmark.warmUp(WARMUP_ITERATIONS, legacyRun);
+        AllocationBenchmark.warmUp(WARMUP_ITERATIONS, streamingRun);
+
+        AllocationBenchmark legacy = AllocationBenchmark.measure(ITERATIONS, legacyRun);
+        AllocationBenchmark streaming = AllocationBenchmark.measure(ITERATIONS, streamingRun);
+
+        Log.i(TAG, "JSONObject: " + legacy);
+        Log.i(TAG, "Streaming:  " + streaming);
+
+        assertTrue("Streaming parser should allocate less",
+                streaming.bytesPerRun < legacy.bytesPerRun);
+    }
+
+    // The parse path AddFoodActivity used before the streaming parser
+    private static List<FoodItem> parseWithJsonObject(String jsonString) throws Exception {
+        JSONObject json = new JSONObject(jsonString);
+        JSONArray foods = json.getJSONArray("foods");
+        List<FoodItem> items = new ArrayList<>();
+        for (int i = 0; i < foods.length(); i++) {
+            JSONObject food = foods.getJSONObject(i);
+            int fdcId = food.optInt("fdcId", FoodItem.NO_FDC_ID);
+            String desc = food.getString("description");
+            String brand = food.optString("brandOwner", "Generic");
+
+            double kcal = 0, protein = 0, fat = 0;
+            JSONArray nutrients = food.getJSONArray("foodNutrients");
+            for (int j = 0; j < nutrients.length(); j++) {
+                JSONObject nutrient = nutrients.getJSONObject(j);
+                String nutrientName = nutrient.getString("nutrientName");
+                if (nutrientName.equals("Energy") && nutrient.optString("unitName", "").equalsIgnoreCase("KCAL")) {
+                    kcal = nutrient.getDouble("value");
+                } else if (nutrientName.equals("Protein")) {
+                    protein = nutrient.getDouble("value");
+                } else if (nutrientName.equals("Total lipid (fat)") || nutrientName.equals("Fat")) {
+                    fat = nutrient.getDouble("value");
+                }
+            }
+            if (kcal > 0) {
+                items.add(new FoodItem(fdcId, desc, brand, kcal, protein, fat));
+            }
+        }
+        return items;
+    }
+
+    // Shaped like a real branded search hit: lots of fields we never read
+    private static String buildBrandedResponse(int foods, int nutrientsPerFood) throws Exception {
+        JSONObject root = new JSONObject();
+        root.put("totalHits", 12345);
+        root.put("currentPage", 1);
+        root.put("totalPages", 618);
+        JSONObject criteria = new JSONObject();
+        criteria.put("query", "chicken");
+        criteria.put("pageSize", foods);
+        root.put("foodSearchCriteria", criteria);
+
+        JSONArray foodArray = new JSONArray();
+        for (int i = 0; i < foods; i++) {
+            JSONObject food = new JSONObject();
+            food.put("fdcId", 2000000 + i);
+            food.put("description", "CHICKEN BREAST STRIPS, GRILLED " + i);
+            food.put("dataType", "Branded");
+            food.put("gtinUpc", "0001234567" + String.format("%03d", i));
+            food.put("publishedDate", "2023-10-26");
+            food.put("brandOwner", "Example Foods Inc.");
+            food.put("brandName", "EXAMPLE");
+            food.put("ingredients", "CHICKEN BREAST WITH RIB MEAT, WATER, CONTAINS 2% OR LESS OF SALT, "
+                    + "SODIUM PHOSPHATES, NATURAL FLAVOR, MALTODEXTRIN, DEXTROSE, YEAST EXTRACT, "
+                    + "SPICES, GARLIC POWDER, ONION POWDER, CARRAGEENAN, PAPRIKA EXTRACT.");
+            food.put("marketCountry", "United States");
+            food.put("foodCategory", "Chicken - Prepared/Processed");
+            food.put("servingSizeUnit", "g");
+            food.put("servingSize", 84.0);
+            food.put("score", 512.3 - i);
+            food.put("foodMeasures", new JSONArray());
+            food.put("foodAttributes", new JSONArray());
+
+            JSONArray nutrients = new JSONArray();
+            for (int j = 0; j < nutrientsPerFood; j++) {
+                JSONObject nutrient = new JSONObject();
+                String name;
+                String unit = "G";
+                int nutrientId;
+                if (j == 0) {
+                    name = "Energy";
+                    unit = "KCAL";
+                    nutrientId = 1008;
+                } else if (j == 1) {
+                    name = "Protein";
+                    nutrientId = 1003;
+                } else if (j == 2) {
+                    name = "Total lipid (fat)";
+                    nutrientId = 1004;
+                } else {
+                    // Ids outside the tracked set, like most of a real branded food's nutrients
+                    name = "Nutrient " + j;
+                    unit = "MG";
+                    nutrientId = 3000 + j;
+                }
+                nutrient.put("nutrientId", nutrientId);
+                nutrient.put("nutrientName", name);
+                nutrient.put("nutrientNumber", String.valueOf(200 + j));
+                nutrient.put("unitName", unit);
+                nutrient.put("derivationCode", "LCCS");
+                nutrient.put("derivationDescription", "Calculated from value per serving size measure");
+                nutrient.put("derivationId", 70);
+                nutrient.put("value", 100.0 + i + j / 10.0);
+                nutrient.put("foodNutrientSourceId", 9);
+                nutrient.put("foodNutrientSourceCode", "12");
+                nutrient.put("foodNutrientSourceDescription", "Manufacturer's analytical; partial documentation");
+                nutrient.put("rank", 300 + j);
+                nutrient.put("indentLevel", 1);
+                nutrient.put("foodNutrientId", 30000000 + i * 100 + j);
+                nutrients.put(nutrient);
+            }
+            food.put("foodNutrients", nutrients);
+            foodArray.put(food);
+        }
+        root.put("foods", foodArray);
+        return root.toString();
+    }
+}
@@ -0,0 +1,91 @@
+package com.example.nutritracker;
+
+import android.view.LayoutInflater;
+import android.view.View;
+import android.view.ViewGroup;
+import android.widget.TextView;
+
+import androidx.annotation.NonNull;
+import androidx.recyclerview.widget.DiffUtil;
+import androidx.recyclerview.widget.ListAdapter;
+import androidx.recyclerview.widget.RecyclerView;
+
+import com.example.nutritracker.firebase.UserActivityModel;
+
+import java.text.SimpleDateFormat;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.Locale;
+import java.util.Objects;
+
+/**
+ * Rows of the activity feed. Pages are appended as immutable snapshots, and a row's text
+ * is only formatted when it is bound, with one shared date formatter.
+ */
+public class ActivityFeedAdapter extends ListAdapter<UserActivityModel, ActivityFeedAdapter.ActivityViewHolder> {
+
+    // Only used on the main thread, so one instance is safe to share between rows
+    private final SimpleDateFormat dateFormat = new SimpleDateFormat("MMM dd, yyyy HH:mm:ss", Locale.getDefault());
+
+    private List<UserActivityModel> latestSnapshot = Collections.emptyList();
+
+    private static final DiffUtil.ItemCallback<UserActivityModel> DIFF_CALLBACK = new DiffUtil.ItemCallback<UserActivityModel>() {
+        @Override
+        public boolean areItemsTheSame(@NonNull UserActivityModel oldItem, @NonNull UserActivityModel newItem) {
+            return Objects.equals(oldItem.getId(), newItem.getId());
+        }
+
+        @Override
+        public boolean areContentsTheSame(@NonNull UserActivityModel oldItem, @NonNull UserActivityModel newItem) {
+            // Activities are never edited once written
+            return true;
+        }
+    };
+
+    public ActivityFeedAdapter() {
+        super(DIFF_CALLBACK);
+    }
+
+    public void appendItems(List<UserActivityModel> items) {
+        List<UserActivityModel> next = new ArrayList<>(latestSnapshot.size() + items.size());
+        next.addAll(latestSnapshot);
+        next.addAll(items);
+        latestSnapshot = Collections.unmodifiableList(next);
+        submitList(latestSnapshot);
+    }
+
+    @NonNull
+    @Override
+    public ActivityViewHolder onCreateViewHolder(@NonNull ViewGroup parent, int viewType) {
+        View view = LayoutInflater.from(parent.getContext())
+                .inflate(R.layout.list_item_activity, parent, false);
+        return new ActivityViewHolder(view);
+    }
+
+    @Override
+    public void onBindViewHolder(@NonNull ActivityViewHolder holder, int position) {
+        holder.bind(getItem(position), dateFormat);
+    }
+
+    static class ActivityViewHolder extends RecyclerView.ViewHolder {
+
+        private final TextView tvType;
+        private final TextView tvDetails;
+        private final TextView tvTime;
+
+        ActivityViewHolder(@NonNull View itemView) {
+            super(itemView);
+            tvType = itemView.findViewById(R.id.tv_activity_type);
+            tvDetails = itemView.findViewById(R.id.tv_activity_details);
+            tvTime = itemView.findViewById(R.id.tv_activity_time);
+        }
+
+        void bind(UserActivityModel activity, SimpleDateFormat dateFormat) {
+            String type = activity.getActivityType();
+            tvType.setText(activity.getCount() > 1 ? type + " (x" + activity.getCount() + ")" : type);
+            tvDetails.setText(activity.getActivityDetails());
+            tvTime.setText(activity.getTimestamp() != null ? dateFormat.format(activity.getTimestamp().toDate()) : "");
+        }
+    }
+}
@@ -3,6 +3,10 @@ package com.example.nutritracker;
 import android.content.Context;
 import android.content.Intent;
 import android.os.Bundle;
+import android.os.Handler;
+import android.os.Looper;
+import android.text.Editable;
+import android.text.TextWatcher;
 import android.util.Log;
 import android.view.KeyEvent;
 import android.view.View;
@@ -22,27 +26,48 @@ import androidx.recyclerview.widget.LinearLayoutManager;
 import androidx.recyclerview.widget.RecyclerView;
 
 import com.example.nutritracker.firebase.FirebaseService;
-
-import org.json.JSONArray;
-import org.json.JSONObject;
+import com.example.nutritracker.network.HttpClientProvider;
+import com.example.nutritracker.search.FoodIndexProvider;
+import com.example.nutritracker.search.FoodRanker;
+import com.example.nutritracker.search.FoodSearchCache;
+import com.example.nutritracker.search.GtinIndex;
+import com.example.nutritracker.search.RecentFoodsStore;
+import com.example.nutritracker.search.LocalFoodIndex;
+import com.example.nutritracker.search.SearchCoalescer;
+import com.example.nutritracker.search.UsdaSearchParser;
 
 import java.io.IOException;
+import java.util.ArrayDeque;
 import java.util.ArrayList;
+import java.util.Collections;
+import java.util.HashSet;
 import java.util.List;
 import java.util.Locale;
+import java.util.Set;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.atomic.AtomicInteger;
 
-import okhttp3.Call;
-import okhttp3.Callback;
+import okhttp3.HttpUrl;
 import okhttp3.OkHttpClient;
 import okhttp3.Request;
-import okhttp3.Response;
 
 public class AddFoodActivity extends AppCompatActivity {
 
     // Your API key for FoodData Central
     // Get your free API key from: https://fdc.nal.usda.gov/api-key-signup.html
     private static final String API_KEY = "PASTE_YOUR_USDA_API_KEY_HERE";
+    private static final HttpUrl SEARCH_URL = HttpUrl.get("https://api.nal.usda.gov/fdc/v1/foods/search");
     private static final String TAG = "AddFoodActivity";
+    private static final int PAGE_SIZE = 20;
+    // If the local index already has this many hits, skip the USDA round trip
+    private static final int MIN_LOCAL_RESULTS = 5;
+    // Incremental search only kicks in once the query is at least this long
+    private static final int MIN_INCREMENTAL_QUERY_LENGTH = 2;
+    // Start loading the next page when this close to the end of the list
+    private static final int PREFETCH_DISTANCE = 5;
+    // Oldest pages are dropped from the top beyond this
+    private static final int MAX_PAGES_IN_MEMORY = 10;
 
     private String mealType = "Food"; // Member variable to store meal type
 
@@ -65,8 +90,27 @@ public class AddFoodActivity extends AppCompatActivity {
 
     // RecyclerView components
     private FoodSearchAdapter adapter;
-    private final List<FoodItem> foodList = new ArrayList<>();
-    private final OkHttpClient client = new OkHttpClient();
+    private OkHttpClient client;
+    private final ExecutorService localSearchExecutor = Executors.newSingleThreadExecutor();
+    private FoodSearchCache searchCache;
+    private RecentFoodsStore recentFoods;
+
+    // Search-as-you-type state (main thread, except where noted)
+    private final Handler searchHandler = new Handler(Looper.getMainLooper());
+    private final AtomicInteger searchGeneration = new AtomicInteger(); // read from worker threads
+    private volatile SearchCoalescer.Subscription inFlightSearch;
+    private Runnable pendingSearch;
+    private String lastQuery;
+    private volatile String pagingQuery; // lastQuery, or its spelling-corrected form
+    private long searchDebounceMs;
+
+    // Paging state (main thread)
+    private volatile SearchCoalescer.Subscription inFlightPageSearch;
+    private final ArrayDeque<Integer> loadedPageSizes = new ArrayDeque<>();
+    private final Set<Integer> shownFdcIds = new HashSet<>();
+    private int nextRemotePage = 1;
+    private boolean hasMorePages;
+    private boolean loadingMore;
 
     @Override
     protected void onCreate(Bundle savedInstanceState) {
@@ -75,6 +119,9 @@ public class AddFoodActivity extends AppCompatActivity {
         
         // Initialize Firebase service
         firebaseService = new FirebaseService();
+        searchCache = FoodSearchCache.getInstance(this);
+        client = HttpClientProvider.get(this);
+        recentFoods = RecentFoodsStore.getInstance(this);
 
         // Find standard views
         tvMealTitle = findViewById(R.id.tv_meal_title);
@@ -97,15 +144,23 @@ public class AddFoodActivity extends AppCompatActivity {
         }
         tvMealTitle.setText("Add " + mealType);
 
+        // Debounce is a resource so it can be tuned per device class; callers may override it
+        searchDebounceMs = getIntent().getLongExtra("SEARCH_DEBOUNCE_MS",
+                getResources().getInteger(R.integer.search_debounce_ms));
+
         setupRecyclerView();
         setupButtonListeners();
+
+        // Open on the user's usual foods for this meal instead of an empty list
+        showRecentFoods();
     }
 
     private void setupRecyclerView() {
         // Initialize the adapter with a click listener
-        adapter = new FoodSearchAdapter(foodList, foodItem -> {
+        adapter = new FoodSearchAdapter(foodItem -> {
             // This code runs when a user clicks a food in the search results
             this.selectedFood = foodItem;
+            prefillQuantity(foodItem);
 
             // Update UI to show quantity entry
             tvSelectedFoodName.setText(foodItem.getDescription());
@@ -123,6 +178,14 @@ public class AddFoodActivity extends AppCompatActivity {
         });
         rvFoodResults.setLayoutManager(new LinearLayoutManager(this));
         rvFoodResults.setAdapter(adapter);
+        rvFoodResults.addOnScrollListener(new RecyclerView.OnScrollListener() {
+            @Override
+            public void onScrolled(@NonNull RecyclerView recyclerView, int dx, int dy) {
+                if (dy > 0) {
+                    maybeLoadNextPage();
+                }
+            }
+        });
     }
 
     private void setupButtonListeners() {
@@ -130,6 +193,23 @@ public class AddFoodActivity extends AppCompatActivity {
 
         btnSearch.setOnClickListener(v -> searchFood());
 
+        // Search as the user types
+        etSearchFood.addTextChangedListener(new TextWatcher() {
+            @Override
+            public void beforeTextChanged(CharSequence s, int start, int count, int after) {}
+
+            @Override
+            public void onTextChanged(CharSequence s, int start, int before, int count) {}
+
+            @Override
+            public void afterTextChanged(Editable s) {
+                // The field is locked while a food is selected
+                if (etSearchFood.isEnabled()) {
+                    scheduleIncrementalSearch(s.toString().trim());
+                }
+            }
+        });
+
         // Handle 'Enter' key on keyboard to search
         etSearchFood.setOnEditorActionListener((v, actionId, event) -> {
             if (actionId == EditorInfo.IME_ACTION_SEARCH ||
@@ -157,13 +237,18 @@ public class AddFoodActivity extends AppCompatActivity {
 
             try {
                 // Calculate nutrients based on quantity
-                // API data is per 100g, so we divide by 100 to get per-gram values
+                // API data is per 100g; the whole nutrient vector is scaled in one pass
                 double quantityGrams = Double.parseDouble(quantityStr);
-                double multiplier = quantityGrams / 100.0;
+                double[] scaled = selectedFood.getNutrientsForGrams(quantityGrams);
 
-                double finalKcal = selectedFood.getKcal() * multiplier;
-                double finalProtein = selectedFood.getProtein() * multiplier;
-                double finalFat = selectedFood.getFat() * multiplier;
+                double finalKcal = scaled[Nutrients.KCAL];
+                double finalProtein = scaled[Nutrients.PROTEIN];
+                double finalFat = scaled[Nutrients.FAT];
+
+                // Keeps the recents list instant next time. record() may load and serialize the
+                // store under its lock, so it runs on the same worker as getTopFoods
+                FoodItem food = selectedFood;
+                localSearchExecutor.execute(() -> recentFoods.record(food, mealType, quantityGrams));
 
                 // Send calculated data AND meal type back to HomeActivity
                 Intent resultIntent = new Intent();
@@ -203,106 +288,418 @@ public class AddFoodActivity extends AppCompatActivity {
     }
 
 
+    // Explicit search from the button or the keyboard's search key
     private void searchFood() {
         String query = etSearchFood.getText().toString().trim();
         if (query.isEmpty()) {
             etSearchFood.setError("Please enter a food");
             return;
         }
+        searchHandler.removeCallbacks(pendingSearch);
         
         // Log food search activity
         firebaseService.logUserActivity("FOOD_SEARCH", "Searched for food: " + query);
         
         hideKeyboard();
+        startSearch(query, true);
+    }
+
+    // Search-as-you-type: wait for a pause in typing before searching
+    private void scheduleIncrementalSearch(String query) {
+        searchHandler.removeCallbacks(pendingSearch);
+        if (query.length() < MIN_INCREMENTAL_QUERY_LENGTH) {
+            // Too short to be useful; drop whatever is still running for the old query
+            searchGeneration.incrementAndGet();
+            cancelInFlightSearch();
+            lastQuery = null;
+            pagingQuery = null;
+            hasMorePages = false;
+            loadingMore = false;
+            pbLoading.setVisibility(View.GONE);
+            showRecentFoods();
+            return;
+        }
+        if (query.equals(lastQuery)) {
+            return;
+        }
+        pendingSearch = () -> startSearch(query, false);
+        searchHandler.postDelayed(pendingSearch, searchDebounceMs);
+    }
 
-        // Show loading spinner and hide old results
-        runOnUiThread(() -> {
-            pbLoading.setVisibility(View.VISIBLE);
-            rvFoodResults.setVisibility(View.GONE);
-            foodList.clear();
-            adapter.notifyDataSetChanged();
+    // Recent and frequent foods for this meal, served from disk with no network involved
+    private void showRecentFoods() {
+        int generation = searchGeneration.get();
+        localSearchExecutor.execute(() -> {
+            List<FoodItem> recent = recentFoods.getTopFoods(mealType, PAGE_SIZE);
+            runOnUiThread(() -> {
+                // Typing started in the meantime
+                if (generation != searchGeneration.get()) return;
+                adapter.submitResults(recent);
+                if (!recent.isEmpty() && layoutQuantity.getVisibility() != View.VISIBLE) {
+                    rvFoodResults.setVisibility(View.VISIBLE);
+                }
+            });
         });
+    }
 
-        // Build the API URL
-        String url = "https://api.nal.usda.gov/fdc/v1/foods/search?api_key=" + API_KEY + "&query=" + query + "&pageSize=20";
+    // Suggest the quantity the user logged last time for this food
+    private void prefillQuantity(FoodItem food) {
+        localSearchExecutor.execute(() -> {
+            double grams = recentFoods.getLastQuantityGrams(food);
+            if (grams <= 0) return;
+            runOnUiThread(() -> {
+                if (selectedFood == food && etQuantity.getText().length() == 0) {
+                    etQuantity.setText(String.format(Locale.US, "%.0f", grams));
+                    etQuantity.setSelection(etQuantity.getText().length());
+                }
+            });
+        });
+    }
 
-        Request request = new Request.Builder().url(url).build();
+    private void startSearch(String query, boolean explicit) {
+        // Every search gets a new generation; results from older ones are dropped on arrival
+        int generation = searchGeneration.incrementAndGet();
+        cancelInFlightSearch();
+        lastQuery = query;
+        pagingQuery = query;
+        hasMorePages = false;
+        loadingMore = false;
+
+        // Show loading spinner but keep the previous results until new ones arrive
+        pbLoading.setVisibility(View.VISIBLE);
+
+        // Cache first, then the local index; the USDA API only fills in when it has too few hits
+        localSearchExecutor.execute(() -> {
+            if (generation != searchGeneration.get()) {
+                return;
+            }
 
-        client.newCall(request).enqueue(new Callback() {
-            @Override
-            public void onFailure(@NonNull Call call, @NonNull IOException e) {
-                Log.e(TAG, "API Call Failed", e);
+            // Barcode matches are the whole answer; there is no next page to scroll into
+            boolean barcode = GtinIndex.isBarcode(query);
+            FoodSearchCache.Lookup cached = searchCache.get(query, 1);
+            if (cached != null) {
+                FoodIndexProvider.getFuzzyMatcher(this).addFoods(cached.getItems());
                 runOnUiThread(() -> {
-                    pbLoading.setVisibility(View.GONE);
-                    Toast.makeText(AddFoodActivity.this, "Search failed. Check connection.", Toast.LENGTH_SHORT).show();
+                    // A misspelled query pages on with the spelling its first page was fetched with
+                    if (cached.getPagingQuery() != null && generation == searchGeneration.get()) {
+                        pagingQuery = cached.getPagingQuery();
+                    }
+                    showResults(generation, cached.getItems(), explicit, !cached.isStale(),
+                            2, !barcode && !cached.getItems().isEmpty());
                 });
+                if (!cached.isStale()) {
+                    return;
+                }
+                // Stale-while-revalidate: the cached list is on screen, refresh it quietly
+                Log.d(TAG, "Refreshing stale cached results for '" + query + "'");
+            }
+
+            if (barcode) {
+                searchBarcode(query, generation, explicit && cached == null);
+                return;
+            }
+
+            String searchQuery = query;
+            List<FoodItem> literalResults = searchLocalIndex(query);
+            if (literalResults.size() < MIN_LOCAL_RESULTS) {
+                // Few literal hits: retry with misspelled words corrected ("chiken brest")
+                String corrected = FoodIndexProvider.getFuzzyMatcher(this).suggest(query);
+                if (corrected != null) {
+                    Log.d(TAG, "Corrected '" + query + "' to '" + corrected + "'");
+                    searchQuery = corrected;
+                    List<FoodItem> correctedResults = searchLocalIndex(corrected);
+                    if (correctedResults.size() > literalResults.size()) {
+                        literalResults = correctedResults;
+                    }
+                    String finalCorrected = corrected;
+                    runOnUiThread(() -> {
+                        if (generation != searchGeneration.get()) return;
+                        pagingQuery = finalCorrected;
+                        if (explicit) {
+                            Toast.makeText(this, "Showing results for \"" + finalCorrected + "\"", Toast.LENGTH_SHORT).show();
+                        }
+                    });
+                }
+            }
+            List<FoodItem> localResults = FoodRanker.rank(searchQuery, literalResults);
+
+            if (localResults.size() >= MIN_LOCAL_RESULTS) {
+                // Scrolling past the local hits continues with USDA page 1
+                runOnUiThread(() -> showResults(generation, localResults, explicit, true, 1, true));
+            } else {
+                if (!localResults.isEmpty() && cached == null) {
+                    runOnUiThread(() -> showResults(generation, localResults, explicit, false, 1, false));
+                }
+                searchRemote(query, searchQuery, localResults, generation, explicit && cached == null);
             }
+        });
+    }
+
+    private void cancelInFlightSearch() {
+        SearchCoalescer.Subscription search = inFlightSearch;
+        if (search != null) {
+            search.cancel();
+            inFlightSearch = null;
+        }
+        SearchCoalescer.Subscription pageSearch = inFlightPageSearch;
+        if (pageSearch != null) {
+            pageSearch.cancel();
+            inFlightPageSearch = null;
+        }
+    }
+
+    private List<FoodItem> searchLocalIndex(String query) {
+        LocalFoodIndex index = FoodIndexProvider.get(this);
+        if (index == null) {
+            return new ArrayList<>();
+        }
+        long start = System.nanoTime();
+        List<FoodItem> results = index.search(query, PAGE_SIZE);
+        Log.d(TAG, "Local index returned " + results.size() + " results for '" + query + "' in "
+                + (System.nanoTime() - start) / 1000 + " us");
+        return results;
+    }
 
+    // A barcode typed into the search box: exact local lookup, else ask USDA and cache the match
+    private void searchBarcode(String barcode, int generation, boolean explicit) {
+        FoodItem local = lookupLocalBarcode(barcode);
+        if (local != null) {
+            List<FoodItem> results = Collections.singletonList(local);
+            searchCache.put(barcode, 1, results);
+            runOnUiThread(() -> showResults(generation, results, explicit, true, 1, false));
+            return;
+        }
+
+        long gtin = GtinIndex.normalize(barcode);
+        String digits = barcode.replaceAll("[ -]", "");
+        SearchCoalescer.Subscription search = fetchRemotePage(digits, 1, new SearchCoalescer.Listener() {
             @Override
-            public void onResponse(@NonNull Call call, @NonNull Response response) throws IOException {
-                if (!response.isSuccessful()) {
-                    Log.e(TAG, "API Call Unsuccessful: " + response.code());
-                    runOnUiThread(() -> pbLoading.setVisibility(View.GONE));
-                    return;
+            public void onResults(UsdaSearchParser.Page page) {
+                // Full-text search also matches the digits elsewhere; keep exact barcode hits only
+                List<FoodItem> matches = new ArrayList<>();
+                for (FoodItem food : page.getFoods()) {
+                    if (GtinIndex.normalize(food.getGtinUpc()) == gtin) {
+                        matches.add(food);
+                    }
+                }
+                if (!matches.isEmpty()) {
+                    searchCache.put(barcode, 1, matches);
                 }
+                runOnUiThread(() -> showResults(generation, matches, explicit, true, 1, false));
+            }
 
-                // Parse the JSON response
-                try (var responseBody = response.body()) {
-                    String jsonString = responseBody.string();
-                    JSONObject json = new JSONObject(jsonString);
-                    JSONArray foods = json.getJSONArray("foods");
-                    foodList.clear();
-                    foodList.addAll(parseFoodData(foods));
-                } catch (Exception e) {
-                    Log.e(TAG, "JSON Parsing Error", e);
+            @Override
+            public void onFailure(IOException e) {
+                Log.e(TAG, "Barcode lookup failed", e);
+                runOnUiThread(() -> {
+                    if (generation != searchGeneration.get()) return;
+                    pbLoading.setVisibility(View.GONE);
+                    if (explicit) {
+                        Toast.makeText(AddFoodActivity.this, "Barcode lookup failed. Check connection.", Toast.LENGTH_SHORT).show();
+                    }
+                });
+            }
+        });
+        inFlightSearch = search;
+        if (generation != searchGeneration.get()) {
+            search.cancel();
+        }
+    }
+
+    private FoodItem lookupLocalBarcode(String barcode) {
+        LocalFoodIndex index = FoodIndexProvider.get(this);
+        GtinIndex gtinIndex = FoodIndexProvider.getGtinIndex(this);
+        if (index == null || gtinIndex == null) {
+            return null;
+        }
+        long start = System.nanoTime();
+        int ordinal = gtinIndex.find(barcode);
+        Log.d(TAG, "Local barcode lookup for " + barcode + (ordinal == GtinIndex.NOT_FOUND ? " missed" : " hit")
+                + " in " + (System.nanoTime() - start) / 1000 + " us");
+        return ordinal >= 0 && ordinal < index.size() ? index.getFood(ordinal) : null;
+    }
+
+    private SearchCoalescer.Subscription fetchRemotePage(String query, int page, SearchCoalescer.Listener listener) {
+        // Build the API URL; the builder escapes whatever was typed ("m&m's", "50% fat")
+        HttpUrl url = SEARCH_URL.newBuilder()
+                .addQueryParameter("api_key", API_KEY)
+                .addQueryParameter("query", query)
+                .addQueryParameter("pageSize", String.valueOf(PAGE_SIZE))
+                .addQueryParameter("pageNumber", String.valueOf(page))
+                .build();
+
+        Request request = new Request.Builder().url(url).build();
+
+        // Identical queries already in flight (double tap, rotation) share one call and one parse
+        return SearchCoalescer.getInstance().search(query, page, () -> client.newCall(request), listener);
+    }
+
+    // Results are cached under the typed query, together with remoteQuery, which is what USDA is
+    // asked for and what later pages continue with
+    private void searchRemote(String query, String remoteQuery, List<FoodItem> localResults, int generation,
+                              boolean explicit) {
+        SearchCoalescer.Subscription search = fetchRemotePage(remoteQuery, 1, new SearchCoalescer.Listener() {
+            @Override
+            public void onResults(UsdaSearchParser.Page page) {
+                // Words from USDA results make later typos in the same area correctable
+                FoodIndexProvider.getFuzzyMatcher(AddFoodActivity.this).addFoods(page.getFoods());
+
+                // Cache even if a newer query has started; the data is still good
+                List<FoodItem> merged = FoodRanker.rank(remoteQuery, mergeResults(localResults, page.getFoods()));
+                if (!page.getFoods().isEmpty()) {
+                    searchCache.put(query, 1, merged, remoteQuery.equals(query) ? null : remoteQuery);
+                    Log.d(TAG, "Search cache: " + searchCache.getStats());
                 }
 
                 // Update the UI on the main thread
+                runOnUiThread(() -> showResults(generation, merged, explicit, true, 2, page.hasMore()));
+            }
+
+            @Override
+            public void onFailure(IOException e) {
+                Log.e(TAG, "API Call Failed", e);
                 runOnUiThread(() -> {
+                    if (generation != searchGeneration.get()) return;
                     pbLoading.setVisibility(View.GONE);
-                    if (foodList.isEmpty()) {
-                        Toast.makeText(AddFoodActivity.this, "No results found.", Toast.LENGTH_SHORT).show();
-                    } else {
-                        rvFoodResults.setVisibility(View.VISIBLE);
-                        adapter.notifyDataSetChanged();
+                    if (localResults.isEmpty() && explicit) {
+                        Toast.makeText(AddFoodActivity.this, "Search failed. Check connection.", Toast.LENGTH_SHORT).show();
                     }
                 });
             }
         });
+        inFlightSearch = search;
+        if (generation != searchGeneration.get()) {
+            // Superseded while we were searching the local index
+            search.cancel();
+        }
     }
 
-    private List<FoodItem> parseFoodData(JSONArray foods) {
-        List<FoodItem> items = new ArrayList<>();
-        try {
-            for (int i = 0; i < foods.length(); i++) {
-                JSONObject food = foods.getJSONObject(i);
-                String desc = food.getString("description");
-                String brand = food.optString("brandOwner", "Generic"); // Use "Generic" if no brand
-
-                double kcal = 0, protein = 0, fat = 0;
-                JSONArray nutrients = food.getJSONArray("foodNutrients");
-                for (int j = 0; j < nutrients.length(); j++) {
-                    JSONObject nutrient = nutrients.getJSONObject(j);
-                    String nutrientName = nutrient.getString("nutrientName");
-
-                    // API data is per 100g.
-                    if (nutrientName.equals("Energy") && nutrient.optString("unitName", "").equalsIgnoreCase("KCAL")) {
-                        kcal = nutrient.getDouble("value");
-                    } else if (nutrientName.equals("Protein")) {
-                        protein = nutrient.getDouble("value");
-                    } else if (nutrientName.equals("Total lipid (fat)") || nutrientName.equals("Fat")) {
-                        fat = nutrient.getDouble("value");
+    // Infinite scroll: fetch the next USDA page once the user nears the end of the list
+    private void maybeLoadNextPage() {
+        if (loadingMore || !hasMorePages || pagingQuery == null) {
+            return;
+        }
+        LinearLayoutManager layoutManager = (LinearLayoutManager) rvFoodResults.getLayoutManager();
+        if (layoutManager == null
+                || layoutManager.findLastVisibleItemPosition() < adapter.getItemCount() - PREFETCH_DISTANCE) {
+            return;
+        }
+
+        loadingMore = true;
+        int generation = searchGeneration.get();
+        String query = pagingQuery;
+        int page = nextRemotePage;
+
+        localSearchExecutor.execute(() -> {
+            FoodSearchCache.Lookup cached = searchCache.get(query, page);
+            if (cached != null && !cached.isStale()) {
+                runOnUiThread(() -> appendPage(generation, page, cached.getItems(), !cached.getItems().isEmpty()));
+                return;
+            }
+
+            SearchCoalescer.Subscription pageSearch = fetchRemotePage(query, page, new SearchCoalescer.Listener() {
+                @Override
+                public void onResults(UsdaSearchParser.Page result) {
+                    if (!result.getFoods().isEmpty()) {
+                        searchCache.put(query, page, result.getFoods());
                     }
+                    runOnUiThread(() -> appendPage(generation, page, result.getFoods(), result.hasMore()));
                 }
-                // Only add if it has calorie data
-                if (kcal > 0) {
-                    items.add(new FoodItem(desc, brand, kcal, protein, fat));
+
+                @Override
+                public void onFailure(IOException e) {
+                    Log.w(TAG, "Failed to load page " + page + " for '" + query + "'", e);
+                    runOnUiThread(() -> {
+                        // Allow another attempt on the next scroll
+                        if (generation == searchGeneration.get()) loadingMore = false;
+                    });
                 }
+            });
+            inFlightPageSearch = pageSearch;
+            if (generation != searchGeneration.get()) {
+                pageSearch.cancel();
+            }
+        });
+    }
+
+    private void appendPage(int generation, int page, List<FoodItem> items, boolean hasMore) {
+        if (generation != searchGeneration.get()) {
+            return;
+        }
+        loadingMore = false;
+        inFlightPageSearch = null;
+        nextRemotePage = page + 1;
+        hasMorePages = hasMore;
+
+        // Pages can overlap with local hits or with each other
+        List<FoodItem> fresh = new ArrayList<>();
+        for (FoodItem item : items) {
+            if (item.getFdcId() == FoodItem.NO_FDC_ID || shownFdcIds.add(item.getFdcId())) {
+                fresh.add(item);
             }
-        } catch (Exception e) {
-            Log.e(TAG, "Error parsing individual food", e);
         }
-        return items;
+        if (!fresh.isEmpty()) {
+            adapter.appendItems(fresh);
+            loadedPageSizes.addLast(fresh.size());
+            trimLoadedPages();
+        }
+
+        // Nothing new on this page: the user is still at the end, so keep going
+        rvFoodResults.post(this::maybeLoadNextPage);
+    }
+
+    // Keeps at most MAX_PAGES_IN_MEMORY pages by dropping the oldest from the top
+    private void trimLoadedPages() {
+        while (loadedPageSizes.size() > MAX_PAGES_IN_MEMORY) {
+            adapter.removeFirstItems(loadedPageSizes.removeFirst());
+        }
+    }
+
+    // Local hits keep their place at the top; remote hits already in the index are dropped
+    private List<FoodItem> mergeResults(List<FoodItem> localResults, List<FoodItem> remoteResults) {
+        List<FoodItem> merged = new ArrayList<>(localResults);
+        Set<Integer> seenIds = new HashSet<>();
+        for (FoodItem item : localResults) {
+            seenIds.add(item.getFdcId());
+        }
+        for (FoodItem item : remoteResults) {
+            if (item.getFdcId() == FoodItem.NO_FDC_ID || seenIds.add(item.getFdcId())) {
+                merged.add(item);
+            }
+        }
+        return merged;
+    }
+
+    private void showResults(int generation, List<FoodItem> results, boolean explicit, boolean finished,
+                             int nextPage, boolean hasMore) {
+        if (generation != searchGeneration.get()) {
+            // A newer query has started since this one; its results win
+            return;
+        }
+        if (finished) {
+            pbLoading.setVisibility(View.GONE);
+            inFlightSearch = null;
+        }
+
+        // First page of a new result set: reset paging
+        nextRemotePage = nextPage;
+        hasMorePages = finished && hasMore;
+        loadedPageSizes.clear();
+        loadedPageSizes.addLast(results.size());
+        shownFdcIds.clear();
+        for (FoodItem item : results) {
+            shownFdcIds.add(item.getFdcId());
+        }
+
+        // The diff against the previous results runs off the main thread
+        adapter.submitResults(results);
+        if (results.isEmpty()) {
+            if (explicit) {
+                Toast.makeText(AddFoodActivity.this, "No results found.", Toast.LENGTH_SHORT).show();
+            }
+        } else if (layoutQuantity.getVisibility() != View.VISIBLE) {
+            rvFoodResults.setVisibility(View.VISIBLE);
+        }
     }
 
     private void hideKeyboard() {
@@ -312,6 +709,17 @@ public class AddFoodActivity extends AppCompatActivity {
             imm.hideSoftInputFromWindow(view.getWindowToken(), 0);
         }
     }
+
+    @Override
+    protected void onDestroy() {
+        super.onDestroy();
+        searchHandler.removeCallbacks(pendingSearch);
+        searchGeneration.incrementAndGet();
+        cancelInFlightSearch();
+        // Not shutdownNow(): a record() queued by the Add button must still run. Queued
+        // searches see the new generation and return right away
+        localSearchExecutor.shutdown();
+    }
     
 
 }
@@ -14,6 +14,7 @@ import androidx.appcompat.app.AppCompatActivity;
 import androidx.recyclerview.widget.LinearLayoutManager;
 import androidx.recyclerview.widget.RecyclerView;
 
+import com.example.nutritracker.network.HttpClientProvider;
 import com.google.android.material.bottomnavigation.BottomNavigationView;
 
 import org.json.JSONException;
@@ -22,6 +23,7 @@ import org.json.JSONObject;
 import java.io.IOException;
 import java.util.ArrayList;
 import java.util.List;
+import java.util.concurrent.TimeUnit;
 
 import okhttp3.Call;
 import okhttp3.Callback;
@@ -46,7 +48,7 @@ public class AiAssistantActivity extends AppCompatActivity {
 
     private List<ChatMessage> chatMessages = new ArrayList<>();
     private ChatAdapter chatAdapter;
-    private OkHttpClient client = new OkHttpClient();
+    private OkHttpClient client;
     private Handler mainHandler = new Handler(Looper.getMainLooper());
 
     @Override
@@ -54,6 +56,11 @@ public class AiAssistantActivity extends AppCompatActivity {
         super.onCreate(savedInstanceState);
         setContentView(R.layout.activity_ai_assistant);
 
+        // Shares the app-wide pool and dispatcher; model replies can take a while to generate
+        client = HttpClientProvider.get(this).newBuilder()
+                .readTimeout(60, TimeUnit.SECONDS)
+                .build();
+
         // Find Views
         rvChatMessages = findViewById(R.id.rv_chat_messages);
         etMessage = findViewById(R.id.et_message);
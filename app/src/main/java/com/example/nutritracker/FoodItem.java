@@ -1,23 +1,66 @@
 package com.example.nutritracker;
 
+import java.util.Arrays;
+
 public class FoodItem {
+    // Used when a food did not come from FoodData Central (no FDC id known)
+    public static final int NO_FDC_ID = 0;
+
+    private final int fdcId;
     private final String description;
     private final String brand;
-    private final double kcal;
-    private final double protein;
-    private final double fat;
+    // FoodData Central data type ("Foundation", "SR Legacy", "Branded", ...), null if unknown
+    private final String dataType;
+    // Barcode as printed on the pack (branded foods only), null if unknown
+    private final String gtinUpc;
+    // Per 100 g, laid out as described in Nutrients
+    private final double[] nutrients;
 
     public FoodItem(String description, String brand, double kcal, double protein, double fat) {
+        this(NO_FDC_ID, description, brand, kcal, protein, fat);
+    }
+
+    public FoodItem(int fdcId, String description, String brand, double kcal, double protein, double fat) {
+        this(fdcId, description, brand, macroVector(kcal, protein, fat));
+    }
+
+    public FoodItem(int fdcId, String description, String brand, double[] nutrients) {
+        this(fdcId, description, brand, null, nutrients);
+    }
+
+    public FoodItem(int fdcId, String description, String brand, String dataType, double[] nutrients) {
+        this(fdcId, description, brand, dataType, null, nutrients);
+    }
+
+    // Takes ownership of the array; callers must not modify it afterwards
+    public FoodItem(int fdcId, String description, String brand, String dataType, String gtinUpc,
+                    double[] nutrients) {
+        if (nutrients.length != Nutrients.COUNT) {
+            throw new IllegalArgumentException("Expected " + Nutrients.COUNT + " nutrients, got " + nutrients.length);
+        }
+        this.fdcId = fdcId;
         this.description = description;
         this.brand = brand;
-        this.kcal = kcal;
-        this.protein = protein;
-        this.fat = fat;
+        this.dataType = dataType;
+        this.gtinUpc = gtinUpc;
+        this.nutrients = nutrients;
+    }
+
+    private static double[] macroVector(double kcal, double protein, double fat) {
+        double[] nutrients = new double[Nutrients.COUNT];
+        nutrients[Nutrients.KCAL] = kcal;
+        nutrients[Nutrients.PROTEIN] = protein;
+        nutrients[Nutrients.FAT] = fat;
+        return nutrients;
     }
 
     // --- Getter Methods ---
     // (This is what your other files need to get the data)
 
+    public int getFdcId() {
+        return fdcId;
+    }
+
     public String getDescription() {
         return description;
     }
@@ -26,16 +69,49 @@ public class FoodItem {
         return brand; // This is the method that was missing
     }
 
+    public String getDataType() {
+        return dataType;
+    }
+
+    public String getGtinUpc() {
+        return gtinUpc;
+    }
+
+    // Branded foods are manufacturer label data; Foundation/SR Legacy are USDA reference foods
+    public boolean isBranded() {
+        if (dataType != null) {
+            return dataType.equals("Branded");
+        }
+        return brand != null && !brand.isEmpty() && !brand.equals("Generic");
+    }
+
     public double getKcal() {
-        return kcal;
+        return nutrients[Nutrients.KCAL];
     }
 
     public double getProtein() {
-        return protein;
+        return nutrients[Nutrients.PROTEIN];
     }
 
     public double getFat() {
-        return fat;
+        return nutrients[Nutrients.FAT];
+    }
+
+    public double getCarbs() {
+        return nutrients[Nutrients.CARBS];
+    }
+
+    // Any slot from Nutrients, per 100 g
+    public double getNutrient(int slot) {
+        return nutrients[slot];
     }
-}
 
+    // Nutrients for the given quantity, in one pass over the vector
+    public double[] getNutrientsForGrams(double grams) {
+        return Nutrients.scale(nutrients, grams / 100.0);
+    }
+
+    public boolean hasSameNutrients(FoodItem other) {
+        return Arrays.equals(nutrients, other.nutrients);
+    }
+}
@@ -6,16 +6,28 @@ import android.view.ViewGroup;
 import android.widget.TextView;
 
 import androidx.annotation.NonNull;
+import androidx.recyclerview.widget.DiffUtil;
+import androidx.recyclerview.widget.ListAdapter;
 import androidx.recyclerview.widget.RecyclerView;
 
+import java.util.ArrayList;
+import java.util.Collections;
 import java.util.List;
 import java.util.Locale;
+import java.util.Objects;
 
-public class FoodSearchAdapter extends RecyclerView.Adapter<FoodSearchAdapter.FoodViewHolder> {
+/**
+ * Search results are immutable snapshots. Each update is diffed against the previous
+ * snapshot on a background thread (AsyncListDiffer inside ListAdapter) and only the
+ * resulting inserts, moves, removals and changes are dispatched to the RecyclerView.
+ */
+public class FoodSearchAdapter extends ListAdapter<FoodItem, FoodSearchAdapter.FoodViewHolder> {
 
-    private final List<FoodItem> foodList;
     private final OnFoodClickListener clickListener;
 
+    // The newest list handed to submitList(); getCurrentList() lags behind while a diff runs
+    private List<FoodItem> latestSnapshot = Collections.emptyList();
+
     /**
      * START OF FIX:
      * This is the interface that was missing.
@@ -26,12 +38,37 @@ public class FoodSearchAdapter extends RecyclerView.Adapter<FoodSearchAdapter.Fo
     }
     /** END OF FIX **/
 
+    // Rows are identified by FDC id, so a re-sorted or re-fetched list moves rows instead of rebinding them
+    private static final DiffUtil.ItemCallback<FoodItem> DIFF_CALLBACK = new DiffUtil.ItemCallback<FoodItem>() {
+        @Override
+        public boolean areItemsTheSame(@NonNull FoodItem oldItem, @NonNull FoodItem newItem) {
+            if (oldItem.getFdcId() != FoodItem.NO_FDC_ID || newItem.getFdcId() != FoodItem.NO_FDC_ID) {
+                return oldItem.getFdcId() == newItem.getFdcId();
+            }
+            return Objects.equals(oldItem.getDescription(), newItem.getDescription())
+                    && Objects.equals(oldItem.getBrand(), newItem.getBrand());
+        }
+
+        @Override
+        public boolean areContentsTheSame(@NonNull FoodItem oldItem, @NonNull FoodItem newItem) {
+            return Objects.equals(oldItem.getDescription(), newItem.getDescription())
+                    && Objects.equals(oldItem.getBrand(), newItem.getBrand())
+                    && oldItem.hasSameNutrients(newItem);
+        }
+    };
+
     // Constructor updated to accept the listener
-    public FoodSearchAdapter(List<FoodItem> foodList, OnFoodClickListener clickListener) {
-        this.foodList = foodList;
+    public FoodSearchAdapter(OnFoodClickListener clickListener) {
+        super(DIFF_CALLBACK);
         this.clickListener = clickListener;
     }
 
+    // Replaces the results with a new snapshot; the adapter never shares a mutable list
+    public void submitResults(List<FoodItem> results) {
+        latestSnapshot = Collections.unmodifiableList(new ArrayList<>(results));
+        submitList(latestSnapshot);
+    }
+
     @NonNull
     @Override
     public FoodViewHolder onCreateViewHolder(@NonNull ViewGroup parent, int viewType) {
@@ -42,13 +79,22 @@ public class FoodSearchAdapter extends RecyclerView.Adapter<FoodSearchAdapter.Fo
 
     @Override
     public void onBindViewHolder(@NonNull FoodViewHolder holder, int position) {
-        FoodItem foodItem = foodList.get(position);
+        FoodItem foodItem = getItem(position);
         holder.bind(foodItem, clickListener);
     }
 
-    @Override
-    public int getItemCount() {
-        return foodList.size();
+    // Paging: the diff of old snapshot + page turns into a single range insert
+    public void appendItems(List<FoodItem> items) {
+        List<FoodItem> next = new ArrayList<>(latestSnapshot.size() + items.size());
+        next.addAll(latestSnapshot);
+        next.addAll(items);
+        submitResults(next);
+    }
+
+    // Paging: drop the oldest rows once too many pages are held in memory
+    public void removeFirstItems(int count) {
+        count = Math.min(count, latestSnapshot.size());
+        submitResults(latestSnapshot.subList(count, latestSnapshot.size()));
     }
 
     // --- ViewHolder Class ---
@@ -72,8 +118,8 @@ public class FoodSearchAdapter extends RecyclerView.Adapter<FoodSearchAdapter.Fo
             tvBrand.setText(foodItem.getBrand());
 
             String nutrients = String.format(Locale.getDefault(),
-                    "Kcal: %.0f | P: %.1fg | F: %.1fg",
-                    foodItem.getKcal(), foodItem.getProtein(), foodItem.getFat());
+                    "Kcal: %.0f | P: %.1fg | C: %.1fg | F: %.1fg",
+                    foodItem.getKcal(), foodItem.getProtein(), foodItem.getCarbs(), foodItem.getFat());
             tvNutrients.setText(nutrients);
 
             // Set the click listener for the entire row
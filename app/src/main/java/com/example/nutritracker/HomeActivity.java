@@ -16,22 +16,30 @@ import androidx.activity.result.ActivityResult;
 import androidx.activity.result.ActivityResultCallback;
 import androidx.activity.result.ActivityResultLauncher;
 import androidx.activity.result.contract.ActivityResultContracts;
+import androidx.appcompat.app.AlertDialog;
 import androidx.appcompat.app.AppCompatActivity;
 import androidx.core.content.ContextCompat;
 
+import com.example.nutritracker.data.NutritionRepository;
+import com.example.nutritracker.data.UserProfileRepository;
+import com.example.nutritracker.firebase.AccountDeletionCheckpoint;
+import com.example.nutritracker.firebase.ActivityLogBuffer;
+import com.example.nutritracker.firebase.DailySummary;
 import com.example.nutritracker.firebase.FirebaseService;
+import com.example.nutritracker.firebase.FirebaseTasks;
 import com.example.nutritracker.firebase.UserProfile;
+import com.google.android.gms.tasks.CancellationTokenSource;
+import com.google.android.gms.tasks.Task;
+import com.google.android.gms.tasks.Tasks;
 import com.google.android.material.bottomnavigation.BottomNavigationView;
 
 import java.text.SimpleDateFormat;
 import java.util.Calendar;
 import java.util.Date;
 import java.util.HashMap;
-import java.util.List;
 import java.util.Locale;
 import java.util.Map;
-
-import com.example.nutritracker.firebase.NutritionEntry;
+import java.util.concurrent.TimeUnit;
 
 public class HomeActivity extends AppCompatActivity {
 
@@ -65,12 +73,21 @@ public class HomeActivity extends AppCompatActivity {
     private String currentDate;
     private SimpleDateFormat dateFormat;
 
+    // Entries still not uploaded after this long are worth telling the user about
+    private static final long OUTBOX_WARN_AGE_MS = TimeUnit.HOURS.toMillis(1);
+    private boolean outboxWarned;
+
+    private final CancellationTokenSource destroyed = new CancellationTokenSource();
+
     // Activity launcher
     private ActivityResultLauncher<Intent> foodLauncher;
     private ActivityResultLauncher<Intent> profileLauncher;
     
     // Firebase service
     private FirebaseService firebaseService;
+    
+    // Local-first nutrition data, synced with Firebase in the background
+    private NutritionRepository nutritionRepository;
 
     @Override
     protected void onCreate(Bundle savedInstanceState) {
@@ -92,6 +109,8 @@ public class HomeActivity extends AppCompatActivity {
         
         // Log app open activity
         firebaseService.logUserActivity("APP_OPEN", "User opened the home screen");
+        
+        nutritionRepository = NutritionRepository.getInstance(this);
 
         // Initialize date format and current date
         dateFormat = new SimpleDateFormat("yyyy-MM-dd", Locale.getDefault());
@@ -132,20 +151,20 @@ public class HomeActivity extends AppCompatActivity {
                                     mealKcalMap.put(mealType, currentMealKcal + kcal);
                                 }
                                 
-                                // Save to Firebase with callback
+                                // Save locally; the repository uploads it to Firebase
                                 String foodName = data.getStringExtra("FOOD_NAME");
                                 if (foodName == null) foodName = "Unknown Food";
                                 
-                                firebaseService.saveNutritionEntry(currentDate, mealType, foodName, kcal, protein, fat, 1.0, 
+                                nutritionRepository.saveEntry(currentDate, mealType, foodName, kcal, protein, fat, 1.0, 
                                     new FirebaseService.SaveCallback() {
                                         @Override
                                         public void onSuccess() {
-                                            android.util.Log.d("HomeActivity", "✅ Food data saved to Firebase successfully!");
+                                            android.util.Log.d("HomeActivity", "✅ Food data saved, sync queued");
                                         }
                                         
                                         @Override
                                         public void onFailure(Exception e) {
-                                            android.util.Log.e("HomeActivity", "❌ Failed to save food data to Firebase", e);
+                                            android.util.Log.e("HomeActivity", "❌ Failed to save food data", e);
                                             runOnUiThread(() -> {
                                                 Toast.makeText(HomeActivity.this, "Failed to save data: " + e.getMessage(), Toast.LENGTH_LONG).show();
                                             });
@@ -171,7 +190,7 @@ public class HomeActivity extends AppCompatActivity {
                     @Override
                     public void onActivityResult(ActivityResult result) {
                         if (result.getResultCode() == Activity.RESULT_OK) {
-                            // Goals were updated, refresh user profile and UI
+                            // Goals were updated; the cached profile already has them
                             android.util.Log.d("HomeActivity", "🔄 Goals updated, refreshing profile and UI");
                             loadUserProfile();
                         }
@@ -183,14 +202,14 @@ public class HomeActivity extends AppCompatActivity {
         // Set up click listeners for the "add" buttons
         setupClickListeners();
         
-        // Load user profile first, then nutrition data
+        // Load user profile first, then nutrition data; later goal or plan changes arrive here too
+        UserProfileRepository.getInstance().getProfileUpdates().observe(this, this::applyUserProfile);
         loadUserProfile();
         
         // Show initial UI with zeros while loading
         updateUI();
         
-        // Load nutrition data for current date (this will update UI when data is loaded)
-        loadNutritionDataForDate(currentDate);
+        // Nutrition data for the current date is loaded and watched from onResume
 
         // --- Bottom Navigation ---
         BottomNavigationView bottomNavigationView = findViewById(R.id.bottom_navigation);
@@ -212,6 +231,55 @@ public class HomeActivity extends AppCompatActivity {
             }
             return false;
         });
+        
+        // Finish an account deletion that was interrupted, e.g. by the app being killed
+        AccountDeletionCheckpoint deletionCheckpoint = new AccountDeletionCheckpoint(this);
+        if (deletionCheckpoint.isPendingFor(firebaseService.getCurrentUserId())) {
+            resumeAccountDeletion(deletionCheckpoint);
+        }
+    }
+    
+    private void resumeAccountDeletion(AccountDeletionCheckpoint checkpoint) {
+        String userId = firebaseService.getCurrentUserId();
+        AlertDialog progressDialog = new AlertDialog.Builder(this)
+                .setTitle("Deleting Account")
+                .setMessage("Finishing your account deletion...")
+                .setCancelable(false)
+                .create();
+        progressDialog.show();
+        
+        firebaseService.deleteAccountWithAllData(checkpoint, new FirebaseService.AccountDeletionCallback() {
+            @Override
+            public Task<Void> onBeforeDelete(String userId) {
+                return Tasks.whenAll(
+                        nutritionRepository.stopSync(userId),
+                        ActivityLogBuffer.getInstance(HomeActivity.this).discard(userId));
+            }
+            
+            @Override
+            public void onSuccess() {
+                runOnUiThread(() -> {
+                    nutritionRepository.clearLocalData(userId);
+                    UserProfileRepository.getInstance().clear();
+                    progressDialog.dismiss();
+                    Toast.makeText(HomeActivity.this, "Account deleted successfully", Toast.LENGTH_LONG).show();
+                    navigateToLogin();
+                });
+            }
+            
+            @Override
+            public void onFailure(String error) {
+                runOnUiThread(() -> {
+                    progressDialog.dismiss();
+                    Toast.makeText(HomeActivity.this, "Failed to finish account deletion: " + error, Toast.LENGTH_LONG).show();
+                });
+            }
+            
+            @Override
+            public void onProgress(String message) {
+                runOnUiThread(() -> progressDialog.setMessage(message));
+            }
+        });
     }
 
     private void findViews() {
@@ -360,6 +428,9 @@ public class HomeActivity extends AppCompatActivity {
             // Reinitialize Firebase service if needed
             firebaseService = new FirebaseService();
         }
+        if (nutritionRepository == null) {
+            nutritionRepository = NutritionRepository.getInstance(this);
+        }
         
         // Check if user is still logged in
         if (firebaseService.getCurrentUser() == null) {
@@ -370,41 +441,21 @@ public class HomeActivity extends AppCompatActivity {
         
         android.util.Log.d("HomeActivity", "Loading nutrition data for date: " + date);
         
-        // Debug: Check all entries in database
-        firebaseService.debugAllNutritionEntries();
-        
-        firebaseService.getNutritionEntriesForDate(date, new FirebaseService.NutritionEntriesCallback() {
+        // Called again whenever the day changes, here or on another device
+        nutritionRepository.watchDailySummary(date, new FirebaseService.DailySummaryCallback() {
             @Override
-            public void onSuccess(List<NutritionEntry> entries) {
+            public void onSuccess(DailySummary summary) {
                 runOnUiThread(() -> {
-                    android.util.Log.d("HomeActivity", "🎯 Processing " + entries.size() + " entries for date: " + date);
-                    
-                    // Reset totals ONLY after successful Firebase response
-                    totalKcal = 0;
-                    totalProtein = 0;
-                    totalFat = 0;
-                    mealKcalMap.put("Breakfast", 0.0);
-                    mealKcalMap.put("Lunch", 0.0);
-                    mealKcalMap.put("Snack", 0.0);
-                    mealKcalMap.put("Dinner", 0.0);
+                    android.util.Log.d("HomeActivity", "🎯 Loaded summary of " + summary.getEntryCount() + " entries for date: " + date);
                     
-                    // Calculate totals from Firebase data
-                    for (NutritionEntry entry : entries) {
-                        android.util.Log.d("HomeActivity", "📊 Processing entry: " + entry.getFoodName() + 
-                            " - " + entry.getKcal() + " kcal (" + entry.getMealType() + ")");
-                        
-                        totalKcal += entry.getKcal();
-                        totalProtein += entry.getProtein();
-                        totalFat += entry.getFat();
-                        
-                        // Add to specific meal
-                        String mealType = entry.getMealType();
-                        if (mealKcalMap.containsKey(mealType)) {
-                            double currentMealKcal = mealKcalMap.get(mealType);
-                            mealKcalMap.put(mealType, currentMealKcal + entry.getKcal());
-                            android.util.Log.d("HomeActivity", "🍽️ Updated " + mealType + " to " + (currentMealKcal + entry.getKcal()) + " kcal");
-                        }
-                    }
+                    // Totals come pre-summed, so there is nothing to add up here
+                    totalKcal = summary.getKcal();
+                    totalProtein = summary.getProtein();
+                    totalFat = summary.getFat();
+                    mealKcalMap.put("Breakfast", summary.getKcalForMeal("Breakfast"));
+                    mealKcalMap.put("Lunch", summary.getKcalForMeal("Lunch"));
+                    mealKcalMap.put("Snack", summary.getKcalForMeal("Snack"));
+                    mealKcalMap.put("Dinner", summary.getKcalForMeal("Dinner"));
                     
                     android.util.Log.d("HomeActivity", "📈 Final totals for " + date + ": " + 
                         totalKcal + " kcal, " + totalProtein + "g protein, " + totalFat + "g fat");
@@ -452,8 +503,40 @@ public class HomeActivity extends AppCompatActivity {
         // Refresh data when activity resumes
         if (firebaseService != null && firebaseService.getCurrentUser() != null) {
             android.util.Log.d("HomeActivity", "🔄 onResume: Reloading data for date: " + currentDate);
-            loadUserProfile();
+            UserProfileRepository.getInstance().refreshIfStale();
             loadNutritionDataForDate(currentDate);
+            reportOutboxStatus();
+        }
+    }
+    
+    private void reportOutboxStatus() {
+        nutritionRepository.getOutboxStatus(status -> {
+            if (status.isEmpty()) {
+                outboxWarned = false;
+                return;
+            }
+            android.util.Log.d("HomeActivity", "📤 Outbox: " + status);
+            if (!outboxWarned && status.getOldestPendingAgeMs() > OUTBOX_WARN_AGE_MS) {
+                outboxWarned = true;
+                int count = status.getPendingCount();
+                Toast.makeText(this, count + (count == 1 ? " entry is" : " entries are")
+                        + " saved on this device but not synced yet", Toast.LENGTH_LONG).show();
+            }
+        });
+    }
+    
+    @Override
+    protected void onDestroy() {
+        super.onDestroy();
+        destroyed.cancel();
+    }
+    
+    @Override
+    protected void onPause() {
+        super.onPause();
+        // Live updates are only needed while the dashboard is visible
+        if (nutritionRepository != null) {
+            nutritionRepository.stopWatching();
         }
     }
     
@@ -469,32 +552,30 @@ public class HomeActivity extends AppCompatActivity {
     }
     
     private void loadUserProfile() {
-        firebaseService.getUserProfile(new FirebaseService.UserProfileCallback() {
-            @Override
-            public void onSuccess(UserProfile profile) {
-                runOnUiThread(() -> {
-                    username = profile.getUsername();
-                    GOAL_KCAL = profile.getGoalKcal();
-                    GOAL_PROTEIN = profile.getGoalProtein();
-                    GOAL_FAT = profile.getGoalFat();
-                    
-                    // Update greeting
-                    tvGreeting.setText("Hi " + username + "!");
-                    
-                    // Update UI with new goals
-                    updateUI();
-                });
-            }
-            
-            @Override
-            public void onFailure(Exception e) {
-                android.util.Log.w("HomeActivity", "Failed to load user profile: " + e.getMessage());
-                // Use default values and show default greeting
-                runOnUiThread(() -> {
+        // A profile arriving after the activity is gone is dropped instead of touching its views
+        FirebaseTasks.withCancellation(UserProfileRepository.getInstance().getProfile(), destroyed.getToken())
+                .addOnSuccessListener(this::applyUserProfile)
+                .addOnFailureListener(e -> {
+                    android.util.Log.w("HomeActivity", "Failed to load user profile: " + e.getMessage());
+                    // Use default values and show default greeting
                     tvGreeting.setText("Hi there!");
                 });
-            }
-        });
+    }
+    
+    private void applyUserProfile(UserProfile profile) {
+        if (profile == null) {
+            return;
+        }
+        username = profile.getUsername();
+        GOAL_KCAL = profile.getGoalKcal();
+        GOAL_PROTEIN = profile.getGoalProtein();
+        GOAL_FAT = profile.getGoalFat();
+        
+        // Update greeting
+        tvGreeting.setText("Hi " + username + "!");
+        
+        // Update UI with new goals
+        updateUI();
     }
     
     private void navigateToLogin() {
@@ -507,11 +588,15 @@ public class HomeActivity extends AppCompatActivity {
         // Log logout activity
         firebaseService.logUserActivity("LOGOUT", "User logged out from HomeActivity");
         
-        // Sign out from Firebase
-        firebaseService.getAuth().signOut();
-        
-        // Navigate to login
-        navigateToLogin();
+        // Send buffered activities, this LOGOUT included, while they can still be written as this user
+        ActivityLogBuffer.getInstance(this).flush().addOnCompleteListener(task -> {
+            // Sign out from Firebase
+            firebaseService.getAuth().signOut();
+            UserProfileRepository.getInstance().clear();
+            
+            // Navigate to login
+            navigateToLogin();
+        });
     }
 }
 
@@ -0,0 +1,77 @@
+package com.example.nutritracker;
+
+/**
+ * Fixed layout of the nutrient vector carried by {@link FoodItem}: one primitive slot per
+ * tracked nutrient, values per 100 g. Keeping it a flat array means scaling a food by
+ * quantity or summing a meal is a tight loop instead of a field-by-field copy.
+ */
+public final class Nutrients {
+    public static final int KCAL = 0;          // kcal
+    public static final int PROTEIN = 1;       // g
+    public static final int FAT = 2;           // g
+    public static final int CARBS = 3;         // g
+    public static final int FIBER = 4;         // g
+    public static final int SUGAR = 5;         // g
+    public static final int SODIUM = 6;        // mg
+    public static final int SATURATED_FAT = 7; // g
+    public static final int CHOLESTEROL = 8;   // mg
+    public static final int CALCIUM = 9;       // mg
+    public static final int IRON = 10;         // mg
+    public static final int POTASSIUM = 11;    // mg
+    public static final int COUNT = 12;
+
+    // Returned by slotForNutrientId for nutrients we don't track
+    public static final int UNTRACKED = -1;
+
+    private Nutrients() {}
+
+    /**
+     * Maps a FoodData Central nutrient id to its slot in the vector.
+     * Only the primary id of each nutrient is mapped here; fallbacks are handled by
+     * {@link #fallbackSlotForNutrientId}.
+     */
+    public static int slotForNutrientId(int nutrientId) {
+        switch (nutrientId) {
+            case 1008: return KCAL;          // Energy (kcal)
+            case 1003: return PROTEIN;       // Protein
+            case 1004: return FAT;           // Total lipid (fat)
+            case 1005: return CARBS;         // Carbohydrate, by difference
+            case 1079: return FIBER;         // Fiber, total dietary
+            case 2000: return SUGAR;         // Sugars, total including NLEA
+            case 1093: return SODIUM;        // Sodium, Na
+            case 1258: return SATURATED_FAT; // Fatty acids, total saturated
+            case 1253: return CHOLESTEROL;   // Cholesterol
+            case 1087: return CALCIUM;       // Calcium, Ca
+            case 1089: return IRON;          // Iron, Fe
+            case 1092: return POTASSIUM;     // Potassium, K
+            default: return UNTRACKED;
+        }
+    }
+
+    /**
+     * Secondary ids that only fill a slot when the primary id is missing, e.g. Foundation
+     * foods report energy as Atwater factors (2047/2048) instead of 1008.
+     */
+    public static int fallbackSlotForNutrientId(int nutrientId) {
+        switch (nutrientId) {
+            case 2048: // Energy (Atwater Specific Factors)
+            case 2047: // Energy (Atwater General Factors)
+                return KCAL;
+            case 1050: // Carbohydrate, by summation
+                return CARBS;
+            case 1063: // Sugars, Total
+                return SUGAR;
+            default:
+                return UNTRACKED;
+        }
+    }
+
+    /** Returns a new vector with every value multiplied by {@code factor}. */
+    public static double[] scale(double[] per100g, double factor) {
+        double[] scaled = new double[COUNT];
+        for (int i = 0; i < COUNT; i++) {
+            scaled[i] = per100g[i] * factor;
+        }
+        return scaled;
+    }
+}
@@ -12,9 +12,15 @@ import android.widget.Toast;
 import androidx.appcompat.app.AlertDialog;
 import androidx.appcompat.app.AppCompatActivity;
 
+import com.example.nutritracker.data.NutritionRepository;
+import com.example.nutritracker.data.UserProfileRepository;
+import com.example.nutritracker.firebase.AccountDeletionCheckpoint;
+import com.example.nutritracker.firebase.ActivityLogBuffer;
 import com.example.nutritracker.firebase.FirebaseService;
 import com.example.nutritracker.firebase.UserProfile;
 import com.example.nutritracker.utils.ThemeManager;
+import com.google.android.gms.tasks.Task;
+import com.google.android.gms.tasks.Tasks;
 import com.google.android.material.button.MaterialButton;
 import com.google.firebase.auth.FirebaseUser;
 
@@ -25,6 +31,7 @@ public class ProfileActivity extends AppCompatActivity {
     private MaterialButton btnLogout, btnDeleteAccount;
     
     private FirebaseService firebaseService;
+    private UserProfileRepository profileRepository;
 
     @Override
     protected void onCreate(Bundle savedInstanceState) {
@@ -36,6 +43,7 @@ public class ProfileActivity extends AppCompatActivity {
         
         // Initialize Firebase service
         firebaseService = new FirebaseService();
+        profileRepository = UserProfileRepository.getInstance();
         
         // Check if user is logged in
         if (firebaseService.getCurrentUser() == null) {
@@ -80,7 +88,7 @@ public class ProfileActivity extends AppCompatActivity {
         tvCurrentTheme.setText(ThemeManager.getThemeName(currentTheme));
         
         // Load user profile to get subscription plan
-        firebaseService.getUserProfile(new FirebaseService.UserProfileCallback() {
+        profileRepository.getProfile(new FirebaseService.UserProfileCallback() {
             @Override
             public void onSuccess(UserProfile profile) {
                 runOnUiThread(() -> {
@@ -170,11 +178,15 @@ public class ProfileActivity extends AppCompatActivity {
         // Log logout activity
         firebaseService.logUserActivity("LOGOUT", "User logged out from ProfileActivity");
         
-        // Sign out from Firebase
-        firebaseService.getAuth().signOut();
-        
-        Toast.makeText(this, "Logged out successfully", Toast.LENGTH_SHORT).show();
-        navigateToLogin();
+        // Send buffered activities, this LOGOUT included, while they can still be written as this user
+        ActivityLogBuffer.getInstance(this).flush().addOnCompleteListener(task -> {
+            // Sign out from Firebase
+            firebaseService.getAuth().signOut();
+            profileRepository.clear();
+            
+            Toast.makeText(this, "Logged out successfully", Toast.LENGTH_SHORT).show();
+            navigateToLogin();
+        });
     }
     
     private void showDeleteAccountDialog() {
@@ -246,11 +258,22 @@ public class ProfileActivity extends AppCompatActivity {
                     .create();
             progressDialog.show();
             
-            // Re-authenticate user before deletion
-            firebaseService.reauthenticateAndDeleteAccount(password, new FirebaseService.AccountDeletionCallback() {
+            // Re-authenticate user before deletion; the checkpoint lets an interrupted deletion resume
+            String userId = firebaseService.getCurrentUserId();
+            AccountDeletionCheckpoint checkpoint = new AccountDeletionCheckpoint(this);
+            firebaseService.reauthenticateAndDeleteAccount(password, checkpoint, new FirebaseService.AccountDeletionCallback() {
+                @Override
+                public Task<Void> onBeforeDelete(String userId) {
+                    return Tasks.whenAll(
+                            NutritionRepository.getInstance(ProfileActivity.this).stopSync(userId),
+                            ActivityLogBuffer.getInstance(ProfileActivity.this).discard(userId));
+                }
+                
                 @Override
                 public void onSuccess() {
                     runOnUiThread(() -> {
+                        NutritionRepository.getInstance(ProfileActivity.this).clearLocalData(userId);
+                        profileRepository.clear();
                         progressDialog.dismiss();
                         Toast.makeText(ProfileActivity.this, "Account deleted successfully", Toast.LENGTH_LONG).show();
                         navigateToLogin();
@@ -399,7 +422,7 @@ public class ProfileActivity extends AppCompatActivity {
         layout.addView(fatLayout);
         
         // Load current goals
-        firebaseService.getUserProfile(new FirebaseService.UserProfileCallback() {
+        profileRepository.getProfile(new FirebaseService.UserProfileCallback() {
             @Override
             public void onSuccess(UserProfile profile) {
                 runOnUiThread(() -> {
@@ -453,36 +476,23 @@ public class ProfileActivity extends AppCompatActivity {
                 }
                 
                 // Update goals
-                firebaseService.getUserProfile(new FirebaseService.UserProfileCallback() {
-                    @Override
-                    public void onSuccess(UserProfile profile) {
-                        profile.setGoalKcal(kcal);
-                        profile.setGoalProtein(protein);
-                        profile.setGoalFat(fat);
-                        
-                        firebaseService.updateUserProfile(profile, new FirebaseService.UserProfileCallback() {
-                            @Override
-                            public void onSuccess(UserProfile updatedProfile) {
-                                Toast.makeText(ProfileActivity.this, "Goals updated successfully!", Toast.LENGTH_SHORT).show();
-                                firebaseService.logUserActivity("GOALS_UPDATED", 
-                                    String.format("Updated goals: %d kcal, %d protein, %d fat", kcal, protein, fat));
-                                
-                                // Set result to notify HomeActivity to refresh
-                                setResult(RESULT_OK);
-                            }
+                profileRepository.getProfile()
+                        .onSuccessTask(profile -> {
+                            profile.setGoalKcal(kcal);
+                            profile.setGoalProtein(protein);
+                            profile.setGoalFat(fat);
+                            return profileRepository.updateProfile(profile);
+                        })
+                        .addOnSuccessListener(updatedProfile -> {
+                            Toast.makeText(ProfileActivity.this, "Goals updated successfully!", Toast.LENGTH_SHORT).show();
+                            firebaseService.logUserActivity("GOALS_UPDATED", 
+                                String.format("Updated goals: %d kcal, %d protein, %d fat", kcal, protein, fat));
                             
-                            @Override
-                            public void onFailure(Exception e) {
-                                Toast.makeText(ProfileActivity.this, "Failed to update goals: " + e.getMessage(), Toast.LENGTH_LONG).show();
-                            }
-                        });
-                    }
-                    
-                    @Override
-                    public void onFailure(Exception e) {
-                        Toast.makeText(ProfileActivity.this, "Failed to load profile: " + e.getMessage(), Toast.LENGTH_LONG).show();
-                    }
-                });
+                            // Set result to notify HomeActivity to refresh
+                            setResult(RESULT_OK);
+                        })
+                        .addOnFailureListener(e -> 
+                            Toast.makeText(ProfileActivity.this, "Failed to update goals: " + e.getMessage(), Toast.LENGTH_LONG).show());
                 
             } catch (NumberFormatException e) {
                 Toast.makeText(this, "Please enter valid numbers", Toast.LENGTH_SHORT).show();
@@ -503,7 +513,7 @@ public class ProfileActivity extends AppCompatActivity {
         layout.setPadding(50, 40, 50, 10);
         
         // Get current plan
-        firebaseService.getUserProfile(new FirebaseService.UserProfileCallback() {
+        profileRepository.getProfile(new FirebaseService.UserProfileCallback() {
             @Override
             public void onSuccess(UserProfile profile) {
                 runOnUiThread(() -> {
@@ -616,42 +626,23 @@ public class ProfileActivity extends AppCompatActivity {
         progressDialog.show();
         
         // Update user profile with new plan
-        firebaseService.getUserProfile(new FirebaseService.UserProfileCallback() {
-            @Override
-            public void onSuccess(UserProfile profile) {
-                profile.setSubscriptionPlan(newPlan);
-                
-                firebaseService.updateUserProfile(profile, new FirebaseService.UserProfileCallback() {
-                    @Override
-                    public void onSuccess(UserProfile updatedProfile) {
-                        runOnUiThread(() -> {
-                            progressDialog.dismiss();
-                            tvCurrentPlan.setText(newPlan + " Plan");
-                            Toast.makeText(ProfileActivity.this, "Successfully upgraded to " + newPlan + " Plan!", Toast.LENGTH_LONG).show();
-                            
-                            // Log upgrade activity
-                            firebaseService.logUserActivity("PLAN_UPGRADED", "Upgraded to " + newPlan + " plan");
-                        });
-                    }
+        profileRepository.getProfile()
+                .onSuccessTask(profile -> {
+                    profile.setSubscriptionPlan(newPlan);
+                    return profileRepository.updateProfile(profile);
+                })
+                .addOnSuccessListener(updatedProfile -> {
+                    progressDialog.dismiss();
+                    tvCurrentPlan.setText(newPlan + " Plan");
+                    Toast.makeText(ProfileActivity.this, "Successfully upgraded to " + newPlan + " Plan!", Toast.LENGTH_LONG).show();
                     
-                    @Override
-                    public void onFailure(Exception e) {
-                        runOnUiThread(() -> {
-                            progressDialog.dismiss();
-                            Toast.makeText(ProfileActivity.this, "Failed to upgrade plan: " + e.getMessage(), Toast.LENGTH_LONG).show();
-                        });
-                    }
-                });
-            }
-            
-            @Override
-            public void onFailure(Exception e) {
-                runOnUiThread(() -> {
+                    // Log upgrade activity
+                    firebaseService.logUserActivity("PLAN_UPGRADED", "Upgraded to " + newPlan + " plan");
+                })
+                .addOnFailureListener(e -> {
                     progressDialog.dismiss();
-                    Toast.makeText(ProfileActivity.this, "Failed to load profile: " + e.getMessage(), Toast.LENGTH_LONG).show();
+                    Toast.makeText(ProfileActivity.this, "Failed to upgrade plan: " + e.getMessage(), Toast.LENGTH_LONG).show();
                 });
-            }
-        });
     }
     
     private void navigateToLogin() {
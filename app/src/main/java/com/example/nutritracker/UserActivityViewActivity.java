@@ -1,81 +1,113 @@
 package com.example.nutritracker;
 
 import android.os.Bundle;
+import android.view.View;
 import android.widget.TextView;
 import android.widget.Toast;
 
+import androidx.annotation.NonNull;
 import androidx.appcompat.app.AppCompatActivity;
+import androidx.recyclerview.widget.LinearLayoutManager;
+import androidx.recyclerview.widget.RecyclerView;
 
 import com.example.nutritracker.firebase.FirebaseService;
 import com.example.nutritracker.firebase.UserActivityModel;
+import com.google.firebase.firestore.DocumentSnapshot;
 
-import java.text.SimpleDateFormat;
-import java.util.Date;
 import java.util.List;
-import java.util.Locale;
 
 public class UserActivityViewActivity extends AppCompatActivity {
-    
-    private TextView tvActivities;
+
+    private static final int PAGE_SIZE = 50;
+    private static final int PREFETCH_DISTANCE = 10;
+
+    private TextView tvStatus;
+    private RecyclerView rvActivities;
+    private ActivityFeedAdapter adapter;
     private FirebaseService firebaseService;
 
+    // Paging state: the last document of the previous page, null before the first one
+    private DocumentSnapshot nextCursor;
+    private boolean hasMorePages = true;
+    private boolean loadingMore;
+
     @Override
     protected void onCreate(Bundle savedInstanceState) {
         super.onCreate(savedInstanceState);
-        
-        // Simple layout with just a TextView
-        tvActivities = new TextView(this);
-        tvActivities.setPadding(32, 32, 32, 32);
-        tvActivities.setTextSize(14);
-        setContentView(tvActivities);
-        
+        setContentView(R.layout.activity_user_activity);
+
+        tvStatus = findViewById(R.id.tv_activities_status);
+        rvActivities = findViewById(R.id.rv_activities);
+
         // Initialize Firebase service
         firebaseService = new FirebaseService();
-        
-        loadUserActivities();
-    }
-    
-    private void loadUserActivities() {
+
+        adapter = new ActivityFeedAdapter();
+        rvActivities.setLayoutManager(new LinearLayoutManager(this));
+        rvActivities.setAdapter(adapter);
+        rvActivities.addOnScrollListener(new RecyclerView.OnScrollListener() {
+            @Override
+            public void onScrolled(@NonNull RecyclerView recyclerView, int dx, int dy) {
+                if (dy > 0) {
+                    maybeLoadNextPage();
+                }
+            }
+        });
+
         if (firebaseService.getCurrentUser() == null) {
-            tvActivities.setText("No user logged in");
+            tvStatus.setText("No user logged in");
             return;
         }
-        
-        tvActivities.setText("Loading activities...");
-        
-        firebaseService.getUserActivities(new FirebaseService.UserActivitiesCallback() {
+        loadNextPage();
+    }
+
+    // Infinite scroll: fetch the next page once the user nears the end of the list
+    private void maybeLoadNextPage() {
+        if (loadingMore || !hasMorePages) {
+            return;
+        }
+        LinearLayoutManager layoutManager = (LinearLayoutManager) rvActivities.getLayoutManager();
+        if (layoutManager == null
+                || layoutManager.findLastVisibleItemPosition() < adapter.getItemCount() - PREFETCH_DISTANCE) {
+            return;
+        }
+        loadNextPage();
+    }
+
+    private void loadNextPage() {
+        loadingMore = true;
+        firebaseService.getUserActivitiesPage(null, nextCursor, PAGE_SIZE, new FirebaseService.UserActivitiesPageCallback() {
             @Override
-            public void onSuccess(List<UserActivityModel> activities) {
+            public void onSuccess(List<UserActivityModel> activities, DocumentSnapshot cursor) {
                 runOnUiThread(() -> {
-                    if (activities.isEmpty()) {
-                        tvActivities.setText("No activities found");
-                        return;
+                    loadingMore = false;
+                    nextCursor = cursor;
+                    hasMorePages = cursor != null;
+                    if (!activities.isEmpty()) {
+                        adapter.appendItems(activities);
                     }
-                    
-                    StringBuilder sb = new StringBuilder();
-                    sb.append("User Activities:\n\n");
-                    
-                    SimpleDateFormat dateFormat = new SimpleDateFormat("MMM dd, yyyy HH:mm:ss", Locale.getDefault());
-                    
-                    for (UserActivityModel activity : activities) {
-                        Date date = activity.getTimestamp().toDate();
-                        sb.append(String.format("%s\n%s: %s\n\n", 
-                            dateFormat.format(date),
-                            activity.getActivityType(),
-                            activity.getActivityDetails()));
+
+                    if (adapter.getItemCount() == 0 && activities.isEmpty()) {
+                        tvStatus.setText("No activities found");
+                    } else {
+                        tvStatus.setVisibility(View.GONE);
                     }
-                    
-                    tvActivities.setText(sb.toString());
+                    // A short first page may not fill the screen, so no scroll would ask for more
+                    rvActivities.post(UserActivityViewActivity.this::maybeLoadNextPage);
                 });
             }
-            
+
             @Override
             public void onFailure(Exception e) {
                 runOnUiThread(() -> {
-                    tvActivities.setText("Error loading activities: " + e.getMessage());
+                    // Allow another attempt on the next scroll
+                    loadingMore = false;
+                    if (adapter.getItemCount() == 0) {
+                        tvStatus.setText("Error loading activities: " + e.getMessage());
+                    }
                     Toast.makeText(UserActivityViewActivity.this, "Failed to load activities", Toast.LENGTH_SHORT).show();
                 });
             }
         });
     }
-}
\ No newline at end of file
+}
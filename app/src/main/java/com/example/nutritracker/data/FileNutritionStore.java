@@ -0,0 +1,364 @@
+package com.example.nutritracker.data;
+
+import com.example.nutritracker.firebase.DailySummary;
+import com.example.nutritracker.firebase.NutritionEntry;
+import com.example.nutritracker.firebase.UserActivityModel;
+import com.example.nutritracker.firebase.UserProfile;
+import com.google.firebase.Timestamp;
+
+import java.io.BufferedInputStream;
+import java.io.BufferedOutputStream;
+import java.io.Closeable;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.EOFException;
+import java.io.File;
+import java.io.FileInputStream;
+import java.io.FileOutputStream;
+import java.io.FilterInputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.RandomAccessFile;
+import java.util.Collections;
+import java.util.List;
+
+/**
+ * {@link NutritionStore} backed by one append-only file, for load tests that need data to
+ * outlive the process without a Firebase project.
+ *
+ * Every write appends a record and is then applied to an {@link InMemoryNutritionStore},
+ * which serves all reads. Opening the store replays the file; a record cut short by a
+ * crash is dropped and the file truncated to the last whole one. Superseded records stay
+ * in the file until {@link #compact()} rewrites it with only the live state.
+ *
+ * Records are flushed to the OS on every write; call {@link #sync()} to force them to disk.
+ */
+public final class FileNutritionStore implements NutritionStore, Closeable {
+    private static final int MAGIC = 0x4E544C47; // "NTLG"
+    private static final int FORMAT_VERSION = 1;
+
+    private static final byte OP_PUT_ENTRY = 1;
+    private static final byte OP_DELETE_ENTRY = 2;
+    private static final byte OP_ADD_ACTIVITY = 3;
+    private static final byte OP_PUT_PROFILE = 4;
+
+    private final File file;
+    private final InMemoryNutritionStore memory = new InMemoryNutritionStore();
+    private FileOutputStream fileOut;
+    private DataOutputStream out;
+
+    public FileNutritionStore(File file) throws IOException {
+        this.file = file;
+        long validLength = replay();
+        if (validLength < file.length()) {
+            try (RandomAccessFile raf = new RandomAccessFile(file, "rw")) {
+                raf.setLength(validLength);
+            }
+        }
+        openForAppend();
+    }
+
+    // --- Writes: log first, then memory ---
+
+    @Override
+    public synchronized void putEntry(NutritionEntry entry) throws IOException {
+        out.writeByte(OP_PUT_ENTRY);
+        writeEntry(out, entry);
+        out.flush();
+        memory.putEntry(entry);
+    }
+
+    @Override
+    public synchronized void deleteEntry(String entryId) throws IOException {
+        out.writeByte(OP_DELETE_ENTRY);
+        out.writeUTF(entryId);
+        out.flush();
+        memory.deleteEntry(entryId);
+    }
+
+    @Override
+    public synchronized void addActivities(List<UserActivityModel> activities) throws IOException {
+        for (UserActivityModel activity : activities) {
+            out.writeByte(OP_ADD_ACTIVITY);
+            writeActivity(out, activity);
+        }
+        out.flush();
+        memory.addActivities(activities);
+    }
+
+    @Override
+    public synchronized void putProfile(UserProfile profile) throws IOException {
+        out.writeByte(OP_PUT_PROFILE);
+        writeProfile(out, profile);
+        out.flush();
+        memory.putProfile(profile);
+    }
+
+    // --- Reads ---
+
+    @Override
+    public NutritionEntry getEntry(String entryId) {
+        return memory.getEntry(entryId);
+    }
+
+    @Override
+    public List<NutritionEntry> getEntries(String userId, String date) {
+        return memory.getEntries(userId, date);
+    }
+
+    @Override
+    public List<NutritionEntry> getEntriesInRange(String userId, String startDate, String endDate) {
+        return memory.getEntriesInRange(userId, startDate, endDate);
+    }
+
+    @Override
+    public DailySummary getDailySummary(String userId, String date) {
+        return memory.getDailySummary(userId, date);
+    }
+
+    @Override
+    public List<UserActivityModel> getRecentActivities(String userId, int limit) {
+        return memory.getRecentActivities(userId, limit);
+    }
+
+    @Override
+    public UserProfile getProfile(String userId) {
+        return memory.getProfile(userId);
+    }
+
+    // --- File maintenance ---
+
+    public synchronized void sync() throws IOException {
+        out.flush();
+        fileOut.getFD().sync();
+    }
+
+    /** Rewrites the file with one record per live entry, activity and profile. */
+    public synchronized void compact() throws IOException {
+        out.close();
+        File tmp = new File(file.getPath() + ".tmp");
+        try (FileOutputStream tmpOut = new FileOutputStream(tmp);
+             DataOutputStream data = new DataOutputStream(new BufferedOutputStream(tmpOut))) {
+            data.writeInt(MAGIC);
+            data.writeInt(FORMAT_VERSION);
+            for (NutritionEntry entry : memory.allEntries()) {
+                data.writeByte(OP_PUT_ENTRY);
+                writeEntry(data, entry);
+            }
+            for (UserActivityModel activity : memory.allActivities()) {
+                data.writeByte(OP_ADD_ACTIVITY);
+                writeActivity(data, activity);
+            }
+            for (UserProfile profile : memory.allProfiles()) {
+                data.writeByte(OP_PUT_PROFILE);
+                writeProfile(data, profile);
+            }
+            data.flush();
+            tmpOut.getFD().sync();
+        } catch (IOException e) {
+            tmp.delete();
+            openForAppend();
+            throw e;
+        }
+        if (!tmp.renameTo(file)) {
+            tmp.delete();
+            openForAppend();
+            throw new IOException("Failed to replace " + file);
+        }
+        openForAppend();
+    }
+
+    @Override
+    public synchronized void close() throws IOException {
+        out.close();
+    }
+
+    private void openForAppend() throws IOException {
+        boolean fresh = file.length() == 0;
+        fileOut = new FileOutputStream(file, true);
+        out = new DataOutputStream(new BufferedOutputStream(fileOut));
+        if (fresh) {
+            out.writeInt(MAGIC);
+            out.writeInt(FORMAT_VERSION);
+            out.flush();
+        }
+    }
+
+    // Returns the length of the file up to the last whole record
+    private long replay() throws IOException {
+        if (!file.exists() || file.length() == 0) {
+            return 0;
+        }
+        try (CountingInputStream counter = new CountingInputStream(new BufferedInputStream(new FileInputStream(file)));
+             DataInputStream in = new DataInputStream(counter)) {
+            try {
+                if (in.readInt() != MAGIC || in.readInt() != FORMAT_VERSION) {
+                    throw new IOException("Not a nutrition store file: " + file);
+                }
+            } catch (EOFException e) {
+                return 0; // Crashed while writing the header of a new file
+            }
+            long valid = counter.count;
+            while (true) {
+                int op = in.read();
+                if (op < 0) {
+                    return valid;
+                }
+                try {
+                    switch (op) {
+                        case OP_PUT_ENTRY:
+                            memory.putEntry(readEntry(in));
+                            break;
+                        case OP_DELETE_ENTRY:
+                            memory.deleteEntry(in.readUTF());
+                            break;
+                        case OP_ADD_ACTIVITY:
+                            memory.addActivities(Collections.singletonList(readActivity(in)));
+                            break;
+                        case OP_PUT_PROFILE:
+                            memory.putProfile(readProfile(in));
+                            break;
+                        default:
+                            // Garbage after a torn write; everything from here on is dropped
+                            return valid;
+                    }
+                } catch (EOFException e) {
+                    return valid;
+                }
+                valid = counter.count;
+            }
+        }
+    }
+
+    // --- Record formats ---
+
+    private static void writeEntry(DataOutputStream out, NutritionEntry entry) throws IOException {
+        out.writeUTF(entry.getId());
+        out.writeUTF(entry.getUserId());
+        out.writeUTF(entry.getDate());
+        writeString(out, entry.getMealType());
+        writeString(out, entry.getFoodName());
+        out.writeDouble(entry.getKcal());
+        out.writeDouble(entry.getProtein());
+        out.writeDouble(entry.getFat());
+        out.writeDouble(entry.getQuantity());
+        writeTimestamp(out, entry.getTimestamp());
+        out.writeLong(entry.getUpdatedAt());
+    }
+
+    private static NutritionEntry readEntry(DataInputStream in) throws IOException {
+        NutritionEntry entry = new NutritionEntry();
+        entry.setId(in.readUTF());
+        entry.setUserId(in.readUTF());
+        entry.setDate(in.readUTF());
+        entry.setMealType(readString(in));
+        entry.setFoodName(readString(in));
+        entry.setKcal(in.readDouble());
+        entry.setProtein(in.readDouble());
+        entry.setFat(in.readDouble());
+        entry.setQuantity(in.readDouble());
+        entry.setTimestamp(readTimestamp(in));
+        entry.setUpdatedAt(in.readLong());
+        return entry;
+    }
+
+    private static void writeActivity(DataOutputStream out, UserActivityModel activity) throws IOException {
+        writeString(out, activity.getId());
+        out.writeUTF(activity.getUserId());
+        writeString(out, activity.getActivityType());
+        writeString(out, activity.getActivityDetails());
+        writeTimestamp(out, activity.getTimestamp());
+        out.writeInt(activity.getCount());
+    }
+
+    private static UserActivityModel readActivity(DataInputStream in) throws IOException {
+        UserActivityModel activity = new UserActivityModel();
+        activity.setId(readString(in));
+        activity.setUserId(in.readUTF());
+        activity.setActivityType(readString(in));
+        activity.setActivityDetails(readString(in));
+        activity.setTimestamp(readTimestamp(in));
+        activity.setCount(in.readInt());
+        return activity;
+    }
+
+    private static void writeProfile(DataOutputStream out, UserProfile profile) throws IOException {
+        writeString(out, profile.getId());
+        out.writeUTF(profile.getUserId());
+        writeString(out, profile.getUsername());
+        writeString(out, profile.getEmail());
+        out.writeInt(profile.getGoalKcal());
+        out.writeInt(profile.getGoalProtein());
+        out.writeInt(profile.getGoalFat());
+        writeString(out, profile.getSubscriptionPlan());
+        writeTimestamp(out, profile.getCreatedAt());
+        writeTimestamp(out, profile.getUpdatedAt());
+    }
+
+    private static UserProfile readProfile(DataInputStream in) throws IOException {
+        UserProfile profile = new UserProfile();
+        profile.setId(readString(in));
+        profile.setUserId(in.readUTF());
+        profile.setUsername(readString(in));
+        profile.setEmail(readString(in));
+        profile.setGoalKcal(in.readInt());
+        profile.setGoalProtein(in.readInt());
+        profile.setGoalFat(in.readInt());
+        profile.setSubscriptionPlan(readString(in));
+        profile.setCreatedAt(readTimestamp(in));
+        profile.setUpdatedAt(readTimestamp(in));
+        return profile;
+    }
+
+    private static void writeString(DataOutputStream out, String value) throws IOException {
+        out.writeBoolean(value != null);
+        if (value != null) {
+            out.writeUTF(value);
+        }
+    }
+
+    private static String readString(DataInputStream in) throws IOException {
+        return in.readBoolean() ? in.readUTF() : null;
+    }
+
+    private static void writeTimestamp(DataOutputStream out, Timestamp value) throws IOException {
+        out.writeBoolean(value != null);
+        if (value != null) {
+            out.writeLong(value.getSeconds());
+            out.writeInt(value.getNanoseconds());
+        }
+    }
+
+    private static Timestamp readTimestamp(DataInputStream in) throws IOException {
+        return in.readBoolean() ? new Timestamp(in.readLong(), in.readInt()) : null;
+    }
+
+    private static final class CountingInputStream extends FilterInputStream {
+        long count;
+
+        CountingInputStream(InputStream in) {
+            super(in);
+        }
+
+        @Override
+        public int read() throws IOException {
+            int b = super.read();
+            if (b >= 0) count++;
+            return b;
+        }
+
+        @Override
+        public int read(byte[] buffer, int offset, int length) throws IOException {
+            int n = super.read(buffer, offset, length);
+            if (n > 0) count += n;
+            return n;
+        }
+
+        @Override
+        public long skip(long n) throws IOException {
+            long skipped = super.skip(n);
+            count += skipped;
+            return skipped;
+        }
+    }
+}
@@ -0,0 +1,141 @@
+package com.example.nutritracker.data;
+
+import com.example.nutritracker.firebase.DailySummary;
+import com.example.nutritracker.firebase.FirebaseService;
+import com.example.nutritracker.firebase.FirestoreMappers;
+import com.example.nutritracker.firebase.NutritionEntry;
+import com.example.nutritracker.firebase.UserActivityModel;
+import com.example.nutritracker.firebase.UserProfile;
+import com.google.android.gms.tasks.Task;
+import com.google.android.gms.tasks.Tasks;
+import com.google.firebase.auth.FirebaseAuth;
+import com.google.firebase.firestore.DocumentSnapshot;
+import com.google.firebase.firestore.FirebaseFirestore;
+import com.google.firebase.firestore.Query;
+import com.google.firebase.firestore.QueryDocumentSnapshot;
+import com.google.firebase.firestore.QuerySnapshot;
+
+import java.io.IOException;
+import java.io.InterruptedIOException;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
+
+/**
+ * {@link NutritionStore} on Firestore. Entry writes go through {@link FirebaseService}, so
+ * the daily summaries stay in step with the entries exactly as they do in the app.
+ */
+public final class FirestoreNutritionStore implements NutritionStore {
+    private static final long TIMEOUT_SECONDS = 30;
+
+    private final FirebaseFirestore db;
+    private final FirebaseService firebaseService;
+
+    public FirestoreNutritionStore() {
+        this(FirebaseFirestore.getInstance());
+    }
+
+    public FirestoreNutritionStore(FirebaseFirestore db) {
+        this.db = db;
+        this.firebaseService = new FirebaseService(FirebaseAuth.getInstance(), db);
+    }
+
+    @Override
+    public void putEntry(NutritionEntry entry) throws IOException {
+        await(firebaseService.setNutritionEntry(entry));
+    }
+
+    @Override
+    public void deleteEntry(String entryId) throws IOException {
+        await(firebaseService.deleteNutritionEntry(entryId));
+    }
+
+    @Override
+    public NutritionEntry getEntry(String entryId) throws IOException {
+        DocumentSnapshot document = await(db.collection(FirebaseService.COLLECTION_NUTRITION_ENTRIES)
+                .document(entryId).get());
+        return FirestoreMappers.toNutritionEntry(document);
+    }
+
+    @Override
+    public List<NutritionEntry> getEntries(String userId, String date) throws IOException {
+        return toEntries(await(db.collection(FirebaseService.COLLECTION_NUTRITION_ENTRIES)
+                .whereEqualTo("userId", userId)
+                .whereEqualTo("date", date)
+                .get()));
+    }
+
+    @Override
+    public List<NutritionEntry> getEntriesInRange(String userId, String startDate, String endDate) throws IOException {
+        return toEntries(await(db.collection(FirebaseService.COLLECTION_NUTRITION_ENTRIES)
+                .whereEqualTo("userId", userId)
+                .whereGreaterThanOrEqualTo("date", startDate)
+                .whereLessThanOrEqualTo("date", endDate)
+                .orderBy("date")
+                .get()));
+    }
+
+    // One document read instead of the day's entries
+    @Override
+    public DailySummary getDailySummary(String userId, String date) throws IOException {
+        DocumentSnapshot document = await(db.collection(FirebaseService.COLLECTION_DAILY_SUMMARIES)
+                .document(DailySummary.documentId(userId, date)).get());
+        DailySummary summary = FirestoreMappers.toDailySummary(document);
+        return summary != null ? summary : new DailySummary(userId, date);
+    }
+
+    @Override
+    public void addActivities(List<UserActivityModel> activities) throws IOException {
+        await(firebaseService.saveUserActivities(activities));
+    }
+
+    @Override
+    public List<UserActivityModel> getRecentActivities(String userId, int limit) throws IOException {
+        QuerySnapshot snapshot = await(db.collection(FirebaseService.COLLECTION_USER_ACTIVITIES)
+                .whereEqualTo("userId", userId)
+                .orderBy("timestamp", Query.Direction.DESCENDING)
+                .limit(limit)
+                .get());
+        List<UserActivityModel> activities = new ArrayList<>(snapshot.size());
+        for (QueryDocumentSnapshot document : snapshot) {
+            activities.add(FirestoreMappers.toUserActivity(document));
+        }
+        return activities;
+    }
+
+    @Override
+    public UserProfile getProfile(String userId) throws IOException {
+        DocumentSnapshot document = await(db.collection(FirebaseService.COLLECTION_USER_PROFILES)
+                .document(userId).get());
+        return FirestoreMappers.toUserProfile(document);
+    }
+
+    @Override
+    public void putProfile(UserProfile profile) throws IOException {
+        await(db.collection(FirebaseService.COLLECTION_USER_PROFILES)
+                .document(profile.getUserId()).set(profile));
+    }
+
+    private static List<NutritionEntry> toEntries(QuerySnapshot snapshot) {
+        List<NutritionEntry> entries = new ArrayList<>(snapshot.size());
+        for (QueryDocumentSnapshot document : snapshot) {
+            entries.add(FirestoreMappers.toNutritionEntry(document));
+        }
+        return entries;
+    }
+
+    private static <T> T await(Task<T> task) throws IOException {
+        try {
+            return Tasks.await(task, TIMEOUT_SECONDS, TimeUnit.SECONDS);
+        } catch (ExecutionException e) {
+            throw new IOException(e.getCause());
+        } catch (TimeoutException e) {
+            throw new IOException("Firestore did not answer within " + TIMEOUT_SECONDS + " s", e);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new InterruptedIOException();
+        }
+    }
+}
@@ -0,0 +1,218 @@
+package com.example.nutritracker.data;
+
+import com.example.nutritracker.firebase.DailySummary;
+import com.example.nutritracker.firebase.NutritionEntry;
+import com.example.nutritracker.firebase.UserActivityModel;
+import com.example.nutritracker.firebase.UserProfile;
+
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.TreeMap;
+import java.util.concurrent.locks.ReadWriteLock;
+import java.util.concurrent.locks.ReentrantReadWriteLock;
+
+/**
+ * {@link NutritionStore} held entirely in memory, for load tests with millions of
+ * synthetic entries on a plain JVM.
+ *
+ * Entries are indexed by ID and by user and date, so a day or a date range is found
+ * without a scan, and each day's totals are kept up to date on every write, so
+ * getDailySummary is O(1). Objects are stored and returned as they are, not copied;
+ * callers must not modify an entry after putting it or one they got back.
+ *
+ * Safe for concurrent use: reads share a lock, writes take it exclusively.
+ */
+public final class InMemoryNutritionStore implements NutritionStore {
+
+    private final ReadWriteLock lock = new ReentrantReadWriteLock();
+    private final Map<String, NutritionEntry> entriesById = new HashMap<>();
+    // userId -> date -> entries of that day in insertion order
+    private final Map<String, TreeMap<String, Map<String, NutritionEntry>>> entriesByDay = new HashMap<>();
+    private final Map<String, DailySummary> summaries = new HashMap<>(); // DailySummary.documentId
+    // userId -> activities in the order added
+    private final Map<String, List<UserActivityModel>> activities = new HashMap<>();
+    private final Map<String, UserProfile> profiles = new HashMap<>();
+
+    @Override
+    public void putEntry(NutritionEntry entry) {
+        lock.writeLock().lock();
+        try {
+            NutritionEntry old = entriesById.put(entry.getId(), entry);
+            if (old != null) {
+                unindex(old);
+            }
+            entriesByDay.computeIfAbsent(entry.getUserId(), k -> new TreeMap<>())
+                    .computeIfAbsent(entry.getDate(), k -> new LinkedHashMap<>())
+                    .put(entry.getId(), entry);
+            summaries.computeIfAbsent(DailySummary.documentId(entry.getUserId(), entry.getDate()),
+                    k -> new DailySummary(entry.getUserId(), entry.getDate())).add(entry);
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    @Override
+    public void deleteEntry(String entryId) {
+        lock.writeLock().lock();
+        try {
+            NutritionEntry old = entriesById.remove(entryId);
+            if (old != null) {
+                unindex(old);
+            }
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    // Write lock held
+    private void unindex(NutritionEntry entry) {
+        TreeMap<String, Map<String, NutritionEntry>> days = entriesByDay.get(entry.getUserId());
+        Map<String, NutritionEntry> day = days.get(entry.getDate());
+        day.remove(entry.getId());
+        if (day.isEmpty()) {
+            days.remove(entry.getDate());
+        }
+        String key = DailySummary.documentId(entry.getUserId(), entry.getDate());
+        DailySummary summary = summaries.get(key);
+        summary.subtract(entry);
+        if (summary.getEntryCount() == 0) {
+            summaries.remove(key);
+        }
+    }
+
+    @Override
+    public NutritionEntry getEntry(String entryId) {
+        lock.readLock().lock();
+        try {
+            return entriesById.get(entryId);
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    @Override
+    public List<NutritionEntry> getEntries(String userId, String date) {
+        lock.readLock().lock();
+        try {
+            TreeMap<String, Map<String, NutritionEntry>> days = entriesByDay.get(userId);
+            Map<String, NutritionEntry> day = days != null ? days.get(date) : null;
+            return day != null ? new ArrayList<>(day.values()) : new ArrayList<>();
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    @Override
+    public List<NutritionEntry> getEntriesInRange(String userId, String startDate, String endDate) {
+        lock.readLock().lock();
+        try {
+            List<NutritionEntry> result = new ArrayList<>();
+            TreeMap<String, Map<String, NutritionEntry>> days = entriesByDay.get(userId);
+            if (days != null) {
+                for (Map<String, NutritionEntry> day : days.subMap(startDate, true, endDate, true).values()) {
+                    result.addAll(day.values());
+                }
+            }
+            return result;
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    @Override
+    public DailySummary getDailySummary(String userId, String date) {
+        lock.readLock().lock();
+        try {
+            DailySummary summary = summaries.get(DailySummary.documentId(userId, date));
+            return summary != null ? summary.copy() : new DailySummary(userId, date);
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    @Override
+    public void addActivities(List<UserActivityModel> added) {
+        lock.writeLock().lock();
+        try {
+            for (UserActivityModel activity : added) {
+                activities.computeIfAbsent(activity.getUserId(), k -> new ArrayList<>()).add(activity);
+            }
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    @Override
+    public List<UserActivityModel> getRecentActivities(String userId, int limit) {
+        lock.readLock().lock();
+        try {
+            List<UserActivityModel> all = activities.get(userId);
+            if (all == null) {
+                return new ArrayList<>();
+            }
+            List<UserActivityModel> recent = new ArrayList<>(all.subList(Math.max(0, all.size() - limit), all.size()));
+            Collections.reverse(recent);
+            return recent;
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    @Override
+    public UserProfile getProfile(String userId) {
+        lock.readLock().lock();
+        try {
+            return profiles.get(userId);
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    @Override
+    public void putProfile(UserProfile profile) {
+        lock.writeLock().lock();
+        try {
+            profiles.put(profile.getUserId(), profile);
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    // --- Snapshots for FileNutritionStore's compaction ---
+
+    List<NutritionEntry> allEntries() {
+        lock.readLock().lock();
+        try {
+            return new ArrayList<>(entriesById.values());
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    List<UserActivityModel> allActivities() {
+        lock.readLock().lock();
+        try {
+            List<UserActivityModel> result = new ArrayList<>();
+            for (List<UserActivityModel> list : activities.values()) {
+                result.addAll(list);
+            }
+            return result;
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    Collection<UserProfile> allProfiles() {
+        lock.readLock().lock();
+        try {
+            return new ArrayList<>(profiles.values());
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+}
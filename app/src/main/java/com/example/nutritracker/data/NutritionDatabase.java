@@ -0,0 +1,403 @@
+package com.example.nutritracker.data;
+
+import android.content.ContentValues;
+import android.content.Context;
+import android.database.Cursor;
+import android.database.sqlite.SQLiteDatabase;
+import android.database.sqlite.SQLiteOpenHelper;
+
+import com.example.nutritracker.firebase.DailySummary;
+import com.example.nutritracker.firebase.NutritionEntry;
+import com.google.firebase.Timestamp;
+
+import java.util.Date;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+
+/**
+ * On-device copy of the user's nutrition entries plus the outbox of changes that still
+ * have to reach Firestore.
+ *
+ * Local edits and their outbox rows are written in one transaction, so a change is either
+ * fully recorded or not at all, even if the process dies right after. Deleted entries stay
+ * behind as tombstones until the delete has been pushed, which stops a pull from bringing
+ * them back in the meantime. Changes the server rejects for good are moved to a dead-letter
+ * table so they don't hold up the rest of the outbox.
+ */
+final class NutritionDatabase extends SQLiteOpenHelper {
+    private static final String DB_NAME = "nutrition.db";
+    private static final int DB_VERSION = 1;
+
+    static final int OP_UPSERT = 1;
+    static final int OP_DELETE = 2;
+
+    private static final String T_ENTRIES = "entries";
+    private static final String T_OUTBOX = "outbox";
+    private static final String T_DEAD_LETTER = "outbox_dead_letter";
+
+    private static final String[] ENTRY_COLUMNS = {
+            "id", "user_id", "date", "meal_type", "food_name",
+            "kcal", "protein", "fat", "quantity", "timestamp", "updated_at"
+    };
+
+    static final class OutboxOp {
+        final long seq;
+        final String entryId;
+        final int op;
+        final int attempts;
+
+        OutboxOp(long seq, String entryId, int op, int attempts) {
+            this.seq = seq;
+            this.entryId = entryId;
+            this.op = op;
+            this.attempts = attempts;
+        }
+    }
+
+    NutritionDatabase(Context context) {
+        super(context.getApplicationContext(), DB_NAME, null, DB_VERSION);
+    }
+
+    @Override
+    public void onConfigure(SQLiteDatabase db) {
+        // Reads on the UI path shouldn't wait behind the sync thread's writes
+        db.enableWriteAheadLogging();
+    }
+
+    @Override
+    public void onCreate(SQLiteDatabase db) {
+        db.execSQL("CREATE TABLE " + T_ENTRIES + " ("
+                + "id TEXT PRIMARY KEY, "
+                + "user_id TEXT NOT NULL, "
+                + "date TEXT NOT NULL, "
+                + "meal_type TEXT, "
+                + "food_name TEXT, "
+                + "kcal REAL NOT NULL, "
+                + "protein REAL NOT NULL, "
+                + "fat REAL NOT NULL, "
+                + "quantity REAL NOT NULL, "
+                + "timestamp INTEGER NOT NULL, "
+                + "updated_at INTEGER NOT NULL, "
+                + "deleted INTEGER NOT NULL DEFAULT 0)");
+        db.execSQL("CREATE INDEX entries_user_date ON " + T_ENTRIES + " (user_id, date)");
+        db.execSQL("CREATE TABLE " + T_OUTBOX + " ("
+                + "seq INTEGER PRIMARY KEY AUTOINCREMENT, "
+                + "entry_id TEXT NOT NULL, "
+                + "op INTEGER NOT NULL, "
+                + "created_at INTEGER NOT NULL, "
+                + "attempts INTEGER NOT NULL DEFAULT 0)");
+        db.execSQL("CREATE TABLE " + T_DEAD_LETTER + " ("
+                + "seq INTEGER PRIMARY KEY, "
+                + "entry_id TEXT NOT NULL, "
+                + "op INTEGER NOT NULL, "
+                + "created_at INTEGER NOT NULL, "
+                + "attempts INTEGER NOT NULL, "
+                + "failed_at INTEGER NOT NULL, "
+                + "error TEXT)");
+    }
+
+    @Override
+    public void onUpgrade(SQLiteDatabase db, int oldVersion, int newVersion) {
+        // No upgrades yet; version 1 is the first schema
+    }
+
+    // --- Reads ---
+
+    /** Totals for the day, summed by SQLite; an empty summary when there are no entries. */
+    DailySummary getDailySummary(String userId, String date) {
+        DailySummary summary = new DailySummary(userId, date);
+        double kcal = 0, protein = 0, fat = 0;
+        long count = 0;
+        try (Cursor c = getReadableDatabase().rawQuery(
+                "SELECT meal_type, SUM(kcal), SUM(protein), SUM(fat), COUNT(*) FROM " + T_ENTRIES
+                        + " WHERE user_id = ? AND date = ? AND deleted = 0 GROUP BY meal_type",
+                new String[]{userId, date})) {
+            while (c.moveToNext()) {
+                if (!c.isNull(0)) {
+                    summary.addMealKcal(c.getString(0), c.getDouble(1));
+                }
+                kcal += c.getDouble(1);
+                protein += c.getDouble(2);
+                fat += c.getDouble(3);
+                count += c.getLong(4);
+            }
+        }
+        summary.setKcal(kcal);
+        summary.setProtein(protein);
+        summary.setFat(fat);
+        summary.setEntryCount(count);
+        return summary;
+    }
+
+    /** The entry as it should be pushed, or null if it is missing or deleted. */
+    NutritionEntry getEntry(String id) {
+        try (Cursor c = getReadableDatabase().query(T_ENTRIES, ENTRY_COLUMNS,
+                "id = ? AND deleted = 0", new String[]{id}, null, null, null)) {
+            return c.moveToFirst() ? readEntry(c) : null;
+        }
+    }
+
+    // --- Local changes ---
+
+    void insert(NutritionEntry entry) {
+        SQLiteDatabase db = getWritableDatabase();
+        db.beginTransaction();
+        try {
+            db.insertOrThrow(T_ENTRIES, null, toValues(entry));
+            enqueue(db, entry.getId(), OP_UPSERT);
+            db.setTransactionSuccessful();
+        } finally {
+            db.endTransaction();
+        }
+    }
+
+    /** Tombstones the entry and queues its delete; false if there was nothing to delete. */
+    boolean markDeleted(String id) {
+        SQLiteDatabase db = getWritableDatabase();
+        db.beginTransaction();
+        try {
+            ContentValues values = new ContentValues();
+            values.put("deleted", 1);
+            values.put("updated_at", System.currentTimeMillis());
+            if (db.update(T_ENTRIES, values, "id = ? AND deleted = 0", new String[]{id}) == 0) {
+                return false;
+            }
+            enqueue(db, id, OP_DELETE);
+            db.setTransactionSuccessful();
+            return true;
+        } finally {
+            db.endTransaction();
+        }
+    }
+
+    /** Drops everything stored for the user, including changes not yet pushed. */
+    void deleteUser(String userId) {
+        SQLiteDatabase db = getWritableDatabase();
+        db.beginTransaction();
+        try {
+            db.delete(T_OUTBOX, "entry_id IN (SELECT id FROM " + T_ENTRIES + " WHERE user_id = ?)",
+                    new String[]{userId});
+            db.delete(T_ENTRIES, "user_id = ?", new String[]{userId});
+            db.setTransactionSuccessful();
+        } finally {
+            db.endTransaction();
+        }
+    }
+
+    // --- Outbox ---
+
+    /** Oldest pending change for the user's entries, or null when there is none. */
+    OutboxOp peekOutbox(String userId) {
+        try (Cursor c = getReadableDatabase().rawQuery(
+                "SELECT o.seq, o.entry_id, o.op, o.attempts FROM " + T_OUTBOX + " o"
+                        + " JOIN " + T_ENTRIES + " e ON e.id = o.entry_id"
+                        + " WHERE e.user_id = ? ORDER BY o.seq LIMIT 1",
+                new String[]{userId})) {
+            if (!c.moveToFirst()) return null;
+            return new OutboxOp(c.getLong(0), c.getString(1), c.getInt(2), c.getInt(3));
+        }
+    }
+
+    /** Removes a pushed change; a pushed delete also drops the tombstone. */
+    void completeOutbox(OutboxOp op) {
+        SQLiteDatabase db = getWritableDatabase();
+        db.beginTransaction();
+        try {
+            db.delete(T_OUTBOX, "seq = ?", new String[]{String.valueOf(op.seq)});
+            if (op.op == OP_DELETE && !hasPending(db, op.entryId)) {
+                db.delete(T_ENTRIES, "id = ? AND deleted = 1", new String[]{op.entryId});
+            }
+            db.setTransactionSuccessful();
+        } finally {
+            db.endTransaction();
+        }
+    }
+
+    /** Depth of the user's outbox and the age of its oldest change. */
+    OutboxStatus getOutboxStatus(String userId) {
+        try (Cursor c = getReadableDatabase().rawQuery(
+                "SELECT COUNT(*), MIN(o.created_at), MAX(o.attempts) FROM " + T_OUTBOX + " o"
+                        + " JOIN " + T_ENTRIES + " e ON e.id = o.entry_id WHERE e.user_id = ?",
+                new String[]{userId})) {
+            if (!c.moveToFirst() || c.getInt(0) == 0) {
+                return new OutboxStatus(0, 0, 0);
+            }
+            long age = Math.max(0, System.currentTimeMillis() - c.getLong(1));
+            return new OutboxStatus(c.getInt(0), age, c.getInt(2));
+        }
+    }
+
+    void recordAttempt(OutboxOp op) {
+        getWritableDatabase().execSQL("UPDATE " + T_OUTBOX + " SET attempts = attempts + 1 WHERE seq = ?",
+                new Object[]{op.seq});
+    }
+
+    /**
+     * Moves a change the server rejected for good out of the outbox, keeping it for
+     * inspection. The local entry is handed back to the server: a rejected delete loses its
+     * tombstone and a rejected upsert its update time, so the next pull restores the
+     * server's copy, or removes the entry if the server never had it.
+     */
+    void deadLetterOutbox(OutboxOp op, String error) {
+        SQLiteDatabase db = getWritableDatabase();
+        db.beginTransaction();
+        try {
+            db.execSQL("INSERT INTO " + T_DEAD_LETTER
+                            + " (seq, entry_id, op, created_at, attempts, failed_at, error)"
+                            + " SELECT seq, entry_id, op, created_at, attempts + 1, ?, ? FROM " + T_OUTBOX
+                            + " WHERE seq = ?",
+                    new Object[]{System.currentTimeMillis(), error, op.seq});
+            db.delete(T_OUTBOX, "seq = ?", new String[]{String.valueOf(op.seq)});
+            if (!hasPending(db, op.entryId)) {
+                if (op.op == OP_DELETE) {
+                    db.delete(T_ENTRIES, "id = ? AND deleted = 1", new String[]{op.entryId});
+                } else {
+                    db.execSQL("UPDATE " + T_ENTRIES + " SET updated_at = 0 WHERE id = ?",
+                            new Object[]{op.entryId});
+                }
+            }
+            db.setTransactionSuccessful();
+        } finally {
+            db.endTransaction();
+        }
+    }
+
+    // --- Reconciliation ---
+
+    /**
+     * Applies the server's entries for one day. Entries with changes still in the outbox
+     * keep their local version; otherwise the newer {@code updatedAt} wins, and entries the
+     * server no longer has are removed. Returns true if anything visible changed.
+     */
+    boolean mergeRemote(String userId, String date, List<NutritionEntry> remote) {
+        SQLiteDatabase db = getWritableDatabase();
+        db.beginTransaction();
+        try {
+            Map<String, Long> local = new HashMap<>();
+            try (Cursor c = db.query(T_ENTRIES, new String[]{"id", "updated_at"},
+                    "user_id = ? AND date = ?", new String[]{userId, date}, null, null, null)) {
+                while (c.moveToNext()) {
+                    local.put(c.getString(0), c.getLong(1));
+                }
+            }
+            Set<String> pending = new HashSet<>();
+            try (Cursor c = db.rawQuery("SELECT DISTINCT entry_id FROM " + T_OUTBOX, null)) {
+                while (c.moveToNext()) {
+                    pending.add(c.getString(0));
+                }
+            }
+
+            boolean changed = false;
+            Set<String> seen = new HashSet<>();
+            for (NutritionEntry entry : remote) {
+                seen.add(entry.getId());
+                if (pending.contains(entry.getId())) continue;
+                Long localUpdatedAt = local.get(entry.getId());
+                if (localUpdatedAt != null && localUpdatedAt >= updatedAtOf(entry)) continue;
+                entry.setUserId(userId);
+                db.insertWithOnConflict(T_ENTRIES, null, toValues(entry), SQLiteDatabase.CONFLICT_REPLACE);
+                changed = true;
+            }
+            for (String id : local.keySet()) {
+                if (!seen.contains(id) && !pending.contains(id)) {
+                    db.delete(T_ENTRIES, "id = ?", new String[]{id});
+                    changed = true;
+                }
+            }
+            db.setTransactionSuccessful();
+            return changed;
+        } finally {
+            db.endTransaction();
+        }
+    }
+
+    /**
+     * Applies one server change with the same rules as {@link #mergeRemote}. Returns true
+     * if the local copy changed.
+     */
+    boolean applyRemoteChange(String userId, NutritionEntry entry, boolean removed) {
+        SQLiteDatabase db = getWritableDatabase();
+        db.beginTransaction();
+        try {
+            boolean changed;
+            if (hasPending(db, entry.getId())) {
+                changed = false;
+            } else if (removed) {
+                changed = db.delete(T_ENTRIES, "id = ? AND user_id = ?", new String[]{entry.getId(), userId}) > 0;
+            } else {
+                changed = true;
+                try (Cursor c = db.rawQuery("SELECT updated_at FROM " + T_ENTRIES + " WHERE id = ?",
+                        new String[]{entry.getId()})) {
+                    if (c.moveToFirst() && c.getLong(0) >= updatedAtOf(entry)) {
+                        changed = false;
+                    }
+                }
+                if (changed) {
+                    entry.setUserId(userId);
+                    db.insertWithOnConflict(T_ENTRIES, null, toValues(entry), SQLiteDatabase.CONFLICT_REPLACE);
+                }
+            }
+            db.setTransactionSuccessful();
+            return changed;
+        } finally {
+            db.endTransaction();
+        }
+    }
+
+    // Entries written before updatedAt existed only have their creation time
+    private static long updatedAtOf(NutritionEntry entry) {
+        if (entry.getUpdatedAt() > 0) return entry.getUpdatedAt();
+        return entry.getTimestamp() != null ? entry.getTimestamp().toDate().getTime() : 0;
+    }
+
+    private static void enqueue(SQLiteDatabase db, String entryId, int op) {
+        ContentValues values = new ContentValues();
+        values.put("entry_id", entryId);
+        values.put("op", op);
+        values.put("created_at", System.currentTimeMillis());
+        db.insertOrThrow(T_OUTBOX, null, values);
+    }
+
+    private static boolean hasPending(SQLiteDatabase db, String entryId) {
+        try (Cursor c = db.rawQuery("SELECT 1 FROM " + T_OUTBOX + " WHERE entry_id = ? LIMIT 1",
+                new String[]{entryId})) {
+            return c.moveToFirst();
+        }
+    }
+
+    private static ContentValues toValues(NutritionEntry entry) {
+        ContentValues values = new ContentValues();
+        values.put("id", entry.getId());
+        values.put("user_id", entry.getUserId());
+        values.put("date", entry.getDate());
+        values.put("meal_type", entry.getMealType());
+        values.put("food_name", entry.getFoodName());
+        values.put("kcal", entry.getKcal());
+        values.put("protein", entry.getProtein());
+        values.put("fat", entry.getFat());
+        values.put("quantity", entry.getQuantity());
+        values.put("timestamp", entry.getTimestamp() != null ? entry.getTimestamp().toDate().getTime() : 0);
+        values.put("updated_at", updatedAtOf(entry));
+        values.put("deleted", 0);
+        return values;
+    }
+
+    private static NutritionEntry readEntry(Cursor c) {
+        NutritionEntry entry = new NutritionEntry();
+        entry.setId(c.getString(0));
+        entry.setUserId(c.getString(1));
+        entry.setDate(c.getString(2));
+        entry.setMealType(c.getString(3));
+        entry.setFoodName(c.getString(4));
+        entry.setKcal(c.getDouble(5));
+        entry.setProtein(c.getDouble(6));
+        entry.setFat(c.getDouble(7));
+        entry.setQuantity(c.getDouble(8));
+        entry.setTimestamp(new Timestamp(new Date(c.getLong(9))));
+        entry.setUpdatedAt(c.getLong(10));
+        return entry;
+    }
+}
@@ -0,0 +1,286 @@
+package com.example.nutritracker.data;
+
+import android.content.Context;
+import android.content.SharedPreferences;
+import android.os.Handler;
+import android.os.Looper;
+import android.os.SystemClock;
+import android.util.Log;
+
+import com.example.nutritracker.firebase.DailySummary;
+import com.example.nutritracker.firebase.FirebaseService;
+import com.example.nutritracker.firebase.NutritionEntry;
+import com.google.android.gms.tasks.Task;
+import com.google.firebase.firestore.ListenerRegistration;
+
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.UUID;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Offline-first access to the user's nutrition entries.
+ *
+ * Reads come from the on-device {@link NutritionDatabase} and never wait for the network.
+ * Writes land there too, together with an outbox row, and {@link NutritionSyncEngine}
+ * pushes them to the {@link NutritionStore} in the background; that is
+ * {@link FirestoreNutritionStore}, which keeps the server's daily summaries in step, unless
+ * another store is passed in. Watching a day also asks for a pull of it (at most once per
+ * {@link #PULL_INTERVAL_MS}) and, once per user, for the daily summary backfill.
+ *
+ * Callbacks run on the main thread.
+ */
+public final class NutritionRepository {
+    private static final String TAG = "NutritionRepository";
+    private static final long PULL_INTERVAL_MS = TimeUnit.MINUTES.toMillis(1);
+    private static final String PREFS_NAME = "nutrition_sync";
+    private static final String KEY_BACKFILLED_PREFIX = "summaries_backfilled_";
+
+    private static NutritionRepository instance;
+
+    private final NutritionDatabase database;
+    private final FirebaseService firebaseService;
+    private final NutritionSyncEngine syncEngine;
+    // Local reads and writes run in order on one thread, so a read sees every earlier write
+    private final ExecutorService executor = Executors.newSingleThreadExecutor();
+    private final Handler mainHandler = new Handler(Looper.getMainLooper());
+    private final SharedPreferences prefs;
+    // Only touched on the executor
+    private final Map<String, Long> lastPullAt = new HashMap<>();
+    private final Set<String> backfillRequested = new HashSet<>();
+    private Object watchedToken;
+    private String watchedUserId;
+    private String watchedDate;
+    private DailySummary watchedSummary;
+    private FirebaseService.DailySummaryCallback watchCallback;
+    // Identifies the current watch; replaced on every watch and cleared on stop
+    private volatile Object watchToken;
+    private ListenerRegistration registration; // Main thread only
+
+    public static synchronized NutritionRepository getInstance(Context context) {
+        if (instance == null) {
+            instance = new NutritionRepository(context.getApplicationContext());
+        }
+        return instance;
+    }
+
+    private NutritionRepository(Context context) {
+        this(context, new FirestoreNutritionStore());
+    }
+
+    NutritionRepository(Context context, NutritionStore store) {
+        database = new NutritionDatabase(context);
+        prefs = context.getSharedPreferences(PREFS_NAME, Context.MODE_PRIVATE);
+        firebaseService = new FirebaseService();
+        syncEngine = new NutritionSyncEngine(database, store, firebaseService, this::onRemoteChanges);
+        // Send anything left over from a previous run
+        syncEngine.requestPush();
+    }
+
+    /**
+     * Keeps the callback up to date with the day's totals until {@link #stopWatching}, or
+     * until another day is watched. The day is summed locally once; after that every local
+     * write and every change Firestore reports moves the totals by that one entry, so
+     * edits from other devices show up without a refetch. Call on the main thread.
+     */
+    public void watchDailySummary(String date, FirebaseService.DailySummaryCallback callback) {
+        stopWatching();
+        String userId = firebaseService.getCurrentUserId();
+        if (userId == null) {
+            callback.onFailure(new Exception("No user logged in"));
+            return;
+        }
+        Object token = new Object();
+        watchToken = token;
+        executor.execute(() -> {
+            if (token != watchToken) return;
+            try {
+                watchedSummary = database.getDailySummary(userId, date);
+            } catch (RuntimeException e) {
+                Log.e(TAG, "❌ Local summary failed for " + date, e);
+                mainHandler.post(() -> callback.onFailure(e));
+                return;
+            }
+            watchedToken = token;
+            watchedUserId = userId;
+            watchedDate = date;
+            watchCallback = callback;
+            publishWatched();
+            maybePull(userId, date);
+        });
+        registration = firebaseService.listenToNutritionEntriesForDate(date,
+                new FirebaseService.NutritionEntryChangesListener() {
+                    @Override
+                    public void onChanges(List<NutritionEntry> upserted, List<NutritionEntry> removed) {
+                        executor.execute(() -> {
+                            if (token != watchedToken) return;
+                            boolean changed = false;
+                            for (NutritionEntry entry : upserted) {
+                                changed |= applyRemoteChange(entry, false);
+                            }
+                            for (NutritionEntry entry : removed) {
+                                changed |= applyRemoteChange(entry, true);
+                            }
+                            if (changed) publishWatched();
+                        });
+                    }
+
+                    @Override
+                    public void onFailure(Exception e) {
+                        // The local totals stay valid, they just stop following other devices
+                        Log.w(TAG, "⚠️ Live updates unavailable for " + date, e);
+                    }
+                });
+    }
+
+    public void stopWatching() {
+        watchToken = null;
+        if (registration != null) {
+            registration.remove();
+            registration = null;
+        }
+    }
+
+    /** Saves locally and queues the upload; the callback reports the local write. */
+    public void saveEntry(String date, String mealType, String foodName,
+                          double kcal, double protein, double fat, double quantity,
+                          FirebaseService.SaveCallback callback) {
+        String userId = firebaseService.getCurrentUserId();
+        if (userId == null) {
+            Log.w(TAG, "Cannot save nutrition entry: No user logged in");
+            if (callback != null) callback.onFailure(new Exception("No user logged in"));
+            return;
+        }
+        NutritionEntry entry = new NutritionEntry(userId, date, mealType, foodName, kcal, protein, fat, quantity);
+        // Generated here rather than by Firestore, so the upload can be retried safely
+        entry.setId(UUID.randomUUID().toString());
+        executor.execute(() -> {
+            try {
+                database.insert(entry);
+            } catch (RuntimeException e) {
+                Log.e(TAG, "❌ Error saving nutrition entry locally", e);
+                if (callback != null) mainHandler.post(() -> callback.onFailure(e));
+                return;
+            }
+            Log.d(TAG, "✅ Saved " + foodName + " for " + date + " (" + mealType + "), upload queued");
+            if (adjustWatched(entry, 1)) publishWatched();
+            if (callback != null) mainHandler.post(callback::onSuccess);
+            syncEngine.requestPush();
+        });
+    }
+
+    public void deleteEntry(String entryId) {
+        executor.execute(() -> {
+            NutritionEntry before = database.getEntry(entryId);
+            if (database.markDeleted(entryId)) {
+                if (before != null && adjustWatched(before, -1)) publishWatched();
+                syncEngine.requestPush();
+            }
+        });
+    }
+
+    public interface OutboxStatusCallback {
+        void onStatus(OutboxStatus status);
+    }
+
+    /** How many entry changes are still waiting to be uploaded, and for how long. */
+    public void getOutboxStatus(OutboxStatusCallback callback) {
+        String userId = firebaseService.getCurrentUserId();
+        if (userId == null) {
+            callback.onStatus(new OutboxStatus(0, 0, 0));
+            return;
+        }
+        executor.execute(() -> {
+            OutboxStatus status = database.getOutboxStatus(userId);
+            mainHandler.post(() -> callback.onStatus(status));
+        });
+    }
+
+    /**
+     * Stops uploading the user's entries and drops their unsent changes, so nothing reaches
+     * the server while their account is being deleted.
+     */
+    public Task<Void> stopSync(String userId) {
+        return syncEngine.stopForUser(userId);
+    }
+
+    /** Forgets the user's local entries and unsent changes, e.g. once their account is deleted. */
+    public void clearLocalData(String userId) {
+        executor.execute(() -> database.deleteUser(userId));
+    }
+
+    // --- Watched day, executor only ---
+
+    private boolean applyRemoteChange(NutritionEntry entry, boolean removed) {
+        NutritionEntry before = database.getEntry(entry.getId());
+        if (!database.applyRemoteChange(watchedUserId, entry, removed)) {
+            return false;
+        }
+        if (before != null) adjustWatched(before, -1);
+        if (!removed) adjustWatched(entry, 1);
+        return true;
+    }
+
+    // O(1) update of the running totals; false if the entry isn't part of the watched day
+    private boolean adjustWatched(NutritionEntry entry, int sign) {
+        if (watchedToken == null || watchedToken != watchToken
+                || !entry.getDate().equals(watchedDate) || !entry.getUserId().equals(watchedUserId)) {
+            return false;
+        }
+        if (sign > 0) {
+            watchedSummary.add(entry);
+        } else {
+            watchedSummary.subtract(entry);
+        }
+        return true;
+    }
+
+    private void publishWatched() {
+        Object token = watchedToken;
+        DailySummary summary = watchedSummary.copy();
+        FirebaseService.DailySummaryCallback callback = watchCallback;
+        mainHandler.post(() -> {
+            if (token == watchToken) callback.onSuccess(summary);
+        });
+    }
+
+    // Runs on the executor
+    private void maybePull(String userId, String date) {
+        maybeBackfill(userId);
+        long now = SystemClock.elapsedRealtime();
+        String key = userId + "|" + date;
+        Long last = lastPullAt.get(key);
+        if (last != null && now - last < PULL_INTERVAL_MS) {
+            return;
+        }
+        lastPullAt.put(key, now);
+        syncEngine.requestPull(date);
+    }
+
+    // Summaries for entries written before they existed are built once per user
+    private void maybeBackfill(String userId) {
+        String key = KEY_BACKFILLED_PREFIX + userId;
+        if (backfillRequested.contains(userId) || prefs.getBoolean(key, false)) {
+            return;
+        }
+        backfillRequested.add(userId);
+        syncEngine.requestBackfill(() -> prefs.edit().putBoolean(key, true).apply());
+    }
+
+    // Runs on the sync thread. The pull also drops entries deleted on the server while this
+    // device was offline, which the snapshot listener never reports, so sum the day again
+    private void onRemoteChanges(String date) {
+        executor.execute(() -> {
+            if (watchedToken == null || watchedToken != watchToken || !date.equals(watchedDate)) {
+                return;
+            }
+            watchedSummary = database.getDailySummary(watchedUserId, date);
+            publishWatched();
+        });
+    }
+}
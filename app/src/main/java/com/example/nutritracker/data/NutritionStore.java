@@ -0,0 +1,58 @@
+package com.example.nutritracker.data;
+
+import com.example.nutritracker.firebase.DailySummary;
+import com.example.nutritracker.firebase.NutritionEntry;
+import com.example.nutritracker.firebase.UserActivityModel;
+import com.example.nutritracker.firebase.UserProfile;
+
+import java.io.IOException;
+import java.util.List;
+
+/**
+ * Where nutrition entries, activities and profiles are kept, independent of the backend:
+ * {@link FirestoreNutritionStore} for the real thing, {@link InMemoryNutritionStore} and
+ * {@link FileNutritionStore} for load tests and benchmarks without a Firebase project.
+ *
+ * Every call blocks until the backend has answered, so call from a background thread.
+ * Entry IDs are assigned by the caller, which makes putEntry an idempotent upsert.
+ * Returned objects belong to the caller, except in the in-memory store (see there).
+ */
+public interface NutritionStore {
+
+    // --- Entries ---
+
+    void putEntry(NutritionEntry entry) throws IOException;
+
+    // Deleting an entry that doesn't exist is a no-op
+    void deleteEntry(String entryId) throws IOException;
+
+    // null when there is no such entry
+    NutritionEntry getEntry(String entryId) throws IOException;
+
+    List<NutritionEntry> getEntries(String userId, String date) throws IOException;
+
+    // Dates are "yyyy-MM-dd", both ends inclusive; ordered by date
+    List<NutritionEntry> getEntriesInRange(String userId, String startDate, String endDate) throws IOException;
+
+    default DailySummary getDailySummary(String userId, String date) throws IOException {
+        DailySummary summary = new DailySummary(userId, date);
+        for (NutritionEntry entry : getEntries(userId, date)) {
+            summary.add(entry);
+        }
+        return summary;
+    }
+
+    // --- Activities ---
+
+    void addActivities(List<UserActivityModel> activities) throws IOException;
+
+    // Newest first
+    List<UserActivityModel> getRecentActivities(String userId, int limit) throws IOException;
+
+    // --- Profiles ---
+
+    // null when the user has no profile
+    UserProfile getProfile(String userId) throws IOException;
+
+    void putProfile(UserProfile profile) throws IOException;
+}
@@ -0,0 +1,217 @@
+package com.example.nutritracker.data;
+
+import android.util.Log;
+
+import com.example.nutritracker.firebase.FirebaseService;
+import com.example.nutritracker.firebase.NutritionEntry;
+import com.google.android.gms.tasks.Task;
+import com.google.android.gms.tasks.TaskCompletionSource;
+import com.google.android.gms.tasks.Tasks;
+import com.google.firebase.firestore.FirebaseFirestoreException;
+
+import java.io.IOException;
+import java.util.List;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Moves changes between {@link NutritionDatabase} and a {@link NutritionStore} (Firestore
+ * in the app) on a single background thread: pushes drain the outbox oldest first, pulls
+ * fetch one day from the store and merge it in. Running both on the same thread means a pull never races a push of the
+ * same entry.
+ *
+ * A push that fails for a reason that may pass (offline, timeout, contention) stops the
+ * drain, so changes are sent in order, and is retried with exponential backoff. Each delay
+ * is randomized between half and all of the backoff, so devices that went offline together
+ * don't all retry at the same moment. A push the server rejects for good (permission,
+ * invalid data) is dead-lettered and the drain moves on; retrying it would only block every
+ * later change and every pull. Entry IDs are generated on the device and summaries are
+ * updated in transactions, so sending a change again after a lost acknowledgement doesn't
+ * duplicate it. Pulls aren't retried; the next time the day is watched asks again.
+ */
+final class NutritionSyncEngine {
+    private static final String TAG = "NutritionSync";
+
+    private static final long TIMEOUT_SECONDS = 30;
+    private static final long RETRY_BASE_MS = TimeUnit.SECONDS.toMillis(15);
+    private static final long RETRY_MAX_MS = TimeUnit.MINUTES.toMillis(15);
+
+    interface Listener {
+        // Called on the sync thread after a pull changed the day's entries
+        void onRemoteChanges(String date);
+    }
+
+    private final NutritionDatabase database;
+    private final NutritionStore store;
+    // Signed-in user and the summary backfill, which the store doesn't cover
+    private final FirebaseService firebaseService;
+    private final Listener listener;
+    private final ScheduledExecutorService executor = Executors.newSingleThreadScheduledExecutor();
+    // Only touched on the executor thread
+    private boolean retryScheduled;
+    private String stoppedUserId;
+
+    NutritionSyncEngine(NutritionDatabase database, NutritionStore store, FirebaseService firebaseService,
+                        Listener listener) {
+        this.database = database;
+        this.store = store;
+        this.firebaseService = firebaseService;
+        this.listener = listener;
+    }
+
+    void requestPush() {
+        executor.execute(this::push);
+    }
+
+    /** Pushes pending changes first, so the server copy of the day already has them. */
+    void requestPull(String date) {
+        executor.execute(() -> {
+            if (push()) {
+                pull(date);
+            }
+        });
+    }
+
+    /**
+     * Rebuilds the user's daily summaries from the server's entries. Runs after the outbox
+     * is drained and on the same thread as pushes, so no increment lands in between.
+     */
+    void requestBackfill(Runnable onDone) {
+        executor.execute(() -> {
+            if (!push()) {
+                return;
+            }
+            try {
+                int days = await(firebaseService.backfillDailySummaries());
+                Log.d(TAG, "🧮 Backfilled " + days + " daily summaries");
+                onDone.run();
+            } catch (Exception e) {
+                Log.w(TAG, "⚠️ Daily summary backfill failed, will retry next launch", e);
+            }
+        });
+    }
+
+    /**
+     * Stops all syncing for the user and drops their local entries and unsent changes, e.g.
+     * before their account is deleted. Completes on the sync thread, after any push, pull or
+     * backfill in progress, so nothing of the user's is written to the server after that.
+     */
+    Task<Void> stopForUser(String userId) {
+        TaskCompletionSource<Void> source = new TaskCompletionSource<>();
+        executor.execute(() -> {
+            stoppedUserId = userId;
+            database.deleteUser(userId);
+            Log.d(TAG, "🛑 Sync stopped for " + userId + ", local changes dropped");
+            source.setResult(null);
+        });
+        return source.getTask();
+    }
+
+    // Returns true once the user's outbox is empty
+    private boolean push() {
+        String userId = firebaseService.getCurrentUserId();
+        if (userId == null || userId.equals(stoppedUserId)) {
+            return false;
+        }
+        NutritionDatabase.OutboxOp op;
+        while ((op = database.peekOutbox(userId)) != null) {
+            try {
+                send(op);
+                database.completeOutbox(op);
+            } catch (Exception e) {
+                if (!isRetryable(e)) {
+                    database.deadLetterOutbox(op, String.valueOf(unwrap(e)));
+                    Log.e(TAG, "❌ Server rejected " + op.entryId + ", dropped from the outbox", e);
+                    continue;
+                }
+                database.recordAttempt(op);
+                scheduleRetry(userId, op.attempts + 1);
+                Log.w(TAG, "⚠️ Push failed for " + op.entryId + ", attempt " + (op.attempts + 1), e);
+                return false;
+            }
+        }
+        return true;
+    }
+
+    private void send(NutritionDatabase.OutboxOp op) throws IOException {
+        if (op.op == NutritionDatabase.OP_DELETE) {
+            store.deleteEntry(op.entryId);
+            return;
+        }
+        NutritionEntry entry = database.getEntry(op.entryId);
+        if (entry == null) {
+            // Deleted locally after this upsert was queued; its own delete follows
+            return;
+        }
+        store.putEntry(entry);
+    }
+
+    private void pull(String date) {
+        String userId = firebaseService.getCurrentUserId();
+        if (userId == null || userId.equals(stoppedUserId)) {
+            return;
+        }
+        try {
+            long start = System.nanoTime();
+            List<NutritionEntry> remote = store.getEntries(userId, date);
+            boolean changed = database.mergeRemote(userId, date, remote);
+            Log.d(TAG, "🔄 Pulled " + remote.size() + " entries for " + date + " in "
+                    + TimeUnit.NANOSECONDS.toMillis(System.nanoTime() - start) + " ms"
+                    + (changed ? ", local copy updated" : ""));
+            if (changed) {
+                listener.onRemoteChanges(date);
+            }
+        } catch (Exception e) {
+            Log.w(TAG, "⚠️ Pull failed for " + date + ", keeping local data", e);
+        }
+    }
+
+    private void scheduleRetry(String userId, int attempts) {
+        if (retryScheduled) {
+            return;
+        }
+        retryScheduled = true;
+        long backoff = Math.min(RETRY_MAX_MS, RETRY_BASE_MS << Math.min(attempts - 1, 10));
+        long delay = backoff / 2 + ThreadLocalRandom.current().nextLong(backoff / 2 + 1);
+        Log.d(TAG, "⏳ Retrying push in " + delay / 1000 + " s; outbox: "
+                + database.getOutboxStatus(userId));
+        executor.schedule(() -> {
+            retryScheduled = false;
+            push();
+        }, delay, TimeUnit.MILLISECONDS);
+    }
+
+    // Only errors that can't go away by themselves are final; anything unknown is retried
+    private static boolean isRetryable(Exception e) {
+        Throwable cause = unwrap(e);
+        if (!(cause instanceof FirebaseFirestoreException)) {
+            return true;
+        }
+        switch (((FirebaseFirestoreException) cause).getCode()) {
+            case INVALID_ARGUMENT:
+            case PERMISSION_DENIED:
+            case NOT_FOUND:
+            case ALREADY_EXISTS:
+            case FAILED_PRECONDITION:
+            case OUT_OF_RANGE:
+            case UNIMPLEMENTED:
+            case DATA_LOSS:
+                return false;
+            default:
+                return true;
+        }
+    }
+
+    // Tasks and the store both wrap the backend's own exception
+    private static Throwable unwrap(Exception e) {
+        boolean wrapper = e instanceof ExecutionException || e instanceof IOException;
+        return wrapper && e.getCause() != null ? e.getCause() : e;
+    }
+
+    private static <T> T await(Task<T> task) throws Exception {
+        return Tasks.await(task, TIMEOUT_SECONDS, TimeUnit.SECONDS);
+    }
+}
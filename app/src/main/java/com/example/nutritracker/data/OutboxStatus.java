@@ -0,0 +1,27 @@
+package com.example.nutritracker.data;
+
+// Snapshot of the entry changes still waiting to be uploaded
+public final class OutboxStatus {
+    private final int pendingCount;
+    private final long oldestPendingAgeMs;
+    private final int maxAttempts;
+
+    OutboxStatus(int pendingCount, long oldestPendingAgeMs, int maxAttempts) {
+        this.pendingCount = pendingCount;
+        this.oldestPendingAgeMs = oldestPendingAgeMs;
+        this.maxAttempts = maxAttempts;
+    }
+
+    public int getPendingCount() { return pendingCount; }
+    // 0 when nothing is pending
+    public long getOldestPendingAgeMs() { return oldestPendingAgeMs; }
+    // Failed uploads of the most retried change
+    public int getMaxAttempts() { return maxAttempts; }
+
+    public boolean isEmpty() { return pendingCount == 0; }
+
+    @Override
+    public String toString() {
+        return pendingCount + " pending, oldest " + oldestPendingAgeMs / 1000 + " s, max attempts " + maxAttempts;
+    }
+}
@@ -0,0 +1,130 @@
+package com.example.nutritracker.data;
+
+import android.os.SystemClock;
+import android.util.Log;
+
+import androidx.lifecycle.LiveData;
+import androidx.lifecycle.MutableLiveData;
+
+import com.example.nutritracker.firebase.FirebaseService;
+import com.example.nutritracker.firebase.UserProfile;
+import com.google.android.gms.tasks.Task;
+import com.google.android.gms.tasks.Tasks;
+
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Process-wide cache of the signed-in user's {@link UserProfile}.
+ *
+ * A cached profile is handed out without a network round trip. Once it is older than
+ * {@link #TTL_MS} it is still handed out, but a refresh is started in the background;
+ * callers asking while a fetch is running wait for that one fetch instead of starting
+ * another. {@link #updateProfile} writes through to Firestore and then to the cache.
+ *
+ * {@link #getProfileUpdates()} emits whenever the name, goals or plan change, whoever
+ * changed them. Callers always get a copy, so editing one before saving leaves the cache
+ * untouched if the save fails.
+ *
+ * Main thread only; Firestore delivers its results there too.
+ */
+public final class UserProfileRepository {
+    private static final String TAG = "UserProfileRepository";
+    private static final long TTL_MS = TimeUnit.MINUTES.toMillis(5);
+
+    private static UserProfileRepository instance;
+
+    private final FirebaseService firebaseService = new FirebaseService();
+    private final MutableLiveData<UserProfile> updates = new MutableLiveData<>();
+    private UserProfile cached;
+    private String cachedUserId;
+    private long cachedAt;
+    private Task<UserProfile> inFlight;
+
+    public static synchronized UserProfileRepository getInstance() {
+        if (instance == null) {
+            instance = new UserProfileRepository();
+        }
+        return instance;
+    }
+
+    private UserProfileRepository() {}
+
+    public LiveData<UserProfile> getProfileUpdates() {
+        return updates;
+    }
+
+    public void getProfile(FirebaseService.UserProfileCallback callback) {
+        getProfile()
+                .addOnSuccessListener(callback::onSuccess)
+                .addOnFailureListener(callback::onFailure);
+    }
+
+    public Task<UserProfile> getProfile() {
+        UserProfile profile = cachedForCurrentUser();
+        if (profile != null) {
+            refreshIfStale();
+            return Tasks.forResult(profile.copy());
+        }
+        return fetch().continueWith(task -> task.getResult().copy());
+    }
+
+    public void refreshIfStale() {
+        if (cachedForCurrentUser() == null || SystemClock.elapsedRealtime() - cachedAt > TTL_MS) {
+            fetch();
+        }
+    }
+
+    public void updateProfile(UserProfile profile, FirebaseService.UserProfileCallback callback) {
+        updateProfile(profile)
+                .addOnSuccessListener(callback::onSuccess)
+                .addOnFailureListener(callback::onFailure);
+    }
+
+    public Task<UserProfile> updateProfile(UserProfile profile) {
+        return firebaseService.saveUserProfile(profile.copy())
+                .onSuccessTask(saved -> {
+                    store(saved);
+                    return Tasks.forResult(saved.copy());
+                });
+    }
+
+    // Call on sign-out and account deletion
+    public void clear() {
+        cached = null;
+        cachedUserId = null;
+        updates.setValue(null);
+    }
+
+    private UserProfile cachedForCurrentUser() {
+        String userId = firebaseService.getCurrentUserId();
+        return cached != null && userId != null && userId.equals(cachedUserId) ? cached : null;
+    }
+
+    // Everyone asking while a fetch runs shares it
+    private Task<UserProfile> fetch() {
+        if (inFlight != null) {
+            return inFlight;
+        }
+        Task<UserProfile> task = firebaseService.fetchUserProfile();
+        inFlight = task;
+        task.addOnCompleteListener(t -> {
+            inFlight = null;
+            if (t.isSuccessful()) {
+                store(t.getResult());
+            } else {
+                Log.w(TAG, "Failed to load user profile", t.getException());
+            }
+        });
+        return task;
+    }
+
+    private void store(UserProfile profile) {
+        boolean changed = cachedForCurrentUser() == null || !profile.hasSameSettings(cached);
+        cached = profile.copy();
+        cachedUserId = profile.getUserId() != null ? profile.getUserId() : firebaseService.getCurrentUserId();
+        cachedAt = SystemClock.elapsedRealtime();
+        if (changed) {
+            updates.setValue(cached.copy());
+        }
+    }
+}
@@ -0,0 +1,49 @@
+package com.example.nutritracker.firebase;
+
+import android.content.Context;
+import android.content.SharedPreferences;
+
+// Remembers how far an account deletion got, so it can be finished after the app was killed
+public class AccountDeletionCheckpoint {
+    private static final String PREFS_NAME = "account_deletion";
+    private static final String KEY_USER_ID = "user_id";
+    private static final String KEY_DELETED_COUNT = "deleted_count";
+    private static final String KEY_DONE_PREFIX = "done_";
+
+    private final SharedPreferences prefs;
+
+    public AccountDeletionCheckpoint(Context context) {
+        prefs = context.getApplicationContext().getSharedPreferences(PREFS_NAME, Context.MODE_PRIVATE);
+    }
+
+    public boolean isPendingFor(String userId) {
+        return userId != null && userId.equals(prefs.getString(KEY_USER_ID, null));
+    }
+
+    // Starts tracking a deletion; keeps the progress if this user's deletion was already under way
+    void begin(String userId) {
+        if (!isPendingFor(userId)) {
+            prefs.edit().clear().putString(KEY_USER_ID, userId).apply();
+        }
+    }
+
+    boolean isCollectionDone(String collection) {
+        return prefs.getBoolean(KEY_DONE_PREFIX + collection, false);
+    }
+
+    void markCollectionDone(String collection) {
+        prefs.edit().putBoolean(KEY_DONE_PREFIX + collection, true).apply();
+    }
+
+    long getDeletedCount() {
+        return prefs.getLong(KEY_DELETED_COUNT, 0);
+    }
+
+    void setDeletedCount(long count) {
+        prefs.edit().putLong(KEY_DELETED_COUNT, count).apply();
+    }
+
+    void clear() {
+        prefs.edit().clear().apply();
+    }
+}
@@ -0,0 +1,349 @@
+package com.example.nutritracker.firebase;
+
+import android.content.ComponentCallbacks2;
+import android.content.Context;
+import android.content.res.Configuration;
+import android.util.Log;
+
+import com.google.android.gms.tasks.Task;
+import com.google.android.gms.tasks.TaskCompletionSource;
+import com.google.android.gms.tasks.Tasks;
+import com.google.firebase.Timestamp;
+
+import java.io.BufferedInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.File;
+import java.io.FileInputStream;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.Date;
+import java.util.Iterator;
+import java.util.List;
+import java.util.UUID;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.ScheduledFuture;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Collects user activity events and writes them to Firestore in batches instead of one
+ * add() per event.
+ *
+ * Events are kept in memory and mirrored to a small file, so a process death before the
+ * next flush loses nothing. A flush sends the signed-in user's events as one WriteBatch
+ * once {@link #FLUSH_SIZE} are waiting, {@link #FLUSH_INTERVAL_MS} after the first one,
+ * or when the app goes to the background. A burst of identical events (same user, type
+ * and details within {@link #COALESCE_WINDOW_MS}) is stored once with a count.
+ *
+ * Events leave the buffer once their batch is acknowledged; a batch that fails stays
+ * buffered and is sent again with the next flush. Every event keeps one document ID for
+ * its whole life, so sending it again, say after a restart while the first batch was still
+ * in Firestore's offline queue, overwrites the document instead of adding a second one.
+ */
+public final class ActivityLogBuffer {
+    private static final String TAG = "ActivityLogBuffer";
+    private static final String FILE_NAME = "activity_log.bin";
+    private static final int FORMAT_VERSION = 2;
+
+    static final int FLUSH_SIZE = 25;
+    static final long FLUSH_INTERVAL_MS = TimeUnit.MINUTES.toMillis(2);
+    static final long COALESCE_WINDOW_MS = TimeUnit.SECONDS.toMillis(30);
+    private static final int MAX_EVENTS = 500;
+    // Events of a user who never signs in again are dropped after this
+    private static final long MAX_AGE_MS = TimeUnit.DAYS.toMillis(7);
+    // Offline, a commit only completes once the server has it; don't hold up sign-out for that
+    private static final long FLUSH_TIMEOUT_MS = TimeUnit.SECONDS.toMillis(3);
+
+    private static ActivityLogBuffer instance;
+
+    private final File file;
+    private final FirebaseService firebaseService;
+    private final ScheduledExecutorService executor = Executors.newSingleThreadScheduledExecutor();
+    private final List<Event> events = new ArrayList<>();
+    private final List<Task<Void>> pendingCommits = new ArrayList<>();
+    private ScheduledFuture<?> scheduledFlush;
+    private boolean loaded;
+    private String discardedUserId; // Account being deleted; their events are never sent
+
+    private static final class Event {
+        String id;
+        String userId;
+        String type;
+        String details;
+        long firstAt;
+        long lastAt;
+        int count;
+        boolean sending; // In a batch that hasn't completed yet; not persisted
+    }
+
+    public static synchronized ActivityLogBuffer getInstance(Context context) {
+        if (instance == null) {
+            Context app = context.getApplicationContext();
+            instance = new ActivityLogBuffer(new File(app.getFilesDir(), FILE_NAME));
+            app.registerComponentCallbacks(instance.backgroundCallbacks);
+        }
+        return instance;
+    }
+
+    private ActivityLogBuffer(File file) {
+        this.file = file;
+        this.firebaseService = new FirebaseService();
+    }
+
+    // The whole app going to the background is the last reliable moment to send events
+    private final ComponentCallbacks2 backgroundCallbacks = new ComponentCallbacks2() {
+        @Override
+        public void onTrimMemory(int level) {
+            if (level >= TRIM_MEMORY_UI_HIDDEN) {
+                executor.execute(ActivityLogBuffer.this::flushNow);
+            }
+        }
+
+        @Override
+        public void onConfigurationChanged(Configuration newConfig) {}
+
+        @Override
+        public void onLowMemory() {}
+    };
+
+    public void log(String userId, String activityType, String activityDetails) {
+        executor.execute(() -> add(userId, activityType, activityDetails, System.currentTimeMillis()));
+    }
+
+    /**
+     * Sends everything buffered for the signed-in user now. The task completes once this and
+     * any earlier batch still in flight are committed, or after a few seconds while
+     * offline; sign out in its listener, not before. Events of a failed batch stay
+     * buffered either way.
+     */
+    public Task<Void> flush() {
+        String userId = firebaseService.getCurrentUserId();
+        TaskCompletionSource<Void> source = new TaskCompletionSource<>();
+        executor.execute(() -> {
+            flushNow(userId).addOnCompleteListener(executor, task -> {
+                if (task.isSuccessful()) {
+                    source.trySetResult(null);
+                } else {
+                    source.trySetException(task.getException());
+                }
+            });
+            executor.schedule(() -> source.trySetResult(null), FLUSH_TIMEOUT_MS, TimeUnit.MILLISECONDS);
+        });
+        return source.getTask();
+    }
+
+    /**
+     * Drops the user's buffered events and ignores any they log from now on, e.g. before
+     * their account is deleted. The task completes once batches already in flight have,
+     * so none of them lands after the deletion has started.
+     */
+    public Task<Void> discard(String userId) {
+        TaskCompletionSource<Void> source = new TaskCompletionSource<>();
+        executor.execute(() -> {
+            ensureLoaded();
+            discardedUserId = userId;
+            dropDiscarded();
+            Tasks.whenAll(new ArrayList<>(pendingCommits))
+                    .addOnCompleteListener(executor, task -> source.trySetResult(null));
+        });
+        return source.getTask();
+    }
+
+    // --- Executor thread only below ---
+
+    private void add(String userId, String type, String details, long now) {
+        ensureLoaded();
+        if (userId.equals(discardedUserId)) {
+            return;
+        }
+        Event last = null;
+        for (int i = events.size() - 1; i >= 0; i--) {
+            if (events.get(i).userId.equals(userId)) {
+                last = events.get(i);
+                break;
+            }
+        }
+        // An event already on its way can't take more counts
+        if (last != null && !last.sending && last.type.equals(type) && last.details.equals(details)
+                && now - last.lastAt <= COALESCE_WINDOW_MS) {
+            last.count++;
+            last.lastAt = now;
+        } else {
+            Event event = new Event();
+            event.id = UUID.randomUUID().toString();
+            event.userId = userId;
+            event.type = type;
+            event.details = details != null ? details : "";
+            event.firstAt = now;
+            event.lastAt = now;
+            event.count = 1;
+            events.add(event);
+            if (events.size() > MAX_EVENTS) {
+                events.remove(0);
+            }
+        }
+        writeFile();
+
+        if (unsentCount() >= FLUSH_SIZE) {
+            flushNow(userId);
+        } else {
+            scheduleFlush();
+        }
+    }
+
+    private void scheduleFlush() {
+        if (scheduledFlush == null) {
+            scheduledFlush = executor.schedule(this::flushNow, FLUSH_INTERVAL_MS, TimeUnit.MILLISECONDS);
+        }
+    }
+
+    private int unsentCount() {
+        int count = 0;
+        for (Event event : events) {
+            if (!event.sending) count++;
+        }
+        return count;
+    }
+
+    private void flushNow() {
+        flushNow(firebaseService.getCurrentUserId());
+    }
+
+    // Completes when this batch and every earlier one still in flight have completed
+    private Task<Void> flushNow(String userId) {
+        ensureLoaded();
+        if (scheduledFlush != null) {
+            scheduledFlush.cancel(false);
+            scheduledFlush = null;
+        }
+        long cutoff = System.currentTimeMillis() - MAX_AGE_MS;
+        List<Event> sent = new ArrayList<>();
+        List<UserActivityModel> batch = new ArrayList<>();
+        Iterator<Event> it = events.iterator();
+        while (it.hasNext()) {
+            Event event = it.next();
+            if (event.sending) {
+                continue;
+            }
+            if (event.lastAt < cutoff) {
+                it.remove();
+            } else if (event.userId.equals(userId)) {
+                // Firestore only accepts a user's events while they are signed in
+                UserActivityModel activity = new UserActivityModel(event.userId, event.type, event.details);
+                activity.setId(event.id);
+                activity.setTimestamp(new Timestamp(new Date(event.firstAt)));
+                activity.setCount(event.count);
+                batch.add(activity);
+                event.sending = true;
+                sent.add(event);
+            }
+        }
+        if (!batch.isEmpty()) {
+            Task<Void> commit = firebaseService.saveUserActivities(batch);
+            pendingCommits.add(commit);
+            commit.addOnCompleteListener(executor, task -> {
+                pendingCommits.remove(commit);
+                if (task.isSuccessful()) {
+                    Log.d(TAG, "Flushed " + batch.size() + " activities");
+                    events.removeAll(sent);
+                    writeFile();
+                } else {
+                    Log.w(TAG, "Error flushing " + batch.size() + " activities, keeping them", task.getException());
+                    for (Event event : sent) {
+                        event.sending = false;
+                    }
+                    dropDiscarded();
+                    scheduleFlush();
+                }
+            });
+        }
+        return Tasks.whenAll(new ArrayList<>(pendingCommits));
+    }
+
+    private void dropDiscarded() {
+        if (discardedUserId == null) {
+            return;
+        }
+        boolean removed = false;
+        Iterator<Event> it = events.iterator();
+        while (it.hasNext()) {
+            Event event = it.next();
+            if (!event.sending && event.userId.equals(discardedUserId)) {
+                it.remove();
+                removed = true;
+            }
+        }
+        if (removed) {
+            writeFile();
+        }
+    }
+
+    private void ensureLoaded() {
+        if (loaded) {
+            return;
+        }
+        loaded = true;
+        if (!file.exists()) {
+            return;
+        }
+        try (DataInputStream in = new DataInputStream(new BufferedInputStream(new FileInputStream(file)))) {
+            int version = in.readInt();
+            if (version != FORMAT_VERSION) {
+                return;
+            }
+            int count = in.readInt();
+            for (int i = 0; i < count; i++) {
+                Event event = new Event();
+                event.id = in.readUTF();
+                event.userId = in.readUTF();
+                event.type = in.readUTF();
+                event.details = in.readUTF();
+                event.firstAt = in.readLong();
+                event.lastAt = in.readLong();
+                event.count = in.readInt();
+                events.add(event);
+            }
+        } catch (IOException e) {
+            Log.w(TAG, "Dropping unreadable activity log", e);
+            events.clear();
+            file.delete();
+        }
+        if (!events.isEmpty()) {
+            scheduleFlush();
+        }
+    }
+
+    private void writeFile() {
+        ByteArrayOutputStream bytes = new ByteArrayOutputStream();
+        try (DataOutputStream out = new DataOutputStream(bytes)) {
+            out.writeInt(FORMAT_VERSION);
+            out.writeInt(events.size());
+            for (Event event : events) {
+                out.writeUTF(event.id);
+                out.writeUTF(event.userId);
+                out.writeUTF(event.type);
+                out.writeUTF(event.details);
+                out.writeLong(event.firstAt);
+                out.writeLong(event.lastAt);
+                out.writeInt(event.count);
+            }
+        } catch (IOException e) {
+            Log.w(TAG, "Failed to serialize activity log", e);
+            return;
+        }
+        File tmp = new File(file.getPath() + ".tmp");
+        try (FileOutputStream out = new FileOutputStream(tmp)) {
+            out.write(bytes.toByteArray());
+        } catch (IOException e) {
+            Log.w(TAG, "Failed to save activity log", e);
+            tmp.delete();
+            return;
+        }
+        if (!tmp.renameTo(file)) {
+            tmp.delete();
+        }
+    }
+}
@@ -0,0 +1,97 @@
+package com.example.nutritracker.firebase;
+
+import com.google.firebase.Timestamp;
+
+import java.util.HashMap;
+import java.util.Map;
+
+// Per user, per day totals of the nutrition entries; document ID is "<userId>_<date>"
+public class DailySummary {
+    private String userId;
+    private String date; // Format: "yyyy-MM-dd"
+    private double kcal;
+    private double protein;
+    private double fat;
+    private long entryCount;
+    private Map<String, Double> mealKcal = new HashMap<>(); // mealType -> kcal
+    private Timestamp updatedAt;
+
+    // Default constructor required for Firestore
+    public DailySummary() {}
+
+    public DailySummary(String userId, String date) {
+        this.userId = userId;
+        this.date = date;
+        this.updatedAt = Timestamp.now();
+    }
+
+    public static String documentId(String userId, String date) {
+        return userId + "_" + date;
+    }
+
+    public void add(NutritionEntry entry) {
+        kcal += entry.getKcal();
+        protein += entry.getProtein();
+        fat += entry.getFat();
+        entryCount++;
+        if (entry.getMealType() != null) {
+            addMealKcal(entry.getMealType(), entry.getKcal());
+        }
+    }
+
+    public void subtract(NutritionEntry entry) {
+        kcal -= entry.getKcal();
+        protein -= entry.getProtein();
+        fat -= entry.getFat();
+        entryCount--;
+        if (entry.getMealType() != null) {
+            addMealKcal(entry.getMealType(), -entry.getKcal());
+        }
+    }
+
+    public DailySummary copy() {
+        DailySummary copy = new DailySummary(userId, date);
+        copy.kcal = kcal;
+        copy.protein = protein;
+        copy.fat = fat;
+        copy.entryCount = entryCount;
+        copy.mealKcal = new HashMap<>(mealKcal);
+        copy.updatedAt = updatedAt;
+        return copy;
+    }
+
+    public void addMealKcal(String mealType, double value) {
+        Double current = mealKcal.get(mealType);
+        mealKcal.put(mealType, (current != null ? current : 0) + value);
+    }
+
+    public double getKcalForMeal(String mealType) {
+        Double value = mealKcal.get(mealType);
+        return value != null ? value : 0;
+    }
+
+    // Getters and Setters
+    public String getUserId() { return userId; }
+    public void setUserId(String userId) { this.userId = userId; }
+
+    public String getDate() { return date; }
+    public void setDate(String date) { this.date = date; }
+
+    public double getKcal() { return kcal; }
+    public void setKcal(double kcal) { this.kcal = kcal; }
+
+    public double getProtein() { return protein; }
+    public void setProtein(double protein) { this.protein = protein; }
+
+    public double getFat() { return fat; }
+    public void setFat(double fat) { this.fat = fat; }
+
+    public long getEntryCount() { return entryCount; }
+    public void setEntryCount(long entryCount) { this.entryCount = entryCount; }
+
+    public Map<String, Double> getMealKcal() { return mealKcal; }
+    public void setMealKcal(Map<String, Double> mealKcal) { this.mealKcal = mealKcal; }
+
+    public Timestamp getUpdatedAt() { return updatedAt; }
+    public void setUpdatedAt(Timestamp updatedAt) { this.updatedAt = updatedAt; }
+}
@@ -0,0 +1,33 @@
+package com.example.nutritracker.firebase;
+
+import com.google.firebase.firestore.DocumentSnapshot;
+
+import java.util.HashMap;
+import java.util.Map;
+
+// Moves entries saved with a 2025 date back to 2024; see FirebaseService.fixDateIssuesInEntries
+public class EntryYearMigration implements Migration {
+
+    @Override
+    public String getName() {
+        return "entry-year-2025-to-2024";
+    }
+
+    @Override
+    public String getCollection() {
+        return FirebaseService.COLLECTION_NUTRITION_ENTRIES;
+    }
+
+    @Override
+    public Map<String, Object> migrate(DocumentSnapshot document) {
+        String date = document.getString("date");
+        if (date == null || !date.startsWith("2025")) {
+            return null;
+        }
+        Map<String, Object> updates = new HashMap<>();
+        updates.put("date", date.replace("2025", "2024"));
+        // Bumped like any other edit, so offline copies of the entry don't win the merge
+        updates.put("updatedAt", System.currentTimeMillis());
+        return updates;
+    }
+}
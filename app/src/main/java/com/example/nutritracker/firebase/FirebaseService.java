@@ -1,28 +1,60 @@
  package com.example.nutritracker.firebase;
 
+import android.content.Context;
 import android.util.Log;
 
+import com.google.android.gms.tasks.Task;
+import com.google.android.gms.tasks.Tasks;
+import com.google.firebase.FirebaseApp;
 import com.google.firebase.auth.FirebaseAuth;
 import com.google.firebase.auth.FirebaseUser;
+import com.google.firebase.firestore.CollectionReference;
+import com.google.firebase.firestore.DocumentChange;
+import com.google.firebase.firestore.DocumentReference;
+import com.google.firebase.firestore.DocumentSnapshot;
+import com.google.firebase.firestore.FieldPath;
+import com.google.firebase.firestore.FieldValue;
 import com.google.firebase.firestore.FirebaseFirestore;
+import com.google.firebase.firestore.ListenerRegistration;
 import com.google.firebase.firestore.Query;
 import com.google.firebase.firestore.QueryDocumentSnapshot;
+import com.google.firebase.firestore.QuerySnapshot;
+import com.google.firebase.firestore.SetOptions;
+import com.google.firebase.firestore.Source;
+import com.google.firebase.firestore.WriteBatch;
 
+import java.text.SimpleDateFormat;
 import java.util.ArrayList;
+import java.util.Calendar;
+import java.util.HashMap;
 import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.concurrent.atomic.AtomicLong;
 
 public class FirebaseService {
     private static final String TAG = "FirebaseService";
-    private static final String COLLECTION_USER_ACTIVITIES = "user_activities";
-    private static final String COLLECTION_NUTRITION_ENTRIES = "nutrition_entries";
-    private static final String COLLECTION_USER_PROFILES = "user_profiles";
+    public static final String COLLECTION_USER_ACTIVITIES = "user_activities";
+    public static final String COLLECTION_NUTRITION_ENTRIES = "nutrition_entries";
+    public static final String COLLECTION_USER_PROFILES = "user_profiles";
+    public static final String COLLECTION_DAILY_SUMMARIES = "daily_summaries";
+    private static final int MAX_BATCH_WRITES = 500;
+    // Everything tied to a user by its "userId" field, removed when the account is deleted
+    private static final String[] USER_DATA_COLLECTIONS = {
+        COLLECTION_NUTRITION_ENTRIES, COLLECTION_DAILY_SUMMARIES, COLLECTION_USER_ACTIVITIES, COLLECTION_USER_PROFILES
+    };
     
     private FirebaseAuth mAuth;
     private FirebaseFirestore db;
     
     public FirebaseService() {
-        mAuth = FirebaseAuth.getInstance();
-        db = FirebaseFirestore.getInstance();
+        this(FirebaseAuth.getInstance(), FirebaseFirestore.getInstance());
+    }
+    
+    // For a Firestore instance other than the default one, e.g. pointed at the emulator
+    public FirebaseService(FirebaseAuth auth, FirebaseFirestore firestore) {
+        mAuth = auth;
+        db = firestore;
     }
     
     public FirebaseAuth getAuth() {
@@ -38,6 +70,10 @@ public class FirebaseService {
         return user != null ? user.getUid() : null;
     }
     
+    private static <T> Task<T> noUser() {
+        return Tasks.forException(new Exception("No user logged in"));
+    }
+    
     public void logUserActivity(String activityType, String activityDetails) {
         String userId = getCurrentUserId();
         if (userId == null) {
@@ -45,16 +81,20 @@ public class FirebaseService {
             return;
         }
         
-        UserActivityModel activity = new UserActivityModel(userId, activityType, activityDetails);
-        
-        db.collection(COLLECTION_USER_ACTIVITIES)
-                .add(activity)
-                .addOnSuccessListener(documentReference -> {
-                    Log.d(TAG, "Activity logged with ID: " + documentReference.getId());
-                })
-                .addOnFailureListener(e -> {
-                    Log.w(TAG, "Error logging activity", e);
-                });
+        // Buffered and written in batches rather than one add() per event
+        ActivityLogBuffer.getInstance(FirebaseApp.getInstance().getApplicationContext())
+                .log(userId, activityType, activityDetails);
+    }
+    
+    // Activities that already have an ID overwrite that document, so sending one twice is harmless
+    public Task<Void> saveUserActivities(List<UserActivityModel> activities) {
+        WriteBatch batch = db.batch();
+        CollectionReference collection = db.collection(COLLECTION_USER_ACTIVITIES);
+        for (UserActivityModel activity : activities) {
+            String id = activity.getId();
+            batch.set(id != null ? collection.document(id) : collection.document(), activity);
+        }
+        return batch.commit();
     }
     
     public interface UserActivitiesCallback {
@@ -63,29 +103,28 @@ public class FirebaseService {
     }
     
     public void getUserActivities(UserActivitiesCallback callback) {
+        fetchUserActivities()
+                .addOnSuccessListener(callback::onSuccess)
+                .addOnFailureListener(callback::onFailure);
+    }
+    
+    public Task<List<UserActivityModel>> fetchUserActivities() {
         String userId = getCurrentUserId();
         if (userId == null) {
-            callback.onFailure(new Exception("No user logged in"));
-            return;
+            return noUser();
         }
         
-        db.collection(COLLECTION_USER_ACTIVITIES)
+        return db.collection(COLLECTION_USER_ACTIVITIES)
                 .whereEqualTo("userId", userId)
                 .orderBy("timestamp", Query.Direction.DESCENDING)
                 .limit(50) // Limit to last 50 activities
                 .get()
-                .addOnCompleteListener(task -> {
-                    if (task.isSuccessful()) {
-                        List<UserActivityModel> activities = new ArrayList<>();
-                        for (QueryDocumentSnapshot document : task.getResult()) {
-                            UserActivityModel activity = document.toObject(UserActivityModel.class);
-                            activity.setId(document.getId());
-                            activities.add(activity);
-                        }
-                        callback.onSuccess(activities);
-                    } else {
-                        callback.onFailure(task.getException());
+                .continueWith(task -> {
+                    List<UserActivityModel> activities = new ArrayList<>();
+                    for (QueryDocumentSnapshot document : task.getResult()) {
+                        activities.add(FirestoreMappers.toUserActivity(document));
                     }
+                    return activities;
                 });
     }
     
@@ -100,14 +139,13 @@ public class FirebaseService {
                 .whereEqualTo("userId", userId)
                 .whereEqualTo("activityType", activityType)
                 .orderBy("timestamp", Query.Direction.DESCENDING)
+                .limit(50) // Same cap as getUserActivities; use getUserActivitiesPage for more
                 .get()
                 .addOnCompleteListener(task -> {
                     if (task.isSuccessful()) {
                         List<UserActivityModel> activities = new ArrayList<>();
                         for (QueryDocumentSnapshot document : task.getResult()) {
-                            UserActivityModel activity = document.toObject(UserActivityModel.class);
-                            activity.setId(document.getId());
-                            activities.add(activity);
+                            activities.add(FirestoreMappers.toUserActivity(document));
                         }
                         callback.onSuccess(activities);
                     } else {
@@ -116,6 +154,47 @@ public class FirebaseService {
                 });
     }
     
+    public interface UserActivitiesPageCallback {
+        // nextCursor is null once there are no more pages
+        void onSuccess(List<UserActivityModel> activities, DocumentSnapshot nextCursor);
+        void onFailure(Exception e);
+    }
+    
+    // Newest first, one page per call; pass the previous page's cursor (or null) to continue.
+    // activityType may be null for all types.
+    public void getUserActivitiesPage(String activityType, DocumentSnapshot cursor, int pageSize,
+                                      UserActivitiesPageCallback callback) {
+        String userId = getCurrentUserId();
+        if (userId == null) {
+            callback.onFailure(new Exception("No user logged in"));
+            return;
+        }
+        
+        Query query = db.collection(COLLECTION_USER_ACTIVITIES).whereEqualTo("userId", userId);
+        if (activityType != null) {
+            query = query.whereEqualTo("activityType", activityType);
+        }
+        query = query.orderBy("timestamp", Query.Direction.DESCENDING).limit(pageSize);
+        if (cursor != null) {
+            query = query.startAfter(cursor);
+        }
+        
+        query.get().addOnCompleteListener(task -> {
+            if (task.isSuccessful()) {
+                List<DocumentSnapshot> documents = task.getResult().getDocuments();
+                List<UserActivityModel> activities = new ArrayList<>(documents.size());
+                for (DocumentSnapshot document : documents) {
+                    activities.add(FirestoreMappers.toUserActivity(document));
+                }
+                DocumentSnapshot next = documents.size() < pageSize ? null : documents.get(documents.size() - 1);
+                callback.onSuccess(activities, next);
+            } else {
+                Log.e(TAG, "❌ Error loading activities page", task.getException());
+                callback.onFailure(task.getException());
+            }
+        });
+    }
+    
     // Nutrition Entry Methods
     public interface SaveCallback {
         void onSuccess();
@@ -135,10 +214,14 @@ public class FirebaseService {
         
         Log.d(TAG, "Saving nutrition entry: " + foodName + " for " + date + " (" + mealType + ") - " + kcal + " kcal");
         
-        db.collection(COLLECTION_NUTRITION_ENTRIES)
-                .add(entry)
-                .addOnSuccessListener(documentReference -> {
-                    Log.d(TAG, "✅ Nutrition entry saved successfully with ID: " + documentReference.getId());
+        // Entry and daily summary are written in one batch, so the totals never drift
+        DocumentReference ref = db.collection(COLLECTION_NUTRITION_ENTRIES).document();
+        WriteBatch batch = db.batch();
+        batch.set(ref, entry);
+        batch.set(summaryRef(userId, date), summaryDelta(entry, 1), SetOptions.merge());
+        batch.commit()
+                .addOnSuccessListener(aVoid -> {
+                    Log.d(TAG, "✅ Nutrition entry saved successfully with ID: " + ref.getId());
                     if (callback != null) callback.onSuccess();
                 })
                 .addOnFailureListener(e -> {
@@ -182,10 +265,9 @@ public class FirebaseService {
                             // Log raw document data
                             Log.d(TAG, "📄 RAW DOC: " + document.getData());
                             
-                            NutritionEntry entry = document.toObject(NutritionEntry.class);
-                            entry.setId(document.getId());
+                            NutritionEntry entry = FirestoreMappers.toNutritionEntry(document);
                             entries.add(entry);
-                            
+
                             Log.d(TAG, "✅ PARSED: " + entry.getFoodName() + " | " + entry.getKcal() + " kcal | " + entry.getMealType() + " | date=" + entry.getDate());
                         }
                         
@@ -198,10 +280,77 @@ public class FirebaseService {
                 });
     }
     
-    public void deleteNutritionEntry(String entryId) {
-        db.collection(COLLECTION_NUTRITION_ENTRIES)
-                .document(entryId)
-                .delete()
+    public interface NutritionPageConsumer {
+        // Called once per page as it arrives; return false to stop before the next page
+        boolean onPage(List<NutritionEntry> entries, boolean lastPage);
+        void onFailure(Exception e);
+    }
+    
+    /**
+     * Streams the entries dated startDate..endDate (inclusive, "yyyy-MM-dd") in pages of
+     * pageSize, ordered by date on the server. Each page is requested with a startAfter
+     * cursor once the consumer has taken the previous one. Backed by the (userId, date)
+     * composite indexes in firestore.indexes.json.
+     */
+    public void streamNutritionEntriesInRange(String startDate, String endDate, int pageSize,
+                                              boolean newestFirst, NutritionPageConsumer consumer) {
+        String userId = getCurrentUserId();
+        if (userId == null) {
+            consumer.onFailure(new Exception("No user logged in"));
+            return;
+        }
+        
+        Query query = db.collection(COLLECTION_NUTRITION_ENTRIES)
+                .whereEqualTo("userId", userId)
+                .whereGreaterThanOrEqualTo("date", startDate)
+                .whereLessThanOrEqualTo("date", endDate)
+                .orderBy("date", newestFirst ? Query.Direction.DESCENDING : Query.Direction.ASCENDING)
+                .limit(pageSize);
+        fetchNutritionPage(query, null, pageSize, consumer);
+    }
+    
+    // History of the last `days` days including today, e.g. 7, 30 or 365, newest first
+    public void streamRecentNutritionEntries(int days, int pageSize, NutritionPageConsumer consumer) {
+        SimpleDateFormat format = new SimpleDateFormat("yyyy-MM-dd", Locale.US);
+        Calendar calendar = Calendar.getInstance();
+        String endDate = format.format(calendar.getTime());
+        calendar.add(Calendar.DAY_OF_YEAR, -(days - 1));
+        String startDate = format.format(calendar.getTime());
+        streamNutritionEntriesInRange(startDate, endDate, pageSize, true, consumer);
+    }
+    
+    private void fetchNutritionPage(Query query, DocumentSnapshot cursor, int pageSize, NutritionPageConsumer consumer) {
+        Query page = cursor != null ? query.startAfter(cursor) : query;
+        page.get().addOnCompleteListener(task -> {
+            if (!task.isSuccessful()) {
+                Log.e(TAG, "❌ Error loading nutrition entries page", task.getException());
+                consumer.onFailure(task.getException());
+                return;
+            }
+            List<DocumentSnapshot> documents = task.getResult().getDocuments();
+            List<NutritionEntry> entries = new ArrayList<>(documents.size());
+            for (DocumentSnapshot document : documents) {
+                entries.add(FirestoreMappers.toNutritionEntry(document));
+            }
+            boolean lastPage = documents.size() < pageSize;
+            if (consumer.onPage(entries, lastPage) && !lastPage) {
+                fetchNutritionPage(query, documents.get(documents.size() - 1), pageSize, consumer);
+            }
+        });
+    }
+    
+    public Task<Void> deleteNutritionEntry(String entryId) {
+        DocumentReference ref = db.collection(COLLECTION_NUTRITION_ENTRIES).document(entryId);
+        // Reads the entry first so its summary can be decremented; deleting twice is a no-op
+        return db.<Void>runTransaction(transaction -> {
+                    DocumentSnapshot existing = transaction.get(ref);
+                    NutritionEntry old = FirestoreMappers.toNutritionEntry(existing);
+                    if (old != null) {
+                        transaction.delete(ref);
+                        transaction.set(summaryRef(old.getUserId(), old.getDate()), summaryDelta(old, -1), SetOptions.merge());
+                    }
+                    return null;
+                })
                 .addOnSuccessListener(aVoid -> {
                     Log.d(TAG, "Nutrition entry deleted successfully");
                 })
@@ -210,6 +359,215 @@ public class FirebaseService {
                 });
     }
     
+    public interface NutritionEntryChangesListener {
+        // upserted: added or modified since the last call; removed: no longer in the day
+        void onChanges(List<NutritionEntry> upserted, List<NutritionEntry> removed);
+        void onFailure(Exception e);
+    }
+    
+    // Streams changes to the day's entries; the first call carries every entry as added.
+    // Only changed documents are delivered, so callers can update totals per change.
+    public ListenerRegistration listenToNutritionEntriesForDate(String date, NutritionEntryChangesListener listener) {
+        String userId = getCurrentUserId();
+        if (userId == null) {
+            listener.onFailure(new Exception("No user logged in"));
+            return null;
+        }
+        
+        return db.collection(COLLECTION_NUTRITION_ENTRIES)
+                .whereEqualTo("userId", userId)
+                .whereEqualTo("date", date)
+                .addSnapshotListener((snapshot, e) -> {
+                    if (e != null) {
+                        Log.w(TAG, "❌ Listener failed for date: " + date, e);
+                        listener.onFailure(e);
+                        return;
+                    }
+                    List<NutritionEntry> upserted = new ArrayList<>();
+                    List<NutritionEntry> removed = new ArrayList<>();
+                    for (DocumentChange change : snapshot.getDocumentChanges()) {
+                        NutritionEntry entry = FirestoreMappers.toNutritionEntry(change.getDocument());
+                        if (change.getType() == DocumentChange.Type.REMOVED) {
+                            removed.add(entry);
+                        } else {
+                            upserted.add(entry);
+                        }
+                    }
+                    if (!upserted.isEmpty() || !removed.isEmpty()) {
+                        Log.d(TAG, "📡 " + date + ": " + upserted.size() + " upserted, " + removed.size() + " removed"
+                                + (snapshot.getMetadata().isFromCache() ? " (cache)" : ""));
+                        listener.onChanges(upserted, removed);
+                    }
+                });
+    }
+    
+    // Task based variants for background sync. Writes use the entry's own ID, so
+    // retrying one that already reached the server doesn't create a duplicate.
+    public Task<Void> setNutritionEntry(NutritionEntry entry) {
+        DocumentReference ref = db.collection(COLLECTION_NUTRITION_ENTRIES).document(entry.getId());
+        // Swaps the previous version's totals for the new ones, so a retry adds nothing twice
+        return db.<Void>runTransaction(transaction -> {
+            DocumentSnapshot existing = transaction.get(ref);
+            NutritionEntry old = FirestoreMappers.toNutritionEntry(existing);
+            transaction.set(ref, entry);
+            if (old != null) {
+                transaction.set(summaryRef(old.getUserId(), old.getDate()), summaryDelta(old, -1), SetOptions.merge());
+            }
+            transaction.set(summaryRef(entry.getUserId(), entry.getDate()), summaryDelta(entry, 1), SetOptions.merge());
+            return null;
+        });
+    }
+    
+    public Task<List<NutritionEntry>> fetchNutritionEntriesForDate(String date) {
+        String userId = getCurrentUserId();
+        if (userId == null) {
+            return noUser();
+        }
+        
+        return db.collection(COLLECTION_NUTRITION_ENTRIES)
+                .whereEqualTo("userId", userId)
+                .whereEqualTo("date", date)
+                .get(Source.SERVER)
+                .continueWith(task -> {
+                    List<NutritionEntry> entries = new ArrayList<>();
+                    for (QueryDocumentSnapshot document : task.getResult()) {
+                        entries.add(FirestoreMappers.toNutritionEntry(document));
+                    }
+                    return entries;
+                });
+    }
+    
+    // Daily Summary Methods
+    public interface DailySummaryCallback {
+        void onSuccess(DailySummary summary);
+        void onFailure(Exception e);
+    }
+    
+    public interface DailySummariesCallback {
+        void onSuccess(List<DailySummary> summaries);
+        void onFailure(Exception e);
+    }
+    
+    // One document per day with a date in [startDate, endDate]; days without entries are absent
+    public void getDailySummaries(String startDate, String endDate, DailySummariesCallback callback) {
+        fetchDailySummaries(startDate, endDate)
+                .addOnSuccessListener(callback::onSuccess)
+                .addOnFailureListener(e -> {
+                    Log.e(TAG, "❌ Error loading daily summaries", e);
+                    callback.onFailure(e);
+                });
+    }
+    
+    public Task<List<DailySummary>> fetchDailySummaries(String startDate, String endDate) {
+        String userId = getCurrentUserId();
+        if (userId == null) {
+            return noUser();
+        }
+        
+        // Filtered on userId so rules scoped to the owner accept it; uses the (userId, date) index
+        return db.collection(COLLECTION_DAILY_SUMMARIES)
+                .whereEqualTo("userId", userId)
+                .whereGreaterThanOrEqualTo("date", startDate)
+                .whereLessThanOrEqualTo("date", endDate)
+                .orderBy("date")
+                .get()
+                .continueWith(task -> {
+                    List<DailySummary> summaries = new ArrayList<>();
+                    for (QueryDocumentSnapshot document : task.getResult()) {
+                        summaries.add(FirestoreMappers.toDailySummary(document));
+                    }
+                    return summaries;
+                });
+    }
+    
+    /**
+     * Rebuilds the current user's daily summaries from their entries: every day with entries
+     * is overwritten with fresh totals, and summaries of days that no longer have any, such
+     * as the ones entries were migrated away from, are deleted. Returns the number of days
+     * written.
+     */
+    public Task<Integer> backfillDailySummaries() {
+        String userId = getCurrentUserId();
+        if (userId == null) {
+            return noUser();
+        }
+        
+        Task<QuerySnapshot> entriesTask = db.collection(COLLECTION_NUTRITION_ENTRIES)
+                .whereEqualTo("userId", userId)
+                .get(Source.SERVER);
+        Task<QuerySnapshot> summariesTask = db.collection(COLLECTION_DAILY_SUMMARIES)
+                .whereEqualTo("userId", userId)
+                .get(Source.SERVER);
+        return Tasks.whenAllSuccess(entriesTask, summariesTask).onSuccessTask(results -> {
+            QuerySnapshot entries = entriesTask.getResult();
+            Map<String, DailySummary> byDate = new HashMap<>();
+            for (QueryDocumentSnapshot document : entries) {
+                NutritionEntry entry = FirestoreMappers.toNutritionEntry(document);
+                if (entry.getDate() == null) continue;
+                DailySummary summary = byDate.get(entry.getDate());
+                if (summary == null) {
+                    summary = new DailySummary(userId, entry.getDate());
+                    byDate.put(entry.getDate(), summary);
+                }
+                summary.add(entry);
+            }
+            List<DocumentReference> stale = new ArrayList<>();
+            for (QueryDocumentSnapshot document : summariesTask.getResult()) {
+                if (!byDate.containsKey(document.getString("date"))) {
+                    stale.add(document.getReference());
+                }
+            }
+            
+            List<Task<Void>> commits = new ArrayList<>();
+            WriteBatch batch = db.batch();
+            int pending = 0;
+            for (DailySummary summary : byDate.values()) {
+                batch.set(summaryRef(userId, summary.getDate()), summary);
+                if (++pending == MAX_BATCH_WRITES) {
+                    commits.add(batch.commit());
+                    batch = db.batch();
+                    pending = 0;
+                }
+            }
+            for (DocumentReference ref : stale) {
+                batch.delete(ref);
+                if (++pending == MAX_BATCH_WRITES) {
+                    commits.add(batch.commit());
+                    batch = db.batch();
+                    pending = 0;
+                }
+            }
+            if (pending > 0) {
+                commits.add(batch.commit());
+            }
+            Log.d(TAG, "🧮 Backfilling " + byDate.size() + " daily summaries from " + entries.size()
+                    + " entries, deleting " + stale.size() + " stale ones");
+            return Tasks.whenAll(commits).onSuccessTask(aVoid -> Tasks.forResult(byDate.size()));
+        });
+    }
+    
+    private DocumentReference summaryRef(String userId, String date) {
+        return db.collection(COLLECTION_DAILY_SUMMARIES).document(DailySummary.documentId(userId, date));
+    }
+    
+    // Fields to merge into a daily summary to add (sign 1) or remove (sign -1) an entry
+    private static Map<String, Object> summaryDelta(NutritionEntry entry, int sign) {
+        Map<String, Object> delta = new HashMap<>();
+        delta.put("userId", entry.getUserId());
+        delta.put("date", entry.getDate());
+        delta.put("kcal", FieldValue.increment(sign * entry.getKcal()));
+        delta.put("protein", FieldValue.increment(sign * entry.getProtein()));
+        delta.put("fat", FieldValue.increment(sign * entry.getFat()));
+        delta.put("entryCount", FieldValue.increment(sign));
+        if (entry.getMealType() != null) {
+            Map<String, Object> mealKcal = new HashMap<>();
+            mealKcal.put(entry.getMealType(), FieldValue.increment(sign * entry.getKcal()));
+            delta.put("mealKcal", mealKcal);
+        }
+        delta.put("updatedAt", FieldValue.serverTimestamp());
+        return delta;
+    }
+    
     // Debug method to check all nutrition entries for current user
     public void debugAllNutritionEntries() {
         String userId = getCurrentUserId();
@@ -228,7 +586,7 @@ public class FirebaseService {
                         Log.d(TAG, "📊 DEBUG: Total entries in database: " + task.getResult().size());
                         
                         for (QueryDocumentSnapshot document : task.getResult()) {
-                            NutritionEntry entry = document.toObject(NutritionEntry.class);
+                            NutritionEntry entry = FirestoreMappers.toNutritionEntry(document);
                             Log.d(TAG, "📝 DEBUG Entry: Date=" + entry.getDate() + 
                                 ", Food=" + entry.getFoodName() + 
                                 ", Meal=" + entry.getMealType() + 
@@ -245,26 +603,33 @@ public class FirebaseService {
         void onSuccess();
         void onFailure(String error);
         void onProgress(String message);
+
+        // Stops everything on the device that could still write the user's documents; the
+        // first batch is only deleted once the task has completed
+        default Task<Void> onBeforeDelete(String userId) {
+            return Tasks.forResult(null);
+        }
     }
     
     // Re-authenticate and delete account
     public void reauthenticateAndDeleteAccount(String password, AccountDeletionCallback callback) {
+        reauthenticateAndDeleteAccount(password, null, callback);
+    }
+    
+    public void reauthenticateAndDeleteAccount(String password, AccountDeletionCheckpoint checkpoint,
+                                               AccountDeletionCallback callback) {
         FirebaseUser user = getCurrentUser();
         if (user == null || user.getEmail() == null) {
             callback.onFailure("No user logged in");
             return;
         }
         
-        // Re-authenticate user
-        com.google.firebase.auth.AuthCredential credential = 
-            com.google.firebase.auth.EmailAuthProvider.getCredential(user.getEmail(), password);
-        
-        user.reauthenticate(credential)
+        reauthenticate(password)
                 .addOnCompleteListener(task -> {
                     if (task.isSuccessful()) {
                         Log.d(TAG, "✅ Re-authentication successful");
                         // Now delete account with all data
-                        deleteAccountWithAllData(callback);
+                        deleteAccountWithAllData(checkpoint, callback);
                     } else {
                         String error = task.getException() != null ? 
                             task.getException().getMessage() : "Re-authentication failed";
@@ -274,8 +639,30 @@ public class FirebaseService {
                 });
     }
     
+    public Task<Void> reauthenticate(String password) {
+        FirebaseUser user = getCurrentUser();
+        if (user == null || user.getEmail() == null) {
+            return noUser();
+        }
+        com.google.firebase.auth.AuthCredential credential = 
+            com.google.firebase.auth.EmailAuthProvider.getCredential(user.getEmail(), password);
+        return user.reauthenticate(credential);
+    }
+    
     // Delete account with all user data
     public void deleteAccountWithAllData(AccountDeletionCallback callback) {
+        deleteAccountWithAllData(null, callback);
+    }
+    
+    /**
+     * Deletes every document the user owns, then the auth account. The collections are cleared
+     * in parallel, in batches of up to 500 deletes, and the account is only deleted once every
+     * batch has been committed. With a checkpoint, finished collections are skipped when a
+     * deletion that was interrupted is started again. Nothing is deleted before the callback's
+     * onBeforeDelete task has completed, so queued uploads can't recreate a document in a
+     * collection that is already done.
+     */
+    public void deleteAccountWithAllData(AccountDeletionCheckpoint checkpoint, AccountDeletionCallback callback) {
         FirebaseUser user = getCurrentUser();
         if (user == null) {
             callback.onFailure("No user logged in");
@@ -285,76 +672,100 @@ public class FirebaseService {
         String userId = user.getUid();
         Log.d(TAG, "🗑️ Starting account deletion for user: " + userId);
         
-        callback.onProgress("Deleting nutrition entries...");
+        if (checkpoint != null) checkpoint.begin(userId);
+        AtomicLong deleted = new AtomicLong(checkpoint != null ? checkpoint.getDeletedCount() : 0);
+        callback.onProgress("Deleting your data...");
         
-        // Step 1: Delete all nutrition entries
-        db.collection(COLLECTION_NUTRITION_ENTRIES)
-                .whereEqualTo("userId", userId)
-                .get()
-                .addOnCompleteListener(task1 -> {
-                    if (task1.isSuccessful()) {
-                        for (QueryDocumentSnapshot document : task1.getResult()) {
-                            document.getReference().delete();
+        callback.onBeforeDelete(userId).addOnCompleteListener(ready -> {
+            if (!ready.isSuccessful()) {
+                Log.e(TAG, "❌ Failed to stop local writes before deletion", ready.getException());
+                callback.onFailure("Failed to prepare account deletion, please try again");
+                return;
+            }
+            deleteAllUserData(user, userId, checkpoint, deleted, callback);
+        });
+    }
+    
+    private void deleteAllUserData(FirebaseUser user, String userId, AccountDeletionCheckpoint checkpoint,
+                                   AtomicLong deleted, AccountDeletionCallback callback) {
+        List<Task<Void>> stages = new ArrayList<>();
+        for (String collection : USER_DATA_COLLECTIONS) {
+            if (checkpoint != null && checkpoint.isCollectionDone(collection)) {
+                Log.d(TAG, "⏭️ Already deleted " + collection);
+                continue;
+            }
+            stages.add(deleteUserDocuments(collection, userId, null, deleted, checkpoint, callback)
+                    .addOnSuccessListener(aVoid -> {
+                        Log.d(TAG, "✅ Deleted all " + collection);
+                        if (checkpoint != null) checkpoint.markCollectionDone(collection);
+                    }));
+        }
+        
+        Tasks.whenAll(stages).addOnCompleteListener(task -> {
+            if (!task.isSuccessful()) {
+                Log.e(TAG, "❌ Failed to delete user data", task.getException());
+                callback.onFailure("Failed to delete all data, please try again to continue");
+                return;
+            }
+            Log.d(TAG, "✅ Deleted " + deleted.get() + " documents");
+            
+            callback.onProgress("Deleting Firebase account...");
+            
+            // Only now that nothing is left behind
+            user.delete()
+                    .addOnCompleteListener(task4 -> {
+                        if (task4.isSuccessful()) {
+                            Log.d(TAG, "✅ Account deleted successfully");
+                            if (checkpoint != null) checkpoint.clear();
+                            callback.onSuccess();
+                        } else {
+                            String error = task4.getException() != null ? 
+                                task4.getException().getMessage() : "Failed to delete account";
+                            Log.e(TAG, "❌ Failed to delete account", task4.getException());
+                            callback.onFailure(error);
                         }
-                        Log.d(TAG, "✅ Deleted " + task1.getResult().size() + " nutrition entries");
-                        
-                        callback.onProgress("Deleting user activities...");
-                        
-                        // Step 2: Delete all user activities
-                        db.collection(COLLECTION_USER_ACTIVITIES)
-                                .whereEqualTo("userId", userId)
-                                .get()
-                                .addOnCompleteListener(task2 -> {
-                                    if (task2.isSuccessful()) {
-                                        for (QueryDocumentSnapshot document : task2.getResult()) {
-                                            document.getReference().delete();
-                                        }
-                                        Log.d(TAG, "✅ Deleted " + task2.getResult().size() + " user activities");
-                                        
-                                        callback.onProgress("Deleting user profile...");
-                                        
-                                        // Step 3: Delete user profile
-                                        db.collection(COLLECTION_USER_PROFILES)
-                                                .whereEqualTo("userId", userId)
-                                                .get()
-                                                .addOnCompleteListener(task3 -> {
-                                                    if (task3.isSuccessful()) {
-                                                        for (QueryDocumentSnapshot document : task3.getResult()) {
-                                                            document.getReference().delete();
-                                                        }
-                                                        Log.d(TAG, "✅ Deleted user profile");
-                                                        
-                                                        callback.onProgress("Deleting Firebase account...");
-                                                        
-                                                        // Step 4: Delete Firebase Auth account
-                                                        user.delete()
-                                                                .addOnCompleteListener(task4 -> {
-                                                                    if (task4.isSuccessful()) {
-                                                                        Log.d(TAG, "✅ Account deleted successfully");
-                                                                        callback.onSuccess();
-                                                                    } else {
-                                                                        String error = task4.getException() != null ? 
-                                                                            task4.getException().getMessage() : "Failed to delete account";
-                                                                        Log.e(TAG, "❌ Failed to delete account", task4.getException());
-                                                                        callback.onFailure(error);
-                                                                    }
-                                                                });
-                                                    } else {
-                                                        callback.onFailure("Failed to delete user profile");
-                                                    }
-                                                });
-                                    } else {
-                                        callback.onFailure("Failed to delete user activities");
-                                    }
-                                });
-                    } else {
-                        callback.onFailure("Failed to delete nutrition entries");
-                    }
-                });
+                    });
+        });
+    }
+    
+    // Deletes the user's documents in one collection page by page. The next page is read
+    // while the previous batch commits; the task completes once every batch has.
+    private Task<Void> deleteUserDocuments(String collection, String userId, DocumentSnapshot after,
+                                           AtomicLong deleted, AccountDeletionCheckpoint checkpoint,
+                                           AccountDeletionCallback callback) {
+        Query query = db.collection(collection)
+                .whereEqualTo("userId", userId)
+                .orderBy(FieldPath.documentId())
+                .limit(MAX_BATCH_WRITES);
+        if (after != null) {
+            query = query.startAfter(after);
+        }
+        
+        return query.get(Source.SERVER).onSuccessTask(snapshot -> {
+            if (snapshot.isEmpty()) {
+                return Tasks.forResult(null);
+            }
+            WriteBatch batch = db.batch();
+            for (QueryDocumentSnapshot document : snapshot) {
+                batch.delete(document.getReference());
+            }
+            int count = snapshot.size();
+            Task<Void> commit = batch.commit().addOnSuccessListener(aVoid -> {
+                long total = deleted.addAndGet(count);
+                if (checkpoint != null) checkpoint.setDeletedCount(total);
+                callback.onProgress("Deleting your data... " + total + " items removed");
+            });
+            if (count < MAX_BATCH_WRITES) {
+                return commit;
+            }
+            DocumentSnapshot last = snapshot.getDocuments().get(count - 1);
+            return Tasks.whenAll(commit, deleteUserDocuments(collection, userId, last, deleted, checkpoint, callback));
+        });
     }
     
-    // Method to fix date issues in existing entries (change 2025 to 2024)
-    public void fixDateIssuesInEntries(SaveCallback callback) {
+    // Method to fix date issues in existing entries (change 2025 to 2024); runs once per user,
+    // resuming where it stopped if interrupted
+    public void fixDateIssuesInEntries(Context context, SaveCallback callback) {
         String userId = getCurrentUserId();
         if (userId == null) {
             Log.w(TAG, "Cannot fix entries: No user logged in");
@@ -364,43 +775,38 @@ public class FirebaseService {
         
         Log.d(TAG, "🔧 Fixing date issues in nutrition entries for user: " + userId);
         
-        db.collection(COLLECTION_NUTRITION_ENTRIES)
-                .whereEqualTo("userId", userId)
-                .get()
-                .addOnCompleteListener(task -> {
+        new MigrationRunner(context, db).run(new EntryYearMigration(), userId, false, new MigrationRunner.MigrationCallback() {
+            @Override
+            public void onProgress(MigrationRunner.Progress progress) {
+                Log.d(TAG, "🔧 " + progress);
+            }
+            
+            @Override
+            public void onSuccess(MigrationRunner.Progress progress) {
+                Log.d(TAG, "🔧 Fixed " + progress.getChanged() + " entries");
+                if (progress.getChanged() == 0) {
+                    if (callback != null) callback.onSuccess();
+                    return;
+                }
+                // Moved entries change which day they count towards
+                backfillDailySummaries().addOnCompleteListener(task -> {
+                    if (callback == null) return;
                     if (task.isSuccessful()) {
-                        int fixedCount = 0;
-                        for (QueryDocumentSnapshot document : task.getResult()) {
-                            NutritionEntry entry = document.toObject(NutritionEntry.class);
-                            String oldDate = entry.getDate();
-                            
-                            // Check if date starts with 2025 and fix it to 2024
-                            if (oldDate != null && oldDate.startsWith("2025")) {
-                                String newDate = oldDate.replace("2025", "2024");
-                                
-                                // Update the document
-                                document.getReference().update("date", newDate)
-                                        .addOnSuccessListener(aVoid -> {
-                                            Log.d(TAG, "✅ Fixed date: " + oldDate + " → " + newDate + " for " + entry.getFoodName());
-                                        })
-                                        .addOnFailureListener(e -> {
-                                            Log.e(TAG, "❌ Failed to fix date for " + entry.getFoodName(), e);
-                                        });
-                                fixedCount++;
-                            }
-                        }
-                        
-                        Log.d(TAG, "🔧 Fixed " + fixedCount + " entries");
-                        if (callback != null) callback.onSuccess();
+                        callback.onSuccess();
                     } else {
-                        Log.e(TAG, "❌ Error loading entries to fix", task.getException());
-                        if (callback != null) callback.onFailure(task.getException());
+                        callback.onFailure(task.getException());
                     }
                 });
+            }
+            
+            @Override
+            public void onFailure(Exception e) {
+                Log.e(TAG, "❌ Error fixing entry dates", e);
+                if (callback != null) callback.onFailure(e);
+            }
+        });
     }
     
-
-    
     // User Profile Methods
     public interface UserProfileCallback {
         void onSuccess(UserProfile profile);
@@ -408,72 +814,82 @@ public class FirebaseService {
     }
     
     public void createUserProfile(String username, String email, UserProfileCallback callback) {
+        createUserProfile(username, email)
+                .addOnSuccessListener(profile -> {
+                    Log.d(TAG, "User profile created successfully");
+                    callback.onSuccess(profile);
+                })
+                .addOnFailureListener(e -> {
+                    Log.e(TAG, "Error creating user profile", e);
+                    callback.onFailure(e);
+                });
+    }
+    
+    public Task<UserProfile> createUserProfile(String username, String email) {
         String userId = getCurrentUserId();
         if (userId == null) {
-            callback.onFailure(new Exception("No user logged in"));
-            return;
+            return noUser();
         }
         
         UserProfile profile = new UserProfile(userId, username, email);
         
-        db.collection(COLLECTION_USER_PROFILES)
+        return db.collection(COLLECTION_USER_PROFILES)
                 .document(userId)
                 .set(profile)
-                .addOnSuccessListener(aVoid -> {
-                    Log.d(TAG, "User profile created successfully");
-                    callback.onSuccess(profile);
-                })
-                .addOnFailureListener(e -> {
-                    Log.e(TAG, "Error creating user profile", e);
-                    callback.onFailure(e);
-                });
+                .onSuccessTask(aVoid -> Tasks.forResult(profile));
     }
     
     public void getUserProfile(UserProfileCallback callback) {
+        fetchUserProfile()
+                .addOnSuccessListener(callback::onSuccess)
+                .addOnFailureListener(callback::onFailure);
+    }
+    
+    public Task<UserProfile> fetchUserProfile() {
         String userId = getCurrentUserId();
         if (userId == null) {
-            callback.onFailure(new Exception("No user logged in"));
-            return;
+            return noUser();
         }
         
-        db.collection(COLLECTION_USER_PROFILES)
+        return db.collection(COLLECTION_USER_PROFILES)
                 .document(userId)
                 .get()
-                .addOnCompleteListener(task -> {
-                    if (task.isSuccessful() && task.getResult().exists()) {
-                        UserProfile profile = task.getResult().toObject(UserProfile.class);
-                        if (profile != null) {
-                            profile.setId(task.getResult().getId());
-                            callback.onSuccess(profile);
-                        } else {
-                            callback.onFailure(new Exception("Failed to parse user profile"));
-                        }
-                    } else {
-                        callback.onFailure(new Exception("User profile not found"));
+                .continueWithTask(task -> {
+                    if (!task.isSuccessful() || !task.getResult().exists()) {
+                        return Tasks.forException(new Exception("User profile not found"));
                     }
+                    UserProfile profile = FirestoreMappers.toUserProfile(task.getResult());
+                    if (profile == null) {
+                        return Tasks.forException(new Exception("Failed to parse user profile"));
+                    }
+                    return Tasks.forResult(profile);
                 });
     }
     
     public void updateUserProfile(UserProfile profile, UserProfileCallback callback) {
+        saveUserProfile(profile)
+                .addOnSuccessListener(saved -> {
+                    Log.d(TAG, "User profile updated successfully");
+                    callback.onSuccess(saved);
+                })
+                .addOnFailureListener(e -> {
+                    Log.e(TAG, "Error updating user profile", e);
+                    callback.onFailure(e);
+                });
+    }
+    
+    public Task<UserProfile> saveUserProfile(UserProfile profile) {
         String userId = getCurrentUserId();
         if (userId == null) {
-            callback.onFailure(new Exception("No user logged in"));
-            return;
+            return noUser();
         }
         
         profile.setUpdatedAt(com.google.firebase.Timestamp.now());
         
-        db.collection(COLLECTION_USER_PROFILES)
+        return db.collection(COLLECTION_USER_PROFILES)
                 .document(userId)
                 .set(profile)
-                .addOnSuccessListener(aVoid -> {
-                    Log.d(TAG, "User profile updated successfully");
-                    callback.onSuccess(profile);
-                })
-                .addOnFailureListener(e -> {
-                    Log.e(TAG, "Error updating user profile", e);
-                    callback.onFailure(e);
-                });
+                .onSuccessTask(aVoid -> Tasks.forResult(profile));
     }
     
     // Password change method
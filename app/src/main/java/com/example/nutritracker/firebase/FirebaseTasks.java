@@ -0,0 +1,40 @@
+package com.example.nutritracker.firebase;
+
+import com.google.android.gms.tasks.CancellationToken;
+import com.google.android.gms.tasks.CancellationTokenSource;
+import com.google.android.gms.tasks.Task;
+import com.google.android.gms.tasks.TaskCompletionSource;
+
+/**
+ * Helpers for the Task based methods of {@link FirebaseService}.
+ *
+ * Those methods start their work right away, so independent ones run in parallel and can
+ * be joined with Tasks.whenAllSuccess; dependent steps chain with onSuccessTask. Every
+ * listener and continuation takes an optional Executor; without one it runs on the main
+ * thread, like the callback methods.
+ */
+public final class FirebaseTasks {
+
+    private FirebaseTasks() {}
+
+    /**
+     * A view of the task that is cancelled as soon as the token is, or when the task itself
+     * is, so success and failure listeners chained on it don't run. Firestore can't abort a
+     * request that was already sent; its result is just ignored.
+     */
+    public static <T> Task<T> withCancellation(Task<T> task, CancellationToken token) {
+        CancellationTokenSource cancellation = new CancellationTokenSource();
+        token.onCanceledRequested(cancellation::cancel);
+        TaskCompletionSource<T> source = new TaskCompletionSource<>(cancellation.getToken());
+        task.addOnCompleteListener(t -> {
+            if (t.isCanceled()) {
+                cancellation.cancel();
+            } else if (t.isSuccessful()) {
+                source.trySetResult(t.getResult());
+            } else {
+                source.trySetException(t.getException());
+            }
+        });
+        return source.getTask();
+    }
+}
@@ -0,0 +1,131 @@
+package com.example.nutritracker.firebase;
+
+import com.google.firebase.Timestamp;
+import com.google.firebase.firestore.DocumentSnapshot;
+
+import java.util.Date;
+import java.util.HashMap;
+import java.util.Map;
+
+/**
+ * Hand-written replacements for DocumentSnapshot.toObject() on the model classes.
+ *
+ * toObject() goes through Firestore's reflective bean mapper for every document: it looks
+ * up the class's properties and sets each one through reflection, boxing every number on
+ * the way. These read the document's field map once and call the setters directly. Field
+ * names match the getters, so documents written by set(model) map the same either way;
+ * a missing or mistyped field gets the default value instead of throwing.
+ *
+ * Each mapper returns null for a document that doesn't exist and sets the model's ID to
+ * the document ID. Keep them in step when a field is added to a model.
+ */
+public final class FirestoreMappers {
+
+    private FirestoreMappers() {}
+
+    public static NutritionEntry toNutritionEntry(DocumentSnapshot document) {
+        Map<String, Object> data = document.getData();
+        if (data == null) {
+            return null;
+        }
+        NutritionEntry entry = new NutritionEntry();
+        entry.setId(document.getId());
+        entry.setUserId(string(data, "userId"));
+        entry.setDate(string(data, "date"));
+        entry.setMealType(string(data, "mealType"));
+        entry.setFoodName(string(data, "foodName"));
+        entry.setKcal(number(data, "kcal"));
+        entry.setProtein(number(data, "protein"));
+        entry.setFat(number(data, "fat"));
+        entry.setQuantity(number(data, "quantity"));
+        entry.setTimestamp(timestamp(data, "timestamp"));
+        entry.setUpdatedAt(whole(data, "updatedAt"));
+        return entry;
+    }
+
+    public static UserActivityModel toUserActivity(DocumentSnapshot document) {
+        Map<String, Object> data = document.getData();
+        if (data == null) {
+            return null;
+        }
+        UserActivityModel activity = new UserActivityModel();
+        activity.setId(document.getId());
+        activity.setUserId(string(data, "userId"));
+        activity.setActivityType(string(data, "activityType"));
+        activity.setActivityDetails(string(data, "activityDetails"));
+        activity.setTimestamp(timestamp(data, "timestamp"));
+        // Written before events were coalesced: one event each
+        activity.setCount(data.containsKey("count") ? (int) whole(data, "count") : 1);
+        return activity;
+    }
+
+    public static UserProfile toUserProfile(DocumentSnapshot document) {
+        Map<String, Object> data = document.getData();
+        if (data == null) {
+            return null;
+        }
+        UserProfile profile = new UserProfile();
+        profile.setId(document.getId());
+        profile.setUserId(string(data, "userId"));
+        profile.setUsername(string(data, "username"));
+        profile.setEmail(string(data, "email"));
+        profile.setGoalKcal((int) whole(data, "goalKcal"));
+        profile.setGoalProtein((int) whole(data, "goalProtein"));
+        profile.setGoalFat((int) whole(data, "goalFat"));
+        profile.setSubscriptionPlan(string(data, "subscriptionPlan"));
+        profile.setCreatedAt(timestamp(data, "createdAt"));
+        profile.setUpdatedAt(timestamp(data, "updatedAt"));
+        return profile;
+    }
+
+    // DailySummary has no ID field; its document ID is derived from userId and date
+    public static DailySummary toDailySummary(DocumentSnapshot document) {
+        Map<String, Object> data = document.getData();
+        if (data == null) {
+            return null;
+        }
+        DailySummary summary = new DailySummary();
+        summary.setUserId(string(data, "userId"));
+        summary.setDate(string(data, "date"));
+        summary.setKcal(number(data, "kcal"));
+        summary.setProtein(number(data, "protein"));
+        summary.setFat(number(data, "fat"));
+        summary.setEntryCount(whole(data, "entryCount"));
+        Object meals = data.get("mealKcal");
+        if (meals instanceof Map) {
+            Map<String, Double> mealKcal = new HashMap<>();
+            for (Map.Entry<?, ?> meal : ((Map<?, ?>) meals).entrySet()) {
+                if (meal.getKey() instanceof String && meal.getValue() instanceof Number) {
+                    mealKcal.put((String) meal.getKey(), ((Number) meal.getValue()).doubleValue());
+                }
+            }
+            summary.setMealKcal(mealKcal);
+        }
+        summary.setUpdatedAt(timestamp(data, "updatedAt"));
+        return summary;
+    }
+
+    private static String string(Map<String, Object> data, String field) {
+        Object value = data.get(field);
+        return value instanceof String ? (String) value : null;
+    }
+
+    // Firestore hands back whole numbers as Long and the rest as Double
+    private static double number(Map<String, Object> data, String field) {
+        Object value = data.get(field);
+        return value instanceof Number ? ((Number) value).doubleValue() : 0;
+    }
+
+    private static long whole(Map<String, Object> data, String field) {
+        Object value = data.get(field);
+        return value instanceof Number ? ((Number) value).longValue() : 0;
+    }
+
+    private static Timestamp timestamp(Map<String, Object> data, String field) {
+        Object value = data.get(field);
+        if (value instanceof Timestamp) {
+            return (Timestamp) value;
+        }
+        return value instanceof Date ? new Timestamp((Date) value) : null;
+    }
+}
@@ -0,0 +1,18 @@
+package com.example.nutritracker.firebase;
+
+import com.google.firebase.firestore.DocumentSnapshot;
+
+import java.util.Map;
+
+// One schema change over a user's documents in a collection, applied by MigrationRunner
+public interface Migration {
+    // Unique and stable; progress is checkpointed under this name
+    String getName();
+
+    // e.g. FirebaseService.COLLECTION_NUTRITION_ENTRIES
+    String getCollection();
+
+    // Fields to update on the document, or null if it needs no change. A resumed run may see
+    // a document again, so an already migrated one must give null. Must not change "userId".
+    Map<String, Object> migrate(DocumentSnapshot document);
+}
@@ -0,0 +1,224 @@
+package com.example.nutritracker.firebase;
+
+import android.content.Context;
+import android.content.SharedPreferences;
+import android.os.Handler;
+import android.os.Looper;
+import android.util.Log;
+
+import com.google.android.gms.tasks.Task;
+import com.google.android.gms.tasks.Tasks;
+import com.google.firebase.firestore.FieldPath;
+import com.google.firebase.firestore.FirebaseFirestore;
+import com.google.firebase.firestore.Query;
+import com.google.firebase.firestore.QueryDocumentSnapshot;
+import com.google.firebase.firestore.QuerySnapshot;
+import com.google.firebase.firestore.Source;
+import com.google.firebase.firestore.WriteBatch;
+
+import java.util.ArrayDeque;
+import java.util.Map;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Applies a {@link Migration} to the current user's documents in one collection.
+ *
+ * Documents are read a page at a time in document ID order, with a cursor rather than one
+ * big query, and each page's changes go out as one WriteBatch. Up to
+ * {@link #setMaxBatchesInFlight} batches commit while later pages are being read. The
+ * cursor is checkpointed only after every batch up to it has committed, so a run that
+ * stops part way picks up where it left off; a finished migration is not run again.
+ *
+ * A dry run reads and counts exactly like a real one but writes nothing, not even the
+ * checkpoint. Runs happen one at a time on a background thread; callbacks come on the
+ * main thread.
+ */
+public class MigrationRunner {
+    private static final String TAG = "MigrationRunner";
+    private static final String PREFS_NAME = "migrations";
+    private static final int MAX_BATCH_WRITES = 500;
+    private static final long TIMEOUT_SECONDS = 60;
+
+    private static final ExecutorService executor = Executors.newSingleThreadExecutor();
+
+    private final FirebaseFirestore db;
+    private final SharedPreferences checkpoints;
+    private final Handler mainHandler = new Handler(Looper.getMainLooper());
+    private int pageSize = MAX_BATCH_WRITES;
+    private int maxBatchesInFlight = 4;
+
+    public interface MigrationCallback {
+        void onProgress(Progress progress);
+        void onSuccess(Progress progress);
+        void onFailure(Exception e);
+    }
+
+    public static class Progress {
+        private final String name;
+        private final boolean dryRun;
+        private long scanned;
+        private long changed;
+        private long elapsedMs;
+        private boolean alreadyApplied;
+
+        Progress(String name, boolean dryRun) {
+            this.name = name;
+            this.dryRun = dryRun;
+        }
+
+        Progress copy() {
+            Progress copy = new Progress(name, dryRun);
+            copy.scanned = scanned;
+            copy.changed = changed;
+            copy.elapsedMs = elapsedMs;
+            copy.alreadyApplied = alreadyApplied;
+            return copy;
+        }
+
+        public String getName() { return name; }
+        public boolean isDryRun() { return dryRun; }
+        public long getScanned() { return scanned; }
+        // Documents updated, or that would be in a dry run
+        public long getChanged() { return changed; }
+        public long getElapsedMs() { return elapsedMs; }
+        public boolean isAlreadyApplied() { return alreadyApplied; }
+
+        public double getDocsPerSecond() {
+            return elapsedMs > 0 ? scanned * 1000.0 / elapsedMs : 0;
+        }
+
+        @Override
+        public String toString() {
+            return String.format("%s%s: %d scanned, %d %s in %d ms (%.0f docs/s)",
+                    name, dryRun ? " (dry run)" : "", scanned, changed,
+                    dryRun ? "to change" : "changed", elapsedMs, getDocsPerSecond());
+        }
+    }
+
+    // A committed or committing page, and the last document ID it covered
+    private static final class PendingBatch {
+        final Task<Void> commit;
+        final String lastId;
+
+        PendingBatch(Task<Void> commit, String lastId) {
+            this.commit = commit;
+            this.lastId = lastId;
+        }
+    }
+
+    public MigrationRunner(Context context) {
+        this(context, FirebaseFirestore.getInstance());
+    }
+
+    MigrationRunner(Context context, FirebaseFirestore db) {
+        this.db = db;
+        this.checkpoints = context.getApplicationContext()
+                .getSharedPreferences(PREFS_NAME, Context.MODE_PRIVATE);
+    }
+
+    public void setPageSize(int pageSize) {
+        this.pageSize = Math.max(1, Math.min(MAX_BATCH_WRITES, pageSize));
+    }
+
+    public void setMaxBatchesInFlight(int maxBatchesInFlight) {
+        this.maxBatchesInFlight = Math.max(1, maxBatchesInFlight);
+    }
+
+    public void run(Migration migration, String userId, boolean dryRun, MigrationCallback callback) {
+        if (userId == null) {
+            callback.onFailure(new Exception("No user logged in"));
+            return;
+        }
+        executor.execute(() -> {
+            try {
+                Progress progress = migrate(migration, userId, dryRun, callback);
+                Log.d(TAG, "✅ " + progress);
+                mainHandler.post(() -> callback.onSuccess(progress));
+            } catch (Exception e) {
+                Log.e(TAG, "❌ Migration " + migration.getName() + " failed", e);
+                mainHandler.post(() -> callback.onFailure(e));
+            }
+        });
+    }
+
+    // Runs on the executor
+    private Progress migrate(Migration migration, String userId, boolean dryRun,
+                             MigrationCallback callback) throws Exception {
+        String key = migration.getName() + "|" + userId;
+        Progress progress = new Progress(migration.getName(), dryRun);
+        boolean checkpointed = !dryRun;
+        if (checkpointed && checkpoints.getBoolean("done|" + key, false)) {
+            progress.alreadyApplied = true;
+            return progress;
+        }
+
+        long start = System.nanoTime();
+        String cursor = checkpointed ? checkpoints.getString("cursor|" + key, null) : null;
+        if (cursor != null) {
+            Log.d(TAG, "⏩ Resuming " + migration.getName() + " after " + cursor);
+        }
+        ArrayDeque<PendingBatch> inFlight = new ArrayDeque<>();
+        while (true) {
+            Query query = db.collection(migration.getCollection())
+                    .whereEqualTo("userId", userId)
+                    .orderBy(FieldPath.documentId())
+                    .limit(pageSize);
+            if (cursor != null) {
+                query = query.startAfter(cursor);
+            }
+            QuerySnapshot page = await(query.get(Source.SERVER));
+            if (page.isEmpty()) {
+                break;
+            }
+
+            WriteBatch batch = db.batch();
+            int changes = 0;
+            for (QueryDocumentSnapshot document : page) {
+                Map<String, Object> updates = migration.migrate(document);
+                if (updates != null && !updates.isEmpty()) {
+                    batch.update(document.getReference(), updates);
+                    changes++;
+                }
+            }
+            cursor = page.getDocuments().get(page.size() - 1).getId();
+            Task<Void> commit = dryRun || changes == 0 ? Tasks.forResult(null) : batch.commit();
+            inFlight.add(new PendingBatch(commit, cursor));
+            while (inFlight.size() >= maxBatchesInFlight) {
+                retire(inFlight.poll(), key, checkpointed);
+            }
+
+            progress.scanned += page.size();
+            progress.changed += changes;
+            progress.elapsedMs = TimeUnit.NANOSECONDS.toMillis(System.nanoTime() - start);
+            Progress snapshot = progress.copy();
+            mainHandler.post(() -> callback.onProgress(snapshot));
+
+            if (page.size() < pageSize) {
+                break;
+            }
+        }
+        while (!inFlight.isEmpty()) {
+            retire(inFlight.poll(), key, checkpointed);
+        }
+
+        if (checkpointed) {
+            checkpoints.edit().remove("cursor|" + key).putBoolean("done|" + key, true).apply();
+        }
+        progress.elapsedMs = TimeUnit.NANOSECONDS.toMillis(System.nanoTime() - start);
+        return progress;
+    }
+
+    // Batches retire oldest first, so the checkpoint never skips a page that failed
+    private void retire(PendingBatch batch, String key, boolean checkpointed) throws Exception {
+        await(batch.commit);
+        if (checkpointed) {
+            checkpoints.edit().putString("cursor|" + key, batch.lastId).apply();
+        }
+    }
+
+    private static <T> T await(Task<T> task) throws Exception {
+        return Tasks.await(task, TIMEOUT_SECONDS, TimeUnit.SECONDS);
+    }
+}
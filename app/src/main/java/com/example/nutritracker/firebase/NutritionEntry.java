@@ -13,6 +13,7 @@ public class NutritionEntry {
     private double fat;
     private double quantity;
     private Timestamp timestamp;
+    private long updatedAt; // Epoch ms of the last change, used to reconcile offline edits
 
     // Default constructor required for Firestore
     public NutritionEntry() {}
@@ -28,6 +29,7 @@ public class NutritionEntry {
         this.fat = fat;
         this.quantity = quantity;
         this.timestamp = Timestamp.now();
+        this.updatedAt = System.currentTimeMillis();
     }
 
     // Getters and Setters
@@ -60,4 +62,7 @@ public class NutritionEntry {
 
     public Timestamp getTimestamp() { return timestamp; }
     public void setTimestamp(Timestamp timestamp) { this.timestamp = timestamp; }
+
+    public long getUpdatedAt() { return updatedAt; }
+    public void setUpdatedAt(long updatedAt) { this.updatedAt = updatedAt; }
 }
\ No newline at end of file
@@ -8,6 +8,7 @@ public class UserActivityModel {
     private String activityType;
     private String activityDetails;
     private Timestamp timestamp;
+    private int count = 1; // Identical events in a burst are stored once
 
     // Default constructor required for Firestore
     public UserActivityModel() {}
@@ -34,4 +35,7 @@ public class UserActivityModel {
 
     public Timestamp getTimestamp() { return timestamp; }
     public void setTimestamp(Timestamp timestamp) { this.timestamp = timestamp; }
+
+    public int getCount() { return count; }
+    public void setCount(int count) { this.count = count; }
 }
\ No newline at end of file
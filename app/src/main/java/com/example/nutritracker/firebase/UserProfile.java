@@ -2,6 +2,8 @@ package com.example.nutritracker.firebase;
 
 import com.google.firebase.Timestamp;
 
+import java.util.Objects;
+
 public class UserProfile {
     private String id;
     private String userId;
@@ -29,6 +31,31 @@ public class UserProfile {
         this.updatedAt = Timestamp.now();
     }
 
+    public UserProfile copy() {
+        UserProfile copy = new UserProfile();
+        copy.id = id;
+        copy.userId = userId;
+        copy.username = username;
+        copy.email = email;
+        copy.goalKcal = goalKcal;
+        copy.goalProtein = goalProtein;
+        copy.goalFat = goalFat;
+        copy.subscriptionPlan = subscriptionPlan;
+        copy.createdAt = createdAt;
+        copy.updatedAt = updatedAt;
+        return copy;
+    }
+
+    // Whether the fields the screens show (name, goals, plan) are the same
+    public boolean hasSameSettings(UserProfile other) {
+        return other != null
+                && Objects.equals(username, other.username)
+                && goalKcal == other.goalKcal
+                && goalProtein == other.goalProtein
+                && goalFat == other.goalFat
+                && Objects.equals(subscriptionPlan, other.subscriptionPlan);
+    }
+
     // Getters and Setters
     public String getId() { return id; }
     public void setId(String id) { this.id = id; }
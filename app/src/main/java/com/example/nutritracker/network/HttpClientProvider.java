@@ -0,0 +1,73 @@
+package com.example.nutritracker.network;
+
+import android.content.Context;
+
+import java.io.File;
+import java.util.concurrent.TimeUnit;
+
+import okhttp3.Cache;
+import okhttp3.ConnectionPool;
+import okhttp3.Dispatcher;
+import okhttp3.OkHttpClient;
+
+/**
+ * Process-wide OkHttp client. Every screen shares one connection pool, TLS session cache,
+ * dispatcher and HTTP cache instead of building a fresh client per activity.
+ *
+ * Screens that need different timeouts should derive a client with
+ * {@code get(context).newBuilder()}, which keeps sharing all of the above.
+ */
+public final class HttpClientProvider {
+    private static final String CACHE_DIR_NAME = "http_cache";
+    private static final long CACHE_BYTES = 10L * 1024 * 1024;
+
+    // A handful of hosts (USDA, Gemini), so a small pool with a generous keep-alive is enough
+    private static final int MAX_IDLE_CONNECTIONS = 5;
+    private static final long KEEP_ALIVE_MINUTES = 5;
+
+    // Search-as-you-type can fire several page requests at once; don't let it hog USDA
+    private static final int MAX_REQUESTS = 16;
+    private static final int MAX_REQUESTS_PER_HOST = 4;
+
+    private static OkHttpClient client;
+    private static NetworkTimingListener.Factory timings;
+
+    private HttpClientProvider() {}
+
+    public static synchronized OkHttpClient get(Context context) {
+        if (client == null) {
+            client = build(context.getApplicationContext());
+        }
+        return client;
+    }
+
+    /** Aggregated DNS/connect/TLS/TTFB/body timings for every call made through the shared client. */
+    public static synchronized NetworkTimingListener.Factory getTimings() {
+        if (timings == null) {
+            timings = new NetworkTimingListener.Factory();
+        }
+        return timings;
+    }
+
+    private static OkHttpClient build(Context context) {
+        Dispatcher dispatcher = new Dispatcher();
+        dispatcher.setMaxRequests(MAX_REQUESTS);
+        dispatcher.setMaxRequestsPerHost(MAX_REQUESTS_PER_HOST);
+
+        // Responses are stored as the server's Cache-Control/ETag headers allow and
+        // revalidated with conditional requests. gzip needs no setup: OkHttp sends
+        // Accept-Encoding: gzip and decompresses transparently when no header is set
+        Cache cache = new Cache(new File(context.getCacheDir(), CACHE_DIR_NAME), CACHE_BYTES);
+
+        return new OkHttpClient.Builder()
+                .connectionPool(new ConnectionPool(MAX_IDLE_CONNECTIONS, KEEP_ALIVE_MINUTES, TimeUnit.MINUTES))
+                .dispatcher(dispatcher)
+                .cache(cache)
+                .connectTimeout(10, TimeUnit.SECONDS)
+                .readTimeout(20, TimeUnit.SECONDS)
+                .writeTimeout(20, TimeUnit.SECONDS)
+                .retryOnConnectionFailure(true)
+                .eventListenerFactory(getTimings())
+                .build();
+    }
+}
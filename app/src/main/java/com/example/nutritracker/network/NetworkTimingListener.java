@@ -0,0 +1,192 @@
+package com.example.nutritracker.network;
+
+import android.util.Log;
+
+import androidx.annotation.NonNull;
+import androidx.annotation.Nullable;
+
+import java.io.IOException;
+import java.net.InetAddress;
+import java.net.InetSocketAddress;
+import java.net.Proxy;
+import java.util.List;
+import java.util.concurrent.atomic.AtomicLong;
+
+import okhttp3.Call;
+import okhttp3.EventListener;
+import okhttp3.Handshake;
+import okhttp3.Protocol;
+import okhttp3.Response;
+
+/**
+ * Per-call {@link EventListener} that records how long each phase of a request took:
+ * DNS, TCP connect, TLS handshake, time to first byte and body download. Phases that
+ * were skipped (a pooled connection, a cache hit) simply stay at zero.
+ *
+ * One instance per call, created by {@link Factory}, which also keeps running totals.
+ */
+public final class NetworkTimingListener extends EventListener {
+    private static final String TAG = "NetworkTiming";
+
+    private final Factory totals;
+    private final String host;
+
+    private long callStart;
+    private long dnsStart, dnsNanos;
+    private long connectStart, connectNanos;
+    private long tlsStart, tlsNanos;
+    private long requestStart, ttfbNanos;
+    private long bodyStart, bodyNanos;
+    private long bodyBytes;
+    private boolean cacheHit;
+
+    private NetworkTimingListener(Factory totals, Call call) {
+        this.totals = totals;
+        this.host = call.request().url().host();
+    }
+
+    public static final class Factory implements EventListener.Factory {
+        private final AtomicLong calls = new AtomicLong();
+        private final AtomicLong failures = new AtomicLong();
+        private final AtomicLong cacheHits = new AtomicLong();
+        private final AtomicLong newConnections = new AtomicLong();
+        private final AtomicLong dnsNanos = new AtomicLong();
+        private final AtomicLong connectNanos = new AtomicLong();
+        private final AtomicLong tlsNanos = new AtomicLong();
+        private final AtomicLong ttfbNanos = new AtomicLong();
+        private final AtomicLong bodyNanos = new AtomicLong();
+        private final AtomicLong totalNanos = new AtomicLong();
+
+        @NonNull
+        @Override
+        public EventListener create(@NonNull Call call) {
+            return new NetworkTimingListener(this, call);
+        }
+
+        public long getCallCount() {
+            return calls.get();
+        }
+
+        public long getNewConnectionCount() {
+            return newConnections.get();
+        }
+
+        public long getCacheHitCount() {
+            return cacheHits.get();
+        }
+
+        // Averages per completed call, in ms
+        public String getStats() {
+            long n = Math.max(1, calls.get());
+            return "calls=" + calls.get()
+                    + ", failures=" + failures.get()
+                    + ", cacheHits=" + cacheHits.get()
+                    + ", newConnections=" + newConnections.get()
+                    + ", avgDns=" + ms(dnsNanos.get() / n)
+                    + ", avgConnect=" + ms(connectNanos.get() / n)
+                    + ", avgTls=" + ms(tlsNanos.get() / n)
+                    + ", avgTtfb=" + ms(ttfbNanos.get() / n)
+                    + ", avgBody=" + ms(bodyNanos.get() / n)
+                    + ", avgTotal=" + ms(totalNanos.get() / n);
+        }
+    }
+
+    @Override
+    public void callStart(@NonNull Call call) {
+        callStart = System.nanoTime();
+    }
+
+    @Override
+    public void dnsStart(@NonNull Call call, @NonNull String domainName) {
+        dnsStart = System.nanoTime();
+    }
+
+    @Override
+    public void dnsEnd(@NonNull Call call, @NonNull String domainName, @NonNull List<InetAddress> inetAddressList) {
+        dnsNanos += System.nanoTime() - dnsStart;
+    }
+
+    @Override
+    public void connectStart(@NonNull Call call, @NonNull InetSocketAddress inetSocketAddress, @NonNull Proxy proxy) {
+        connectStart = System.nanoTime();
+    }
+
+    @Override
+    public void secureConnectStart(@NonNull Call call) {
+        tlsStart = System.nanoTime();
+    }
+
+    @Override
+    public void secureConnectEnd(@NonNull Call call, @Nullable Handshake handshake) {
+        tlsNanos += System.nanoTime() - tlsStart;
+    }
+
+    @Override
+    public void connectEnd(@NonNull Call call, @NonNull InetSocketAddress inetSocketAddress,
+                           @NonNull Proxy proxy, @Nullable Protocol protocol) {
+        // Includes the TLS handshake, like the platform's own connect timings
+        connectNanos += System.nanoTime() - connectStart;
+        totals.newConnections.incrementAndGet();
+    }
+
+    @Override
+    public void requestHeadersStart(@NonNull Call call) {
+        requestStart = System.nanoTime();
+    }
+
+    @Override
+    public void responseHeadersStart(@NonNull Call call) {
+        ttfbNanos = System.nanoTime() - requestStart;
+    }
+
+    @Override
+    public void responseBodyStart(@NonNull Call call) {
+        bodyStart = System.nanoTime();
+    }
+
+    @Override
+    public void responseBodyEnd(@NonNull Call call, long byteCount) {
+        bodyNanos = System.nanoTime() - bodyStart;
+        bodyBytes = byteCount;
+    }
+
+    @Override
+    public void cacheHit(@NonNull Call call, @NonNull Response response) {
+        cacheHit = true;
+    }
+
+    @Override
+    public void callEnd(@NonNull Call call) {
+        record(false);
+    }
+
+    @Override
+    public void callFailed(@NonNull Call call, @NonNull IOException ioe) {
+        record(true);
+    }
+
+    private void record(boolean failed) {
+        long total = System.nanoTime() - callStart;
+        totals.calls.incrementAndGet();
+        if (failed) totals.failures.incrementAndGet();
+        if (cacheHit) totals.cacheHits.incrementAndGet();
+        totals.dnsNanos.addAndGet(dnsNanos);
+        totals.connectNanos.addAndGet(connectNanos);
+        totals.tlsNanos.addAndGet(tlsNanos);
+        totals.ttfbNanos.addAndGet(ttfbNanos);
+        totals.bodyNanos.addAndGet(bodyNanos);
+        totals.totalNanos.addAndGet(total);
+
+        Log.d(TAG, host + (failed ? " FAILED" : "") + (cacheHit ? " (cache)" : "")
+                + ": dns=" + ms(dnsNanos)
+                + " connect=" + ms(connectNanos)
+                + " tls=" + ms(tlsNanos)
+                + " ttfb=" + ms(ttfbNanos)
+                + " body=" + ms(bodyNanos) + " (" + bodyBytes + " B)"
+                + " total=" + ms(total));
+    }
+
+    private static String ms(long nanos) {
+        return nanos / 1_000_000 + "ms";
+    }
+}
@@ -0,0 +1,214 @@
+package com.example.nutritracker.search;
+
+import java.io.Closeable;
+import java.io.File;
+import java.io.FileInputStream;
+import java.io.IOException;
+import java.io.InputStreamReader;
+import java.io.Reader;
+import java.nio.charset.StandardCharsets;
+import java.util.Arrays;
+
+/**
+ * Streaming reader for RFC 4180 CSV as used by the FoodData Central bulk downloads
+ * (every field quoted, "" for a literal quote, newlines allowed inside quotes).
+ *
+ * One row is held at a time in a reusable char buffer; fields are read as ranges of it,
+ * so numeric columns are parsed without creating a String per value.
+ */
+final class CsvReader implements Closeable {
+
+    private final Reader reader;
+    private final char[] input = new char[64 * 1024];
+    private int inputPos;
+    private int inputLimit;
+
+    private char[] row = new char[1024];
+    private int[] starts = new int[16];
+    private int[] ends = new int[16];
+    private int fieldCount;
+    private final String[] header;
+
+    CsvReader(File file) throws IOException {
+        reader = new InputStreamReader(new FileInputStream(file), StandardCharsets.UTF_8);
+        if (!next()) {
+            throw new IOException("Empty CSV file: " + file);
+        }
+        header = new String[fieldCount];
+        for (int i = 0; i < fieldCount; i++) {
+            header[i] = getString(i);
+        }
+        // A UTF-8 byte order mark would otherwise stick to the first column name
+        if (header.length > 0 && header[0].startsWith("\uFEFF")) {
+            header[0] = header[0].substring(1);
+        }
+    }
+
+    /** Index of the named column, or -1. */
+    int column(String name) {
+        for (int i = 0; i < header.length; i++) {
+            if (header[i].equals(name)) return i;
+        }
+        return -1;
+    }
+
+    int requireColumn(String name) throws IOException {
+        int column = column(name);
+        if (column < 0) {
+            throw new IOException("Missing CSV column: " + name);
+        }
+        return column;
+    }
+
+    /** Advances to the next row; false at end of file. */
+    boolean next() throws IOException {
+        fieldCount = 0;
+        int length = 0;
+        int c = read();
+        if (c < 0) {
+            return false;
+        }
+
+        boolean quoted = false;
+        int fieldStart = 0;
+        while (true) {
+            if (quoted) {
+                if (c < 0) {
+                    throw new IOException("Unterminated quoted field");
+                }
+                if (c == '"') {
+                    int following = read();
+                    if (following == '"') {
+                        length = append(length, '"');
+                    } else {
+                        quoted = false;
+                        c = following;
+                        continue;
+                    }
+                } else {
+                    length = append(length, (char) c);
+                }
+            } else if (c == '"') {
+                quoted = true;
+            } else if (c == ',' || c == '\n' || c == '\r' || c < 0) {
+                addField(fieldStart, length);
+                fieldStart = length;
+                if (c == '\r') {
+                    c = read();
+                    if (c != '\n') {
+                        unread();
+                    }
+                    return true;
+                }
+                if (c == '\n' || c < 0) {
+                    return true;
+                }
+            } else {
+                length = append(length, (char) c);
+            }
+            c = read();
+        }
+    }
+
+    int getFieldCount() {
+        return fieldCount;
+    }
+
+    String getString(int field) {
+        if (field >= fieldCount) return "";
+        return new String(row, starts[field], ends[field] - starts[field]);
+    }
+
+    boolean isEmpty(int field) {
+        return field >= fieldCount || ends[field] == starts[field];
+    }
+
+    /** Parses a decimal integer field; empty or malformed fields give {@code fallback}. */
+    int getInt(int field, int fallback) {
+        if (isEmpty(field)) return fallback;
+        int value = 0;
+        boolean negative = false;
+        for (int i = starts[field]; i < ends[field]; i++) {
+            char ch = row[i];
+            if (i == starts[field] && ch == '-') {
+                negative = true;
+            } else if (ch >= '0' && ch <= '9') {
+                value = value * 10 + (ch - '0');
+            } else {
+                return fallback;
+            }
+        }
+        return negative ? -value : value;
+    }
+
+    /** Parses a decimal number field; empty or malformed fields give {@code fallback}. */
+    double getDouble(int field, double fallback) {
+        if (isEmpty(field)) return fallback;
+        // Fast path for plain "123.45"; anything else goes through the JDK parser
+        long mantissa = 0;
+        int scale = 0;
+        boolean seenDot = false;
+        boolean negative = false;
+        for (int i = starts[field]; i < ends[field]; i++) {
+            char ch = row[i];
+            if (ch >= '0' && ch <= '9' && mantissa < 100_000_000_000_000L) {
+                mantissa = mantissa * 10 + (ch - '0');
+                if (seenDot) scale++;
+            } else if (ch == '.' && !seenDot) {
+                seenDot = true;
+            } else if (ch == '-' && i == starts[field]) {
+                negative = true;
+            } else {
+                try {
+                    return Double.parseDouble(getString(field));
+                } catch (NumberFormatException e) {
+                    return fallback;
+                }
+            }
+        }
+        double value = mantissa / Math.pow(10, scale);
+        return negative ? -value : value;
+    }
+
+    @Override
+    public void close() throws IOException {
+        reader.close();
+    }
+
+    private void addField(int start, int end) {
+        if (fieldCount == starts.length) {
+            starts = Arrays.copyOf(starts, fieldCount * 2);
+            ends = Arrays.copyOf(ends, fieldCount * 2);
+        }
+        starts[fieldCount] = start;
+        ends[fieldCount] = end;
+        fieldCount++;
+    }
+
+    private int append(int length, char c) {
+        if (length == row.length) {
+            row = Arrays.copyOf(row, length * 2);
+        }
+        row[length] = c;
+        return length + 1;
+    }
+
+    private int read() throws IOException {
+        if (inputPos == inputLimit) {
+            inputLimit = reader.read(input, 0, input.length);
+            inputPos = 0;
+            if (inputLimit <= 0) {
+                inputLimit = 0;
+                return -1;
+            }
+        }
+        return input[inputPos++];
+    }
+
+    // Only ever called right after a successful read(), so the char is still in the buffer
+    private void unread() {
+        if (inputPos > 0) {
+            inputPos--;
+        }
+    }
+}
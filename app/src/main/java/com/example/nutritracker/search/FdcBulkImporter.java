@@ -0,0 +1,411 @@
+package com.example.nutritracker.search;
+
+import com.example.nutritracker.Nutrients;
+
+import java.io.File;
+import java.io.IOException;
+import java.util.Arrays;
+import java.util.BitSet;
+import java.util.HashMap;
+import java.util.Locale;
+import java.util.Map;
+
+/**
+ * Imports a FoodData Central bulk CSV download into a {@link LocalFoodIndex} file and
+ * its {@link GtinIndex}.
+ *
+ * Reads the files of the "Full Download of All Data Types" CSV zip, unpacked into one
+ * directory: food.csv, food_nutrient.csv and (optionally) branded_food.csv. Each file is
+ * streamed once. food_nutrient.csv, which is most of the 2 GB, is joined row by row
+ * against a sorted fdc_id table, so it is never held in memory. Heap use grows with the
+ * number of foods kept (columns in {@link FoodIndexWriter}), not with the dump size.
+ *
+ * Pure Java with no Android dependencies, so it runs on a device after a bulk download,
+ * from a background thread, and on the desktop JVM through the tools/fdc-importer module:
+ *
+ *   ./gradlew :tools:fdc-importer:run --args="FoodData_Central_csv_2024-10-31 food_index.bin gtin_index.bin"
+ *
+ * Keep it, and everything it uses, free of Android classes; that module compiles it on its own.
+ */
+public final class FdcBulkImporter {
+
+    // FoodData Central data types worth offering in search, by their name in the API; the
+    // rest are lab samples
+    private static final Map<String, String> DATA_TYPES = new HashMap<>();
+    static {
+        DATA_TYPES.put("foundation_food", "Foundation");
+        DATA_TYPES.put("sr_legacy_food", "SR Legacy");
+        DATA_TYPES.put("survey_fndds_food", "Survey (FNDDS)");
+        DATA_TYPES.put("branded_food", "Branded");
+    }
+
+    private static final int NOT_KEPT = -1;
+
+    private final File csvDirectory;
+
+    public FdcBulkImporter(File csvDirectory) {
+        this.csvDirectory = csvDirectory;
+    }
+
+    /** Counters for one import run. */
+    public static final class Stats {
+        long bytesRead;
+        long brandedRows;
+        long foodRows;
+        long nutrientRows;
+        int foodsKept;
+        int duplicates;
+        int skippedDataType;
+        int withoutEnergy;
+        long elapsedNanos;
+
+        public int getFoodsKept() { return foodsKept; }
+        public int getDuplicates() { return duplicates; }
+        public long getElapsedMillis() { return elapsedNanos / 1_000_000; }
+
+        public double getMegabytesPerSecond() {
+            return elapsedNanos == 0 ? 0 : (bytesRead / 1e6) / (elapsedNanos / 1e9);
+        }
+
+        public double getRowsPerSecond() {
+            return elapsedNanos == 0 ? 0 : (brandedRows + foodRows + nutrientRows) / (elapsedNanos / 1e9);
+        }
+
+        @Override
+        public String toString() {
+            return String.format(Locale.US,
+                    "read %.1f MB in %.1f s (%.1f MB/s, %.0f rows/s): %d branded rows, %d food rows, "
+                            + "%d nutrient rows; kept %d foods, dropped %d duplicates, %d other data types, "
+                            + "%d without energy",
+                    bytesRead / 1e6, elapsedNanos / 1e9, getMegabytesPerSecond(), getRowsPerSecond(),
+                    brandedRows, foodRows, nutrientRows, foodsKept, duplicates, skippedDataType, withoutEnergy);
+        }
+    }
+
+    public Stats run(File indexOut, File gtinOut) throws IOException {
+        long start = System.nanoTime();
+        Stats stats = new Stats();
+        FoodIndexWriter writer = new FoodIndexWriter();
+
+        BrandTable brands = readBrands(new File(csvDirectory, "branded_food.csv"), stats);
+        FdcIdTable ordinals = readFoods(new File(csvDirectory, "food.csv"), brands, writer, stats);
+        readNutrients(new File(csvDirectory, "food_nutrient.csv"), ordinals, writer, stats);
+
+        // Without energy the food is useless for logging, same rule as the API parser
+        for (int i = 0; i < ordinals.size; i++) {
+            int ordinal = ordinals.ordinals[i];
+            if (!writer.isExcluded(ordinal) && writer.getNutrient(ordinal, Nutrients.KCAL) <= 0) {
+                writer.exclude(ordinal);
+                stats.withoutEnergy++;
+            }
+        }
+        stats.foodsKept = writer.size();
+
+        writer.write(indexOut, gtinOut);
+        stats.elapsedNanos = System.nanoTime() - start;
+        return stats;
+    }
+
+    // --- branded_food.csv: fdc_id -> brand owner and barcode ---
+
+    private BrandTable readBrands(File file, Stats stats) throws IOException {
+        BrandTable brands = new BrandTable();
+        if (!file.exists()) {
+            return brands;
+        }
+        stats.bytesRead += file.length();
+        try (CsvReader csv = new CsvReader(file)) {
+            int fdcIdColumn = csv.requireColumn("fdc_id");
+            int ownerColumn = csv.requireColumn("brand_owner");
+            int brandNameColumn = csv.column("brand_name");
+            int gtinColumn = csv.column("gtin_upc");
+            while (csv.next()) {
+                stats.brandedRows++;
+                String brand = csv.getString(ownerColumn).trim();
+                if (brand.isEmpty() && brandNameColumn >= 0) {
+                    brand = csv.getString(brandNameColumn).trim();
+                }
+                String gtin = gtinColumn >= 0 ? csv.getString(gtinColumn) : null;
+                brands.add(csv.getInt(fdcIdColumn, 0), brand, GtinIndex.normalize(gtin));
+            }
+        }
+        brands.sort();
+        return brands;
+    }
+
+    // --- food.csv: descriptions, filtered by data type and deduplicated ---
+
+    private FdcIdTable readFoods(File file, BrandTable brands, FoodIndexWriter writer, Stats stats)
+            throws IOException {
+        FdcIdTable ordinals = new FdcIdTable();
+        LongIntMap ordinalsByKey = new LongIntMap();
+        stats.bytesRead += file.length();
+        try (CsvReader csv = new CsvReader(file)) {
+            int fdcIdColumn = csv.requireColumn("fdc_id");
+            int dataTypeColumn = csv.requireColumn("data_type");
+            int descriptionColumn = csv.requireColumn("description");
+            while (csv.next()) {
+                stats.foodRows++;
+                String dataType = DATA_TYPES.get(csv.getString(dataTypeColumn));
+                if (dataType == null) {
+                    stats.skippedDataType++;
+                    continue;
+                }
+                int fdcId = csv.getInt(fdcIdColumn, 0);
+                String description = normalizeDescription(csv.getString(descriptionColumn));
+                if (fdcId <= 0 || description.isEmpty()) {
+                    continue;
+                }
+
+                int brandRow = brands.find(fdcId);
+                String brand = brandRow >= 0 ? brands.brandAt(brandRow) : null;
+                long gtin = brandRow >= 0 ? brands.gtins[brandRow] : -1;
+
+                // Branded products are republished under new fdc_ids; the barcode identifies
+                // them. Everything else is the same food if description and brand match.
+                // food.csv is in fdc_id order, so a later duplicate is the newer publication
+                long key = gtin > 0
+                        ? gtin
+                        : hash64(description.toLowerCase(Locale.ROOT) + '|' + (brand != null ? brand : ""));
+                int previous = ordinalsByKey.get(key);
+                if (previous != NOT_KEPT) {
+                    writer.exclude(previous);
+                    stats.duplicates++;
+                }
+
+                int ordinal = writer.add(fdcId, description, brand, dataType, gtin > 0 ? Long.toString(gtin) : null);
+                ordinalsByKey.put(key, ordinal);
+                ordinals.add(fdcId, ordinal);
+            }
+        }
+        ordinals.sort();
+        return ordinals;
+    }
+
+    // --- food_nutrient.csv: streamed and joined against the kept foods ---
+
+    private void readNutrients(File file, FdcIdTable ordinals, FoodIndexWriter writer, Stats stats)
+            throws IOException {
+        // Slots already filled from their primary nutrient id, so fallbacks never override them
+        BitSet primaryFilled = new BitSet();
+        stats.bytesRead += file.length();
+        try (CsvReader csv = new CsvReader(file)) {
+            int fdcIdColumn = csv.requireColumn("fdc_id");
+            int nutrientIdColumn = csv.requireColumn("nutrient_id");
+            int amountColumn = csv.requireColumn("amount");
+
+            // Rows come grouped by food, so remember the last lookup
+            int lastFdcId = 0;
+            int ordinal = NOT_KEPT;
+            while (csv.next()) {
+                stats.nutrientRows++;
+                int fdcId = csv.getInt(fdcIdColumn, 0);
+                if (fdcId != lastFdcId) {
+                    lastFdcId = fdcId;
+                    ordinal = ordinals.find(fdcId);
+                }
+                if (ordinal == NOT_KEPT) {
+                    continue;
+                }
+
+                int nutrientId = csv.getInt(nutrientIdColumn, 0);
+                int slot = Nutrients.slotForNutrientId(nutrientId);
+                boolean primary = slot != Nutrients.UNTRACKED;
+                if (!primary) {
+                    slot = Nutrients.fallbackSlotForNutrientId(nutrientId);
+                    if (slot == Nutrients.UNTRACKED || primaryFilled.get(ordinal * Nutrients.COUNT + slot)) {
+                        continue;
+                    }
+                }
+                writer.setNutrient(ordinal, slot, csv.getDouble(amountColumn, 0));
+                if (primary) {
+                    primaryFilled.set(ordinal * Nutrients.COUNT + slot);
+                }
+            }
+        }
+    }
+
+    /**
+     * Trims and collapses whitespace, drops trailing punctuation, and turns all-caps
+     * label text ("CHEDDAR CHEESE, SHARP") into sentence case.
+     */
+    static String normalizeDescription(String raw) {
+        StringBuilder out = new StringBuilder(raw.length());
+        boolean pendingSpace = false;
+        boolean hasLower = false;
+        for (int i = 0; i < raw.length(); i++) {
+            char c = raw.charAt(i);
+            if (Character.isWhitespace(c)) {
+                pendingSpace = out.length() > 0;
+                continue;
+            }
+            if (pendingSpace) {
+                out.append(' ');
+                pendingSpace = false;
+            }
+            out.append(c);
+            hasLower |= Character.isLowerCase(c);
+        }
+        int end = out.length();
+        while (end > 0 && ",;.-".indexOf(out.charAt(end - 1)) >= 0) {
+            end--;
+        }
+        String description = out.substring(0, end).trim();
+        if (!hasLower && !description.isEmpty()) {
+            description = description.substring(0, 1) + description.substring(1).toLowerCase(Locale.ROOT);
+        }
+        return description;
+    }
+
+    private static long hash64(String value) {
+        long h = 0xcbf29ce484222325L; // FNV-1a, 64 bit
+        for (int i = 0; i < value.length(); i++) {
+            h = (h ^ value.charAt(i)) * 0x100000001b3L;
+        }
+        return h;
+    }
+
+    // fdc_id -> writer ordinal, as parallel sorted int arrays
+    private static final class FdcIdTable {
+        int[] fdcIds = new int[1024];
+        int[] ordinals = new int[1024];
+        int size;
+
+        void add(int fdcId, int ordinal) {
+            if (size == fdcIds.length) {
+                fdcIds = Arrays.copyOf(fdcIds, size * 2);
+                ordinals = Arrays.copyOf(ordinals, size * 2);
+            }
+            fdcIds[size] = fdcId;
+            ordinals[size] = ordinal;
+            size++;
+        }
+
+        void sort() {
+            long[] packed = new long[size];
+            for (int i = 0; i < size; i++) {
+                packed[i] = ((long) fdcIds[i] << 32) | (ordinals[i] & 0xFFFFFFFFL);
+            }
+            Arrays.sort(packed);
+            for (int i = 0; i < size; i++) {
+                fdcIds[i] = (int) (packed[i] >>> 32);
+                ordinals[i] = (int) packed[i];
+            }
+        }
+
+        int find(int fdcId) {
+            int i = Arrays.binarySearch(fdcIds, 0, size, fdcId);
+            return i >= 0 ? ordinals[i] : NOT_KEPT;
+        }
+    }
+
+    // fdc_id -> brand owner (interned, there are far fewer owners than foods) and GTIN
+    private static final class BrandTable {
+        int[] fdcIds = new int[1024];
+        int[] brandIds = new int[1024];
+        long[] gtins = new long[1024];
+        int size;
+        final Map<String, Integer> brandIdsByName = new HashMap<>();
+        String[] brandNames = new String[256];
+
+        void add(int fdcId, String brand, long gtin) {
+            if (size == fdcIds.length) {
+                fdcIds = Arrays.copyOf(fdcIds, size * 2);
+                brandIds = Arrays.copyOf(brandIds, size * 2);
+                gtins = Arrays.copyOf(gtins, size * 2);
+            }
+            Integer brandId = brandIdsByName.get(brand);
+            if (brandId == null) {
+                brandId = brandIdsByName.size();
+                brandIdsByName.put(brand, brandId);
+                if (brandId == brandNames.length) {
+                    brandNames = Arrays.copyOf(brandNames, brandId * 2);
+                }
+                brandNames[brandId] = brand;
+            }
+            fdcIds[size] = fdcId;
+            brandIds[size] = brandId;
+            gtins[size] = gtin;
+            size++;
+        }
+
+        void sort() {
+            long[] packed = new long[size];
+            for (int i = 0; i < size; i++) {
+                packed[i] = ((long) fdcIds[i] << 32) | i;
+            }
+            Arrays.sort(packed);
+            int[] sortedIds = new int[size];
+            int[] sortedBrands = new int[size];
+            long[] sortedGtins = new long[size];
+            for (int i = 0; i < size; i++) {
+                int row = (int) packed[i];
+                sortedIds[i] = fdcIds[row];
+                sortedBrands[i] = brandIds[row];
+                sortedGtins[i] = gtins[row];
+            }
+            fdcIds = sortedIds;
+            brandIds = sortedBrands;
+            gtins = sortedGtins;
+        }
+
+        int find(int fdcId) {
+            return size == 0 ? -1 : Arrays.binarySearch(fdcIds, 0, size, fdcId);
+        }
+
+        String brandAt(int row) {
+            String brand = brandNames[brandIds[row]];
+            return brand.isEmpty() ? null : brand;
+        }
+    }
+
+    // Open-addressing map from 64-bit key to ordinal; key 0 is reserved as the empty marker
+    private static final class LongIntMap {
+        private long[] keys = new long[1 << 16];
+        private int[] values = new int[1 << 16];
+        private int size;
+
+        int get(long key) {
+            if (key == 0) key = 1;
+            int mask = keys.length - 1;
+            for (int slot = GtinIndex.hash(key) & mask; keys[slot] != 0; slot = (slot + 1) & mask) {
+                if (keys[slot] == key) return values[slot];
+            }
+            return NOT_KEPT;
+        }
+
+        void put(long key, int value) {
+            if (key == 0) key = 1;
+            int mask = keys.length - 1;
+            int slot = GtinIndex.hash(key) & mask;
+            while (keys[slot] != 0 && keys[slot] != key) {
+                slot = (slot + 1) & mask;
+            }
+            if (keys[slot] == 0) {
+                keys[slot] = key;
+                size++;
+            }
+            values[slot] = value;
+            if (size * 2 > keys.length) {
+                grow();
+            }
+        }
+
+        private void grow() {
+            long[] oldKeys = keys;
+            int[] oldValues = values;
+            keys = new long[oldKeys.length * 2];
+            values = new int[oldKeys.length * 2];
+            int mask = keys.length - 1;
+            for (int i = 0; i < oldKeys.length; i++) {
+                if (oldKeys[i] == 0) continue;
+                int slot = GtinIndex.hash(oldKeys[i]) & mask;
+                while (keys[slot] != 0) {
+                    slot = (slot + 1) & mask;
+                }
+                keys[slot] = oldKeys[i];
+                values[slot] = oldValues[i];
+            }
+        }
+    }
+}
@@ -0,0 +1,146 @@
+package com.example.nutritracker.search;
+
+import android.content.Context;
+import android.util.Log;
+
+import java.io.File;
+import java.io.FileNotFoundException;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+
+/**
+ * Process-wide holder for the on-device {@link LocalFoodIndex} and its {@link GtinIndex}.
+ *
+ * The index lives in the app's files dir. On first use it is copied out of the APK
+ * assets when one is bundled; without either, search simply falls back to the USDA API.
+ * Opening maps the file and reads the header, so call {@link #get} off the main thread.
+ */
+public final class FoodIndexProvider {
+    private static final String TAG = "FoodIndexProvider";
+    public static final String INDEX_FILE_NAME = "food_index.bin";
+    public static final String GTIN_INDEX_FILE_NAME = "gtin_index.bin";
+
+    private static LocalFoodIndex index;
+    private static boolean opened;
+    private static FuzzyMatcher fuzzyMatcher;
+    private static GtinIndex gtinIndex;
+    private static boolean gtinOpened;
+
+    private FoodIndexProvider() {}
+
+    public static synchronized LocalFoodIndex get(Context context) {
+        if (!opened) {
+            opened = true;
+            index = open(context.getApplicationContext());
+        }
+        return index;
+    }
+
+    /**
+     * Barcode lookup table for the current food index, or null when none is available.
+     * Its ordinals are only meaningful together with {@link #get}.
+     */
+    public static synchronized GtinIndex getGtinIndex(Context context) {
+        if (!gtinOpened) {
+            gtinOpened = true;
+            gtinIndex = openGtinIndex(context.getApplicationContext());
+        }
+        return gtinIndex;
+    }
+
+    /**
+     * Spelling corrector over the index vocabulary. Built on first use (tens of ms for a
+     * full index), so call it off the main thread. Without an index it starts empty and
+     * only learns words from remote results.
+     */
+    public static synchronized FuzzyMatcher getFuzzyMatcher(Context context) {
+        if (fuzzyMatcher == null) {
+            long start = System.nanoTime();
+            fuzzyMatcher = FuzzyMatcher.fromIndex(get(context));
+            Log.d(TAG, "Built spelling index with " + fuzzyMatcher.size() + " words in "
+                    + (System.nanoTime() - start) / 1_000_000 + " ms");
+        }
+        return fuzzyMatcher;
+    }
+
+    public static File getIndexFile(Context context) {
+        return new File(context.getApplicationContext().getFilesDir(), INDEX_FILE_NAME);
+    }
+
+    public static File getGtinIndexFile(Context context) {
+        return new File(context.getApplicationContext().getFilesDir(), GTIN_INDEX_FILE_NAME);
+    }
+
+    // Drops the current mapping so the next get() picks up a freshly written index file
+    public static synchronized void invalidate() {
+        index = null;
+        opened = false;
+        fuzzyMatcher = null;
+        gtinIndex = null;
+        gtinOpened = false;
+    }
+
+    private static LocalFoodIndex open(Context context) {
+        File file = getIndexFile(context);
+        if (!file.exists() && !copyFromAssets(context, INDEX_FILE_NAME, file)) {
+            Log.d(TAG, "No local food index available, search will use the USDA API only");
+            return null;
+        }
+
+        try {
+            long start = System.nanoTime();
+            LocalFoodIndex loaded = LocalFoodIndex.open(file);
+            Log.d(TAG, "Opened local food index with " + loaded.size() + " foods in "
+                    + (System.nanoTime() - start) / 1_000_000 + " ms");
+            return loaded;
+        } catch (IOException e) {
+            Log.e(TAG, "Failed to open local food index, deleting it", e);
+            file.delete();
+            return null;
+        }
+    }
+
+    private static GtinIndex openGtinIndex(Context context) {
+        // Without the food index the ordinals point nowhere
+        if (get(context) == null) {
+            return null;
+        }
+        File file = getGtinIndexFile(context);
+        if (!file.exists() && !copyFromAssets(context, GTIN_INDEX_FILE_NAME, file)) {
+            Log.d(TAG, "No local barcode index available, barcode lookups will use the USDA API");
+            return null;
+        }
+
+        try {
+            GtinIndex loaded = GtinIndex.open(file);
+            Log.d(TAG, "Opened local barcode index with " + loaded.size() + " barcodes");
+            return loaded;
+        } catch (IOException e) {
+            Log.e(TAG, "Failed to open local barcode index, deleting it", e);
+            file.delete();
+            return null;
+        }
+    }
+
+    private static boolean copyFromAssets(Context context, String assetName, File target) {
+        File tmp = new File(target.getPath() + ".tmp");
+        try (InputStream in = context.getAssets().open(assetName);
+             OutputStream out = new FileOutputStream(tmp)) {
+            byte[] chunk = new byte[64 * 1024];
+            int read;
+            while ((read = in.read(chunk)) != -1) {
+                out.write(chunk, 0, read);
+            }
+        } catch (FileNotFoundException e) {
+            // No index bundled with this build
+            return false;
+        } catch (IOException e) {
+            Log.e(TAG, "Failed to copy bundled " + assetName, e);
+            tmp.delete();
+            return false;
+        }
+        return tmp.renameTo(target);
+    }
+}
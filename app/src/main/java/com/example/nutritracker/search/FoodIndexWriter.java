@@ -0,0 +1,428 @@
+package com.example.nutritracker.search;
+
+import com.example.nutritracker.FoodItem;
+
+import java.io.Closeable;
+import java.io.File;
+import java.io.IOException;
+import java.io.RandomAccessFile;
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.util.Arrays;
+import java.util.BitSet;
+import java.util.HashMap;
+import java.util.Map;
+
+/**
+ * Builds a {@link LocalFoodIndex} file. Runs at build time or on a background thread
+ * after the bulk download, never on the search path.
+ *
+ * Foods are held column by column (ids, pooled UTF-8 strings, a flat nutrient matrix)
+ * rather than as FoodItem objects, so a full FoodData Central import costs roughly
+ * 100-150 bytes of heap per food. The file is streamed out section by section.
+ */
+public final class FoodIndexWriter {
+
+    private static final int COLUMNS = LocalFoodIndex.NUTRIENT_COLUMNS;
+
+    private final StringPool pool = new StringPool();
+    private final IntList fdcIds = new IntList();
+    private final IntList descOffsets = new IntList();
+    private final IntList brandOffsets = new IntList();
+    private final IntList dataTypeOffsets = new IntList();
+    private long[] gtins = new long[16];
+    private float[] nutrients = new float[16 * COLUMNS];
+    private final BitSet excluded = new BitSet();
+    private int count;
+
+    public void add(FoodItem food) {
+        int ordinal = add(food.getFdcId(), food.getDescription(), food.getBrand(), food.getDataType(),
+                food.getGtinUpc());
+        for (int slot = 0; slot < COLUMNS; slot++) {
+            setNutrient(ordinal, slot, food.getNutrient(slot));
+        }
+    }
+
+    /** Adds a food without nutrients and returns its ordinal for {@link #setNutrient}. */
+    public int add(int fdcId, String description, String brand, String dataType, String gtinUpc) {
+        int ordinal = count++;
+        if (ordinal == gtins.length) {
+            gtins = Arrays.copyOf(gtins, ordinal * 2);
+            nutrients = Arrays.copyOf(nutrients, ordinal * 2 * COLUMNS);
+        }
+        fdcIds.add(fdcId);
+        descOffsets.add(pool.intern(description));
+        brandOffsets.add(brand == null || brand.isEmpty() || brand.equals("Generic")
+                ? LocalFoodIndex.NO_STRING : pool.intern(brand));
+        // A handful of distinct values, so the pool stores each once
+        dataTypeOffsets.add(dataType == null || dataType.isEmpty() ? LocalFoodIndex.NO_STRING : pool.intern(dataType));
+        gtins[ordinal] = GtinIndex.normalize(gtinUpc);
+        return ordinal;
+    }
+
+    public void setNutrient(int ordinal, int slot, double value) {
+        nutrients[ordinal * COLUMNS + slot] = (float) value;
+    }
+
+    public double getNutrient(int ordinal, int slot) {
+        return nutrients[ordinal * COLUMNS + slot];
+    }
+
+    /** Leaves an added food out of the written index. */
+    public void exclude(int ordinal) {
+        excluded.set(ordinal);
+    }
+
+    public boolean isExcluded(int ordinal) {
+        return excluded.get(ordinal);
+    }
+
+    public int size() {
+        return count - excluded.cardinality();
+    }
+
+    public void write(File out) throws IOException {
+        write(out, null);
+    }
+
+    /**
+     * Writes the index to a temp file next to {@code out} and renames it into place,
+     * so a reader never maps a half-written file. When {@code gtinOut} is given, also
+     * writes a {@link GtinIndex} for the foods that carry a barcode; it refers to food
+     * ordinals, so the two files must always be shipped together.
+     */
+    public void write(File out, File gtinOut) throws IOException {
+        // Rank order: shorter descriptions are usually the generic food ("Banana, raw"),
+        // longer ones are preparations and branded variants. Ties keep insertion order
+        int foodCount = size();
+        long[] keys = new long[foodCount];
+        int k = 0;
+        for (int ordinal = excluded.nextClearBit(0); ordinal < count; ordinal = excluded.nextClearBit(ordinal + 1)) {
+            keys[k++] = ((long) pool.length(descOffsets.get(ordinal)) << 32) | ordinal;
+        }
+        Arrays.sort(keys);
+        int[] ranked = new int[foodCount];
+        for (int rank = 0; rank < foodCount; rank++) {
+            ranked[rank] = (int) keys[rank];
+        }
+
+        Map<String, IntList> postingsByToken = new HashMap<>();
+        for (int rank = 0; rank < foodCount; rank++) {
+            String description = pool.get(descOffsets.get(ranked[rank]));
+            for (String token : FoodTokenizer.tokenize(description)) {
+                IntList postings = postingsByToken.get(token);
+                if (postings == null) {
+                    postings = new IntList();
+                    postingsByToken.put(token, postings);
+                }
+                // Ranks arrive in ascending order, so a repeat is always the last element
+                if (postings.isEmpty() || postings.last() != rank) {
+                    postings.add(rank);
+                }
+            }
+        }
+
+        // Tokens are binary searched byte by byte, so sort them by their UTF-8 encoding
+        byte[][] tokens = new byte[postingsByToken.size()][];
+        int t = 0;
+        for (String token : postingsByToken.keySet()) {
+            tokens[t++] = token.getBytes(StandardCharsets.UTF_8);
+        }
+        Arrays.sort(tokens, FoodIndexWriter::compareUnsigned);
+
+        int tokenCount = tokens.length;
+        int[] tokenOffsets = new int[tokenCount];
+        IntList[] tokenPostings = new IntList[tokenCount];
+        int postingCount = 0;
+        for (int i = 0; i < tokenCount; i++) {
+            String token = new String(tokens[i], StandardCharsets.UTF_8);
+            tokenOffsets[i] = pool.intern(token);
+            tokenPostings[i] = postingsByToken.get(token);
+            postingCount += tokenPostings[i].size();
+        }
+
+        // Section layout
+        int fdcIdsOffset = LocalFoodIndex.HEADER_SIZE;
+        int descOffsetsOffset = fdcIdsOffset + 4 * foodCount;
+        int brandOffsetsOffset = descOffsetsOffset + 4 * foodCount;
+        int dataTypeOffsetsOffset = brandOffsetsOffset + 4 * foodCount;
+        int nutrientsOffset = dataTypeOffsetsOffset + 4 * foodCount;
+        int gtinsOffset = nutrientsOffset + 4 * foodCount * COLUMNS;
+        int tokenOffsetsOffset = gtinsOffset + 8 * foodCount;
+        int postingStartsOffset = tokenOffsetsOffset + 4 * tokenCount;
+        int postingsOffset = postingStartsOffset + 4 * (tokenCount + 1);
+        int stringPoolOffset = postingsOffset + 4 * postingCount;
+
+        File tmp = new File(out.getPath() + ".tmp");
+        try (SectionWriter writer = new SectionWriter(tmp)) {
+            writer.putInt(LocalFoodIndex.MAGIC);
+            writer.putInt(LocalFoodIndex.VERSION);
+            writer.putInt(foodCount);
+            writer.putInt(COLUMNS);
+            writer.putInt(tokenCount);
+            writer.putInt(postingCount);
+            writer.putInt(fdcIdsOffset);
+            writer.putInt(descOffsetsOffset);
+            writer.putInt(brandOffsetsOffset);
+            writer.putInt(nutrientsOffset);
+            writer.putInt(tokenOffsetsOffset);
+            writer.putInt(postingStartsOffset);
+            writer.putInt(postingsOffset);
+            writer.putInt(stringPoolOffset);
+            writer.putInt(pool.size());
+            writer.putInt(dataTypeOffsetsOffset);
+            writer.putInt(gtinsOffset);
+            writer.pad(LocalFoodIndex.HEADER_SIZE - 17 * 4);
+
+            for (int ordinal : ranked) writer.putInt(fdcIds.get(ordinal));
+            for (int ordinal : ranked) writer.putInt(descOffsets.get(ordinal));
+            for (int ordinal : ranked) writer.putInt(brandOffsets.get(ordinal));
+            for (int ordinal : ranked) writer.putInt(dataTypeOffsets.get(ordinal));
+            for (int ordinal : ranked) {
+                for (int slot = 0; slot < COLUMNS; slot++) {
+                    writer.putFloat(nutrients[ordinal * COLUMNS + slot]);
+                }
+            }
+            for (int ordinal : ranked) writer.putLong(Math.max(0, gtins[ordinal]));
+            for (int offset : tokenOffsets) writer.putInt(offset);
+            int start = 0;
+            for (IntList postings : tokenPostings) {
+                writer.putInt(start);
+                start += postings.size();
+            }
+            writer.putInt(start);
+            for (IntList postings : tokenPostings) {
+                for (int i = 0; i < postings.size(); i++) writer.putInt(postings.get(i));
+            }
+            pool.writeTo(writer);
+            writer.force();
+        }
+        moveIntoPlace(tmp, out);
+
+        if (gtinOut != null) {
+            writeGtinTable(ranked, gtinOut);
+        }
+    }
+
+    // Open-addressing table, power of two and at most half full; built in a mapped file
+    private void writeGtinTable(int[] ranked, File out) throws IOException {
+        int withGtin = 0;
+        for (int ordinal : ranked) {
+            if (gtins[ordinal] > 0) withGtin++;
+        }
+        int capacity = Integer.highestOneBit(Math.max(2, withGtin * 2 - 1)) << 1;
+        int mask = capacity - 1;
+        long fileSize = GtinIndex.HEADER_SIZE + (long) capacity * GtinIndex.SLOT_SIZE;
+
+        File tmp = new File(out.getPath() + ".tmp");
+        tmp.delete();
+        int stored = 0;
+        try (RandomAccessFile raf = new RandomAccessFile(tmp, "rw");
+             FileChannel channel = raf.getChannel()) {
+            raf.setLength(fileSize);
+            MappedByteBuffer table = channel.map(FileChannel.MapMode.READ_WRITE, 0, fileSize);
+            table.order(ByteOrder.LITTLE_ENDIAN);
+
+            for (int rank = 0; rank < ranked.length; rank++) {
+                long gtin = gtins[ranked[rank]];
+                if (gtin <= 0) continue;
+                int pos;
+                for (int slot = GtinIndex.hash(gtin) & mask; ; slot = (slot + 1) & mask) {
+                    pos = GtinIndex.HEADER_SIZE + slot * GtinIndex.SLOT_SIZE;
+                    long existing = table.getLong(pos);
+                    if (existing == 0 || existing == gtin) break;
+                }
+                // The bulk data has a few duplicate barcodes; keep the best ranked food
+                if (table.getLong(pos) == 0) {
+                    table.putLong(pos, gtin);
+                    table.putInt(pos + 8, rank);
+                    stored++;
+                }
+            }
+            table.putInt(0, GtinIndex.MAGIC);
+            table.putInt(4, GtinIndex.VERSION);
+            table.putInt(8, capacity);
+            table.putInt(12, stored);
+            table.force();
+        }
+        moveIntoPlace(tmp, out);
+    }
+
+    private static void moveIntoPlace(File tmp, File out) throws IOException {
+        if (!tmp.renameTo(out)) {
+            tmp.delete();
+            throw new IOException("Could not move index into place: " + out);
+        }
+    }
+
+    private static int compareUnsigned(byte[] a, byte[] b) {
+        int n = Math.min(a.length, b.length);
+        for (int i = 0; i < n; i++) {
+            int diff = (a[i] & 0xFF) - (b[i] & 0xFF);
+            if (diff != 0) return diff;
+        }
+        return a.length - b.length;
+    }
+
+    // Little-endian output through a fixed 64 KB buffer, so no section is ever fully in memory
+    private static final class SectionWriter implements Closeable {
+        private final RandomAccessFile file;
+        private final FileChannel channel;
+        private final ByteBuffer buffer = ByteBuffer.allocate(64 * 1024).order(ByteOrder.LITTLE_ENDIAN);
+
+        SectionWriter(File target) throws IOException {
+            target.delete();
+            file = new RandomAccessFile(target, "rw");
+            channel = file.getChannel();
+        }
+
+        void putInt(int value) throws IOException {
+            ensure(4);
+            buffer.putInt(value);
+        }
+
+        void putLong(long value) throws IOException {
+            ensure(8);
+            buffer.putLong(value);
+        }
+
+        void putFloat(float value) throws IOException {
+            ensure(4);
+            buffer.putFloat(value);
+        }
+
+        void pad(int bytes) throws IOException {
+            for (int i = 0; i < bytes; i++) {
+                ensure(1);
+                buffer.put((byte) 0);
+            }
+        }
+
+        void put(byte[] bytes, int offset, int length) throws IOException {
+            while (length > 0) {
+                ensure(1);
+                int n = Math.min(length, buffer.remaining());
+                buffer.put(bytes, offset, n);
+                offset += n;
+                length -= n;
+            }
+        }
+
+        void force() throws IOException {
+            flush();
+            channel.force(true);
+        }
+
+        private void ensure(int bytes) throws IOException {
+            if (buffer.remaining() < bytes) {
+                flush();
+            }
+        }
+
+        private void flush() throws IOException {
+            buffer.flip();
+            while (buffer.hasRemaining()) {
+                channel.write(buffer);
+            }
+            buffer.clear();
+        }
+
+        @Override
+        public void close() throws IOException {
+            try {
+                flush();
+            } finally {
+                channel.close();
+                file.close();
+            }
+        }
+    }
+
+    // Deduplicating string pool kept exactly as it is written: u16 length + UTF-8 bytes.
+    // Lookups hash the encoded bytes, so no String object is held per entry
+    private static final class StringPool {
+        private byte[] bytes = new byte[64 * 1024];
+        private int size;
+        private int[] table = new int[1024]; // pool offset + 1, 0 = empty
+        private int entries;
+
+        int intern(String value) {
+            byte[] encoded = value.getBytes(StandardCharsets.UTF_8);
+            int length = Math.min(encoded.length, 0xFFFF);
+            int mask = table.length - 1;
+            int slot = hash(encoded, 0, length) & mask;
+            for (int entry; (entry = table[slot]) != 0; slot = (slot + 1) & mask) {
+                if (equalsAt(entry - 1, encoded, length)) {
+                    return entry - 1;
+                }
+            }
+
+            int offset = size;
+            if (size + 2 + length > bytes.length) {
+                bytes = Arrays.copyOf(bytes, Math.max(bytes.length * 2, size + 2 + length));
+            }
+            bytes[size] = (byte) length;
+            bytes[size + 1] = (byte) (length >>> 8);
+            System.arraycopy(encoded, 0, bytes, size + 2, length);
+            size += 2 + length;
+
+            table[slot] = offset + 1;
+            if (++entries * 2 > table.length) {
+                rehash();
+            }
+            return offset;
+        }
+
+        int length(int offset) {
+            return (bytes[offset] & 0xFF) | (bytes[offset + 1] & 0xFF) << 8;
+        }
+
+        String get(int offset) {
+            return new String(bytes, offset + 2, length(offset), StandardCharsets.UTF_8);
+        }
+
+        int size() {
+            return size;
+        }
+
+        void writeTo(SectionWriter writer) throws IOException {
+            writer.put(bytes, 0, size);
+        }
+
+        private boolean equalsAt(int offset, byte[] encoded, int length) {
+            if (length(offset) != length) {
+                return false;
+            }
+            for (int i = 0; i < length; i++) {
+                if (bytes[offset + 2 + i] != encoded[i]) return false;
+            }
+            return true;
+        }
+
+        private void rehash() {
+            int[] old = table;
+            table = new int[old.length * 2];
+            int mask = table.length - 1;
+            for (int entry : old) {
+                if (entry == 0) continue;
+                int offset = entry - 1;
+                int slot = hash(bytes, offset + 2, length(offset)) & mask;
+                while (table[slot] != 0) {
+                    slot = (slot + 1) & mask;
+                }
+                table[slot] = entry;
+            }
+        }
+
+        private static int hash(byte[] data, int from, int length) {
+            int h = 0x811C9DC5; // FNV-1a
+            for (int i = from; i < from + length; i++) {
+                h = (h ^ (data[i] & 0xFF)) * 0x01000193;
+            }
+            return h ^ (h >>> 16);
+        }
+    }
+}
@@ -0,0 +1,39 @@
+package com.example.nutritracker.search;
+
+import com.example.nutritracker.FoodItem;
+import com.example.nutritracker.Nutrients;
+
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.IOException;
+
+// Binary form of a FoodItem shared by the on-disk caches. Optional strings are written as ""
+final class FoodItemCodec {
+
+    private FoodItemCodec() {}
+
+    static void write(DataOutputStream out, FoodItem item) throws IOException {
+        out.writeInt(item.getFdcId());
+        out.writeUTF(item.getDescription());
+        out.writeUTF(item.getBrand() != null ? item.getBrand() : "");
+        out.writeUTF(item.getDataType() != null ? item.getDataType() : "");
+        out.writeUTF(item.getGtinUpc() != null ? item.getGtinUpc() : "");
+        for (int n = 0; n < Nutrients.COUNT; n++) {
+            out.writeDouble(item.getNutrient(n));
+        }
+    }
+
+    static FoodItem read(DataInputStream in) throws IOException {
+        int fdcId = in.readInt();
+        String description = in.readUTF();
+        String brand = in.readUTF();
+        String dataType = in.readUTF();
+        String gtinUpc = in.readUTF();
+        double[] nutrients = new double[Nutrients.COUNT];
+        for (int n = 0; n < Nutrients.COUNT; n++) {
+            nutrients[n] = in.readDouble();
+        }
+        return new FoodItem(fdcId, description, brand.isEmpty() ? "Generic" : brand,
+                dataType.isEmpty() ? null : dataType, gtinUpc.isEmpty() ? null : gtinUpc, nutrients);
+    }
+}
@@ -0,0 +1,106 @@
+package com.example.nutritracker.search;
+
+import com.example.nutritracker.FoodItem;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+
+/**
+ * Re-ranks food search results against the typed query.
+ *
+ * Each result is scored on how well its description covers the query words (exact,
+ * prefix or within a small edit distance), how much of the description the query
+ * accounts for ("Banana, raw" beats "Banana cream pie filling" for "banana"), and its
+ * data type, with USDA reference foods ahead of branded label data. Ties keep their
+ * original order.
+ */
+public final class FoodRanker {
+
+    private static final double COVERAGE_WEIGHT = 0.65;
+    private static final double OVERLAP_WEIGHT = 0.2;
+    private static final double LEADING_WORD_BONUS = 0.05;
+
+    private FoodRanker() {}
+
+    public static List<FoodItem> rank(String query, List<FoodItem> items) {
+        List<String> queryTokens = FoodTokenizer.tokenize(query);
+        if (queryTokens.isEmpty() || items.size() < 2) {
+            return items;
+        }
+
+        int n = items.size();
+        double[] scores = new double[n];
+        Integer[] order = new Integer[n];
+        for (int i = 0; i < n; i++) {
+            scores[i] = score(queryTokens, items.get(i));
+            order[i] = i;
+        }
+        // Arrays.sort on objects is stable, so equal scores keep their incoming order
+        Arrays.sort(order, (a, b) -> Double.compare(scores[b], scores[a]));
+
+        List<FoodItem> ranked = new ArrayList<>(n);
+        for (Integer i : order) {
+            ranked.add(items.get(i));
+        }
+        return Collections.unmodifiableList(ranked);
+    }
+
+    static double score(List<String> queryTokens, FoodItem item) {
+        List<String> descTokens = FoodTokenizer.tokenize(item.getDescription());
+        if (descTokens.isEmpty()) {
+            return 0;
+        }
+
+        double coverage = 0;
+        int matchedWords = 0;
+        for (String queryToken : queryTokens) {
+            double best = 0;
+            for (String descToken : descTokens) {
+                best = Math.max(best, tokenSimilarity(queryToken, descToken));
+                if (best == 1) break;
+            }
+            coverage += best;
+            if (best > 0) matchedWords++;
+        }
+        coverage /= queryTokens.size();
+        double overlap = (double) matchedWords / descTokens.size();
+        double leading = tokenSimilarity(queryTokens.get(0), descTokens.get(0)) > 0 ? LEADING_WORD_BONUS : 0;
+
+        return COVERAGE_WEIGHT * coverage + OVERLAP_WEIGHT * overlap + leading + dataTypeBonus(item);
+    }
+
+    // 1 for an exact match, slightly less for a prefix, less again per edit
+    static double tokenSimilarity(String queryToken, String descToken) {
+        if (queryToken.equals(descToken)) {
+            return 1;
+        }
+        if (descToken.startsWith(queryToken)) {
+            return 0.9;
+        }
+        int maxEdits = FuzzyMatcher.maxEdits(queryToken.length());
+        if (maxEdits == 0) {
+            return 0;
+        }
+        int distance = FuzzyMatcher.editDistance(queryToken, descToken, maxEdits);
+        return distance <= maxEdits ? 0.8 - 0.2 * distance : 0;
+    }
+
+    private static double dataTypeBonus(FoodItem item) {
+        String dataType = item.getDataType();
+        if (dataType == null) {
+            return item.isBranded() ? 0 : 0.08;
+        }
+        switch (dataType) {
+            case "Foundation":
+                return 0.1;
+            case "SR Legacy":
+                return 0.09;
+            case "Survey (FNDDS)":
+                return 0.07;
+            default:
+                return 0;
+        }
+    }
+}
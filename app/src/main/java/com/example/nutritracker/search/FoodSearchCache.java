@@ -0,0 +1,260 @@
+package com.example.nutritracker.search;
+
+import android.content.Context;
+import android.util.Log;
+import android.util.LruCache;
+
+import com.example.nutritracker.FoodItem;
+
+import java.io.BufferedInputStream;
+import java.io.BufferedOutputStream;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.File;
+import java.io.FileInputStream;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Two-tier cache for food search results: an in-memory LRU in front of a size-bounded
+ * directory in the app's cache dir. Keys are normalized queries, so "Banana ",
+ * "banana" and "BANANA" share one entry.
+ *
+ * Entries younger than {@link #TTL_MS} are fresh. Older entries are still returned for
+ * up to {@link #STALE_WHILE_REVALIDATE_MS} but flagged stale, so the caller can render
+ * them immediately and refresh in the background.
+ *
+ * Disk access happens on the calling thread; call get/put from a worker thread.
+ */
+public final class FoodSearchCache {
+    private static final String TAG = "FoodSearchCache";
+    private static final String DIR_NAME = "food_search";
+    private static final int FORMAT_VERSION = 5;
+
+    static final long TTL_MS = TimeUnit.HOURS.toMillis(24);
+    static final long STALE_WHILE_REVALIDATE_MS = TimeUnit.DAYS.toMillis(7);
+    private static final int MEMORY_ENTRIES = 64;
+    private static final long MAX_DISK_BYTES = 2 * 1024 * 1024;
+
+    private static FoodSearchCache instance;
+
+    private final LruCache<String, Entry> memory = new LruCache<>(MEMORY_ENTRIES);
+    private final File directory;
+    private final Object diskLock = new Object();
+
+    private final AtomicLong memoryHits = new AtomicLong();
+    private final AtomicLong diskHits = new AtomicLong();
+    private final AtomicLong staleHits = new AtomicLong();
+    private final AtomicLong misses = new AtomicLong();
+
+    public static synchronized FoodSearchCache getInstance(Context context) {
+        if (instance == null) {
+            instance = new FoodSearchCache(new File(context.getApplicationContext().getCacheDir(), DIR_NAME));
+        }
+        return instance;
+    }
+
+    private FoodSearchCache(File directory) {
+        this.directory = directory;
+    }
+
+    public static final class Lookup {
+        private final List<FoodItem> items;
+        private final String pagingQuery;
+        private final boolean stale;
+
+        Lookup(List<FoodItem> items, String pagingQuery, boolean stale) {
+            this.items = items;
+            this.pagingQuery = pagingQuery;
+            this.stale = stale;
+        }
+
+        public List<FoodItem> getItems() { return items; }
+        // What later pages are fetched with, e.g. the corrected spelling; null for the query itself
+        public String getPagingQuery() { return pagingQuery; }
+        public boolean isStale() { return stale; }
+    }
+
+    private static final class Entry {
+        final long storedAt;
+        final List<FoodItem> items;
+        final String pagingQuery;
+
+        Entry(long storedAt, List<FoodItem> items, String pagingQuery) {
+            this.storedAt = storedAt;
+            this.items = items;
+            this.pagingQuery = pagingQuery;
+        }
+    }
+
+    public static String normalize(String query) {
+        return String.join(" ", FoodTokenizer.tokenize(query));
+    }
+
+    private static String cacheKey(String query, int page) {
+        return normalize(query) + "#" + page;
+    }
+
+    /** Returns cached results for one page of a query, or null on a miss or an expired entry. */
+    public Lookup get(String query, int page) {
+        String key = cacheKey(query, page);
+        long now = System.currentTimeMillis();
+
+        Entry entry = memory.get(key);
+        if (entry != null) {
+            memoryHits.incrementAndGet();
+        } else {
+            entry = readFromDisk(key);
+            if (entry != null) {
+                diskHits.incrementAndGet();
+                memory.put(key, entry);
+            }
+        }
+
+        if (entry == null) {
+            misses.incrementAndGet();
+            return null;
+        }
+
+        long age = now - entry.storedAt;
+        if (age > TTL_MS + STALE_WHILE_REVALIDATE_MS) {
+            // Too old to show at all
+            memory.remove(key);
+            misses.incrementAndGet();
+            return null;
+        }
+        boolean stale = age > TTL_MS;
+        if (stale) {
+            staleHits.incrementAndGet();
+        }
+        return new Lookup(entry.items, entry.pagingQuery, stale);
+    }
+
+    public void put(String query, int page, List<FoodItem> items) {
+        put(query, page, items, null);
+    }
+
+    /** Also remembers the query later pages are fetched with, when it isn't the key query. */
+    public void put(String query, int page, List<FoodItem> items, String pagingQuery) {
+        if (normalize(query).isEmpty()) {
+            return;
+        }
+        String key = cacheKey(query, page);
+        Entry entry = new Entry(System.currentTimeMillis(), Collections.unmodifiableList(new ArrayList<>(items)),
+                pagingQuery);
+        memory.put(key, entry);
+        writeToDisk(key, entry);
+    }
+
+    public String getStats() {
+        return "memoryHits=" + memoryHits.get()
+                + ", diskHits=" + diskHits.get()
+                + ", staleHits=" + staleHits.get()
+                + ", misses=" + misses.get();
+    }
+
+    public long getHitCount() {
+        return memoryHits.get() + diskHits.get();
+    }
+
+    public long getMissCount() {
+        return misses.get();
+    }
+
+    // --- Disk tier ---
+
+    private File fileFor(String key) {
+        // The key itself is stored in the file, so a hash collision just reads as a miss
+        return new File(directory, Integer.toHexString(key.hashCode()) + ".bin");
+    }
+
+    private Entry readFromDisk(String key) {
+        synchronized (diskLock) {
+            File file = fileFor(key);
+            if (!file.exists()) {
+                return null;
+            }
+            try (DataInputStream in = new DataInputStream(new BufferedInputStream(new FileInputStream(file)))) {
+                if (in.readInt() != FORMAT_VERSION || !in.readUTF().equals(key)) {
+                    return null;
+                }
+                long storedAt = in.readLong();
+                String pagingQuery = in.readBoolean() ? in.readUTF() : null;
+                int count = in.readInt();
+                List<FoodItem> items = new ArrayList<>(count);
+                for (int i = 0; i < count; i++) {
+                    items.add(FoodItemCodec.read(in));
+                }
+                // Touch the file so eviction treats it as recently used
+                file.setLastModified(System.currentTimeMillis());
+                return new Entry(storedAt, Collections.unmodifiableList(items), pagingQuery);
+            } catch (IOException e) {
+                Log.w(TAG, "Dropping unreadable cache file " + file.getName(), e);
+                file.delete();
+                return null;
+            }
+        }
+    }
+
+    private void writeToDisk(String key, Entry entry) {
+        synchronized (diskLock) {
+            if (!directory.exists() && !directory.mkdirs()) {
+                Log.w(TAG, "Could not create cache directory");
+                return;
+            }
+            File file = fileFor(key);
+            File tmp = new File(directory, file.getName() + ".tmp");
+            try (DataOutputStream out = new DataOutputStream(new BufferedOutputStream(new FileOutputStream(tmp)))) {
+                out.writeInt(FORMAT_VERSION);
+                out.writeUTF(key);
+                out.writeLong(entry.storedAt);
+                out.writeBoolean(entry.pagingQuery != null);
+                if (entry.pagingQuery != null) {
+                    out.writeUTF(entry.pagingQuery);
+                }
+                out.writeInt(entry.items.size());
+                for (FoodItem item : entry.items) {
+                    FoodItemCodec.write(out, item);
+                }
+            } catch (IOException e) {
+                Log.w(TAG, "Failed to write cache entry for '" + key + "'", e);
+                tmp.delete();
+                return;
+            }
+            if (!tmp.renameTo(file)) {
+                tmp.delete();
+                return;
+            }
+            trimDisk();
+        }
+    }
+
+    // Evicts least recently used files until the directory fits in MAX_DISK_BYTES
+    private void trimDisk() {
+        File[] files = directory.listFiles();
+        if (files == null) {
+            return;
+        }
+        long total = 0;
+        for (File file : files) {
+            total += file.length();
+        }
+        if (total <= MAX_DISK_BYTES) {
+            return;
+        }
+        Arrays.sort(files, (a, b) -> Long.compare(a.lastModified(), b.lastModified()));
+        for (File file : files) {
+            if (total <= MAX_DISK_BYTES) {
+                break;
+            }
+            total -= file.length();
+            file.delete();
+        }
+    }
+}
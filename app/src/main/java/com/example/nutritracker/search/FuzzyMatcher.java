@@ -0,0 +1,246 @@
+package com.example.nutritracker.search;
+
+import com.example.nutritracker.FoodItem;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Spelling correction over the words of the food corpus ("chiken brest" -> "chicken breast").
+ *
+ * Every known word is indexed by its padded character trigrams. A misspelled query word
+ * looks up its own trigrams, counts how many each word shares, and only the words that
+ * share enough (and have a close enough length) are checked with a bounded edit
+ * distance. That keeps a lookup to a few posting lists plus a handful of distance
+ * computations, regardless of how large the vocabulary is.
+ *
+ * The vocabulary starts from the local index and grows with words seen in remote and
+ * cached results. Methods are synchronized; call them from a worker thread.
+ */
+public final class FuzzyMatcher {
+
+    private final Map<String, Integer> wordIds = new HashMap<>();
+    private final List<String> words = new ArrayList<>();
+    private int[] frequencies = new int[1024];
+    private final Map<String, IntList> trigramPostings = new HashMap<>();
+
+    // Sorted copy of the vocabulary for prefix checks, rebuilt lazily after additions
+    private String[] sortedWords = new String[0];
+    private boolean sortedDirty;
+
+    // Scratch space reused across lookups
+    private int[] sharedCounts = new int[1024];
+    private final IntList touched = new IntList();
+
+    public static FuzzyMatcher fromIndex(LocalFoodIndex index) {
+        FuzzyMatcher matcher = new FuzzyMatcher();
+        if (index != null) {
+            for (int t = 0; t < index.getTokenCount(); t++) {
+                matcher.addWord(index.getToken(t), index.getTokenFrequency(t));
+            }
+        }
+        return matcher;
+    }
+
+    public synchronized int size() {
+        return words.size();
+    }
+
+    public synchronized void addFoods(List<FoodItem> foods) {
+        for (FoodItem food : foods) {
+            for (String token : FoodTokenizer.tokenize(food.getDescription())) {
+                addWord(token, 1);
+            }
+        }
+    }
+
+    public synchronized void addWord(String word, int frequency) {
+        if (!isCorrectable(word)) {
+            return;
+        }
+        Integer existing = wordIds.get(word);
+        if (existing != null) {
+            frequencies[existing] += frequency;
+            return;
+        }
+
+        int id = words.size();
+        words.add(word);
+        wordIds.put(word, id);
+        if (id == frequencies.length) {
+            frequencies = Arrays.copyOf(frequencies, id * 2);
+        }
+        frequencies[id] = frequency;
+
+        for (String trigram : trigrams(word)) {
+            IntList postings = trigramPostings.get(trigram);
+            if (postings == null) {
+                postings = new IntList();
+                trigramPostings.put(trigram, postings);
+            }
+            // The same trigram can appear twice in one word ("banana"); post it once
+            if (postings.isEmpty() || postings.last() != id) {
+                postings.add(id);
+            }
+        }
+        sortedDirty = true;
+    }
+
+    /**
+     * Returns the query with each unknown word replaced by its closest known word, or null
+     * when nothing needed correcting. Words that are a prefix of a known word are left
+     * alone, since they are most likely still being typed.
+     */
+    public synchronized String suggest(String query) {
+        List<String> tokens = FoodTokenizer.tokenize(query);
+        boolean changed = false;
+        List<String> corrected = new ArrayList<>(tokens.size());
+        for (String token : tokens) {
+            String replacement = null;
+            if (isCorrectable(token) && !wordIds.containsKey(token) && !isPrefixOfKnownWord(token)) {
+                replacement = correct(token);
+            }
+            if (replacement != null) {
+                corrected.add(replacement);
+                changed = true;
+            } else {
+                corrected.add(token);
+            }
+        }
+        return changed ? String.join(" ", corrected) : null;
+    }
+
+    /** Closest known word within {@link #maxEdits} of the given word, or null. */
+    public synchronized String correct(String word) {
+        int maxEdits = maxEdits(word.length());
+        if (maxEdits == 0 || words.isEmpty()) {
+            return null;
+        }
+
+        List<String> queryTrigrams = trigrams(word);
+        if (sharedCounts.length < words.size()) {
+            sharedCounts = new int[Math.max(words.size(), sharedCounts.length * 2)];
+        }
+        touched.clear();
+        for (String trigram : queryTrigrams) {
+            IntList postings = trigramPostings.get(trigram);
+            if (postings == null) continue;
+            for (int i = 0; i < postings.size(); i++) {
+                int id = postings.get(i);
+                if (sharedCounts[id]++ == 0) {
+                    touched.add(id);
+                }
+            }
+        }
+
+        // A substitution, insertion or deletion breaks at most three trigrams and an adjacent
+        // transposition four, so closer words must share at least this many
+        int minShared = Math.max(1, queryTrigrams.size() - 4 * maxEdits);
+
+        String best = null;
+        int bestDistance = maxEdits + 1;
+        int bestFrequency = -1;
+        for (int i = 0; i < touched.size(); i++) {
+            int id = touched.get(i);
+            int shared = sharedCounts[id];
+            sharedCounts[id] = 0;
+            if (shared < minShared) continue;
+
+            String candidate = words.get(id);
+            if (Math.abs(candidate.length() - word.length()) > maxEdits) continue;
+
+            int distance = editDistance(word, candidate, Math.min(maxEdits, bestDistance));
+            if (distance < bestDistance || (distance == bestDistance && frequencies[id] > bestFrequency)) {
+                best = candidate;
+                bestDistance = distance;
+                bestFrequency = frequencies[id];
+            }
+        }
+        return bestDistance <= maxEdits ? best : null;
+    }
+
+    // Short words have too many close neighbours to correct reliably
+    static int maxEdits(int length) {
+        if (length <= 3) return 0;
+        if (length <= 6) return 1;
+        return 2;
+    }
+
+    /**
+     * Optimal string alignment distance (Levenshtein plus adjacent transpositions), or
+     * {@code max + 1} as soon as the distance is known to exceed {@code max}.
+     */
+    static int editDistance(String a, String b, int max) {
+        int n = a.length();
+        int m = b.length();
+        if (Math.abs(n - m) > max) {
+            return max + 1;
+        }
+        int[] prevPrev = new int[m + 1];
+        int[] prev = new int[m + 1];
+        int[] current = new int[m + 1];
+        for (int j = 0; j <= m; j++) {
+            prev[j] = j;
+        }
+        for (int i = 1; i <= n; i++) {
+            current[0] = i;
+            int rowMin = current[0];
+            char ca = a.charAt(i - 1);
+            for (int j = 1; j <= m; j++) {
+                char cb = b.charAt(j - 1);
+                int cost = ca == cb ? 0 : 1;
+                int value = Math.min(Math.min(prev[j] + 1, current[j - 1] + 1), prev[j - 1] + cost);
+                if (i > 1 && j > 1 && ca == b.charAt(j - 2) && a.charAt(i - 2) == cb) {
+                    value = Math.min(value, prevPrev[j - 2] + 1);
+                }
+                current[j] = value;
+                rowMin = Math.min(rowMin, value);
+            }
+            if (rowMin > max) {
+                return max + 1;
+            }
+            int[] recycled = prevPrev;
+            prevPrev = prev;
+            prev = current;
+            current = recycled;
+        }
+        return Math.min(prev[m], max + 1);
+    }
+
+    private boolean isPrefixOfKnownWord(String prefix) {
+        if (sortedDirty) {
+            sortedWords = words.toArray(new String[0]);
+            Arrays.sort(sortedWords);
+            sortedDirty = false;
+        }
+        int pos = Arrays.binarySearch(sortedWords, prefix);
+        int insertion = pos >= 0 ? pos : -pos - 1;
+        return insertion < sortedWords.length && sortedWords[insertion].startsWith(prefix);
+    }
+
+    // Numbers, codes and single letters are never corrected
+    private static boolean isCorrectable(String word) {
+        if (word.length() < 2) {
+            return false;
+        }
+        for (int i = 0; i < word.length(); i++) {
+            if (Character.isDigit(word.charAt(i))) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    // Trigrams of the word padded with '$', so "egg" gives "$eg", "egg", "gg$"
+    private static List<String> trigrams(String word) {
+        String padded = "$" + word + "$";
+        List<String> result = new ArrayList<>(padded.length() - 2);
+        for (int i = 0; i + 3 <= padded.length(); i++) {
+            result.add(padded.substring(i, i + 3));
+        }
+        return result;
+    }
+}
@@ -0,0 +1,120 @@
+package com.example.nutritracker.search;
+
+import java.io.File;
+import java.io.IOException;
+import java.io.RandomAccessFile;
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+import java.nio.channels.FileChannel;
+
+/**
+ * Read-only, memory-mapped hash table from barcode (UPC/EAN/GTIN) to a food ordinal in
+ * the {@link LocalFoodIndex} it was written with. Built by {@link FoodIndexWriter}.
+ *
+ * Layout (little endian):
+ *   header   32 bytes: magic, version, capacity (power of two), count
+ *   slots    capacity * 12 bytes: long gtin (0 = empty), int food ordinal
+ *
+ * Barcodes are normalized to GTIN-14, so "012345678905" (UPC-A) and "0012345678905"
+ * (EAN-13) are the same key. Linear probing at a load factor of at most 0.5 keeps a
+ * lookup to one or two slot reads.
+ */
+public final class GtinIndex {
+
+    static final int MAGIC = 0x4E544749; // "NTGI"
+    static final int VERSION = 1;
+    static final int HEADER_SIZE = 32;
+    static final int SLOT_SIZE = 12;
+
+    public static final int NOT_FOUND = -1;
+
+    private static final int MIN_DIGITS = 8;
+    private static final int MAX_DIGITS = 14;
+
+    private final ByteBuffer buffer;
+    private final int mask;
+    private final int count;
+
+    private GtinIndex(ByteBuffer buffer) throws IOException {
+        this.buffer = buffer;
+        if (buffer.limit() < HEADER_SIZE || buffer.getInt(0) != MAGIC) {
+            throw new IOException("Not a GTIN index file");
+        }
+        int version = buffer.getInt(4);
+        if (version != VERSION) {
+            throw new IOException("Unsupported GTIN index version: " + version);
+        }
+        int capacity = buffer.getInt(8);
+        if (Integer.bitCount(capacity) != 1 || HEADER_SIZE + (long) capacity * SLOT_SIZE > buffer.limit()) {
+            throw new IOException("Corrupt GTIN index header");
+        }
+        mask = capacity - 1;
+        count = buffer.getInt(12);
+    }
+
+    public static GtinIndex open(File file) throws IOException {
+        try (RandomAccessFile raf = new RandomAccessFile(file, "r");
+             FileChannel channel = raf.getChannel()) {
+            ByteBuffer mapped = channel.map(FileChannel.MapMode.READ_ONLY, 0, channel.size());
+            mapped.order(ByteOrder.LITTLE_ENDIAN);
+            return new GtinIndex(mapped);
+        }
+    }
+
+    public int size() {
+        return count;
+    }
+
+    /** Food ordinal for the barcode, or {@link #NOT_FOUND}. */
+    public int find(String barcode) {
+        long gtin = normalize(barcode);
+        if (gtin <= 0) {
+            return NOT_FOUND;
+        }
+        for (int slot = hash(gtin) & mask; ; slot = (slot + 1) & mask) {
+            int pos = HEADER_SIZE + slot * SLOT_SIZE;
+            long stored = buffer.getLong(pos);
+            if (stored == gtin) {
+                return buffer.getInt(pos + 8);
+            }
+            if (stored == 0) {
+                return NOT_FOUND;
+            }
+        }
+    }
+
+    /** True for 8 to 14 digits, optionally separated by spaces or dashes as printed on packs. */
+    public static boolean isBarcode(String text) {
+        return normalize(text) > 0;
+    }
+
+    /** The barcode as a GTIN-14 number, or -1 if it isn't one. */
+    public static long normalize(String text) {
+        if (text == null) {
+            return -1;
+        }
+        long value = 0;
+        int digits = 0;
+        for (int i = 0; i < text.length(); i++) {
+            char c = text.charAt(i);
+            if (c >= '0' && c <= '9') {
+                if (++digits > MAX_DIGITS) return -1;
+                value = value * 10 + (c - '0');
+            } else if (c != ' ' && c != '-') {
+                return -1;
+            }
+        }
+        // Left-padding with zeros doesn't change the number, so every length maps onto GTIN-14
+        return digits >= MIN_DIGITS && value > 0 ? value : -1;
+    }
+
+    static int hash(long gtin) {
+        // MurmurHash3 finalizer; barcodes share long prefixes, so spread the low bits
+        gtin ^= gtin >>> 33;
+        gtin *= 0xff51afd7ed558ccdL;
+        gtin ^= gtin >>> 33;
+        gtin *= 0xc4ceb9fe1a85ec53L;
+        gtin ^= gtin >>> 33;
+        return (int) gtin;
+    }
+}
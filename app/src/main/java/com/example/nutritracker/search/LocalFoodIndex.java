@@ -0,0 +1,232 @@
+package com.example.nutritracker.search;
+
+import com.example.nutritracker.FoodItem;
+import com.example.nutritracker.Nutrients;
+
+import java.io.File;
+import java.io.IOException;
+import java.io.RandomAccessFile;
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.BitSet;
+import java.util.Collections;
+import java.util.List;
+
+/**
+ * Read-only, memory-mapped food index built from the FoodData Central bulk download.
+ *
+ * Layout (little endian, all offsets are absolute file positions unless noted):
+ *   header            128 bytes: counts, then the offset of every section
+ *   fdcIds            int[foodCount]
+ *   descOffsets       int[foodCount]   string pool offsets
+ *   brandOffsets      int[foodCount]   string pool offsets, -1 when the food has no brand
+ *   dataTypeOffsets   int[foodCount]   string pool offsets, -1 when unknown
+ *   nutrients         float[foodCount * nutrientCount], per 100 g, row per food,
+ *                     columns in Nutrients slot order
+ *   gtins             long[foodCount]  GTIN-14 numbers, 0 when the food has no barcode
+ *   tokenOffsets      int[tokenCount]  string pool offsets, tokens sorted by UTF-8 bytes
+ *   postingStarts     int[tokenCount + 1]
+ *   postings          int[postingCount] food ordinals, ascending within a token
+ *   stringPool        u16 length + UTF-8 bytes per string
+ *
+ * Foods are stored in rank order (see {@link FoodIndexWriter}), so the first matches
+ * are also the best ones and a search can stop as soon as it has enough results.
+ * Everything is read with absolute gets, so one instance can be shared across threads.
+ */
+public final class LocalFoodIndex {
+
+    static final int MAGIC = 0x4E544649; // "NTFI"
+    static final int VERSION = 2;
+    static final int HEADER_SIZE = 128;
+
+    // Nutrient columns use the Nutrients slot layout; a file with any other count is rejected
+    static final int NUTRIENT_COLUMNS = Nutrients.COUNT;
+
+    static final int NO_STRING = -1;
+
+    private final ByteBuffer buffer;
+    private final int foodCount;
+    private final int nutrientCount;
+    private final int tokenCount;
+    private final int fdcIdsOffset;
+    private final int descOffsetsOffset;
+    private final int brandOffsetsOffset;
+    private final int dataTypeOffsetsOffset;
+    private final int nutrientsOffset;
+    private final int gtinsOffset;
+    private final int tokenOffsetsOffset;
+    private final int postingStartsOffset;
+    private final int postingsOffset;
+    private final int stringPoolOffset;
+
+    private LocalFoodIndex(ByteBuffer buffer) throws IOException {
+        this.buffer = buffer;
+
+        if (buffer.limit() < HEADER_SIZE || buffer.getInt(0) != MAGIC) {
+            throw new IOException("Not a food index file");
+        }
+        int version = buffer.getInt(4);
+        if (version != VERSION) {
+            throw new IOException("Unsupported food index version: " + version);
+        }
+
+        foodCount = buffer.getInt(8);
+        nutrientCount = buffer.getInt(12);
+        tokenCount = buffer.getInt(16);
+        fdcIdsOffset = buffer.getInt(24);
+        descOffsetsOffset = buffer.getInt(28);
+        brandOffsetsOffset = buffer.getInt(32);
+        nutrientsOffset = buffer.getInt(36);
+        tokenOffsetsOffset = buffer.getInt(40);
+        postingStartsOffset = buffer.getInt(44);
+        postingsOffset = buffer.getInt(48);
+        stringPoolOffset = buffer.getInt(52);
+        dataTypeOffsetsOffset = buffer.getInt(60);
+        gtinsOffset = buffer.getInt(64);
+
+        if (nutrientCount != NUTRIENT_COLUMNS || stringPoolOffset + buffer.getInt(56) > buffer.limit()) {
+            throw new IOException("Corrupt food index header");
+        }
+    }
+
+    public static LocalFoodIndex open(File file) throws IOException {
+        try (RandomAccessFile raf = new RandomAccessFile(file, "r");
+             FileChannel channel = raf.getChannel()) {
+            // The mapping stays valid after the channel is closed
+            ByteBuffer mapped = channel.map(FileChannel.MapMode.READ_ONLY, 0, channel.size());
+            mapped.order(ByteOrder.LITTLE_ENDIAN);
+            return new LocalFoodIndex(mapped);
+        }
+    }
+
+    public int size() {
+        return foodCount;
+    }
+
+    /**
+     * Returns up to {@code limit} foods whose description contains every query token
+     * as a word prefix, e.g. "chick bre" matches "Chicken, breast, roasted".
+     */
+    public List<FoodItem> search(String query, int limit) {
+        List<String> tokens = FoodTokenizer.tokenize(query);
+        if (tokens.isEmpty() || limit <= 0) {
+            return Collections.emptyList();
+        }
+
+        BitSet matches = null;
+        for (String token : tokens) {
+            BitSet hits = postingsForPrefix(token.getBytes(StandardCharsets.UTF_8));
+            if (matches == null) {
+                matches = hits;
+            } else {
+                matches.and(hits);
+            }
+            if (matches.isEmpty()) {
+                return Collections.emptyList();
+            }
+        }
+
+        List<FoodItem> results = new ArrayList<>(Math.min(limit, matches.cardinality()));
+        for (int ordinal = matches.nextSetBit(0);
+             ordinal >= 0 && results.size() < limit;
+             ordinal = matches.nextSetBit(ordinal + 1)) {
+            results.add(getFood(ordinal));
+        }
+        return results;
+    }
+
+    public FoodItem getFood(int ordinal) {
+        int fdcId = buffer.getInt(fdcIdsOffset + 4 * ordinal);
+        String description = readString(buffer.getInt(descOffsetsOffset + 4 * ordinal));
+        int brandOffset = buffer.getInt(brandOffsetsOffset + 4 * ordinal);
+        String brand = brandOffset == NO_STRING ? "Generic" : readString(brandOffset);
+        int dataTypeOffset = buffer.getInt(dataTypeOffsetsOffset + 4 * ordinal);
+        String dataType = dataTypeOffset == NO_STRING ? null : readString(dataTypeOffset);
+        long gtin = buffer.getLong(gtinsOffset + 8 * ordinal);
+        String gtinUpc = gtin > 0 ? Long.toString(gtin) : null;
+
+        double[] nutrients = new double[Nutrients.COUNT];
+        int row = nutrientsOffset + 4 * ordinal * nutrientCount;
+        for (int i = 0; i < nutrientCount; i++) {
+            nutrients[i] = buffer.getFloat(row + 4 * i);
+        }
+
+        return new FoodItem(fdcId, description, brand, dataType, gtinUpc, nutrients);
+    }
+
+    // --- Token vocabulary, for spelling correction ---
+
+    public int getTokenCount() {
+        return tokenCount;
+    }
+
+    public String getToken(int token) {
+        return readString(buffer.getInt(tokenOffsetsOffset + 4 * token));
+    }
+
+    // Number of foods whose description contains the token
+    public int getTokenFrequency(int token) {
+        return buffer.getInt(postingStartsOffset + 4 * (token + 1)) - buffer.getInt(postingStartsOffset + 4 * token);
+    }
+
+    private BitSet postingsForPrefix(byte[] prefix) {
+        BitSet hits = new BitSet(foodCount);
+        for (int t = lowerBound(prefix); t < tokenCount && tokenStartsWith(t, prefix); t++) {
+            int start = buffer.getInt(postingStartsOffset + 4 * t);
+            int end = buffer.getInt(postingStartsOffset + 4 * (t + 1));
+            for (int p = start; p < end; p++) {
+                hits.set(buffer.getInt(postingsOffset + 4 * p));
+            }
+        }
+        return hits;
+    }
+
+    // First token that sorts at or after the given bytes
+    private int lowerBound(byte[] key) {
+        int lo = 0;
+        int hi = tokenCount;
+        while (lo < hi) {
+            int mid = (lo + hi) >>> 1;
+            if (compareToken(mid, key) < 0) {
+                lo = mid + 1;
+            } else {
+                hi = mid;
+            }
+        }
+        return lo;
+    }
+
+    private int compareToken(int token, byte[] key) {
+        int pos = stringPoolOffset + buffer.getInt(tokenOffsetsOffset + 4 * token);
+        int length = buffer.getShort(pos) & 0xFFFF;
+        int n = Math.min(length, key.length);
+        for (int i = 0; i < n; i++) {
+            int diff = (buffer.get(pos + 2 + i) & 0xFF) - (key[i] & 0xFF);
+            if (diff != 0) return diff;
+        }
+        return length - key.length;
+    }
+
+    private boolean tokenStartsWith(int token, byte[] prefix) {
+        int pos = stringPoolOffset + buffer.getInt(tokenOffsetsOffset + 4 * token);
+        int length = buffer.getShort(pos) & 0xFFFF;
+        if (length < prefix.length) return false;
+        for (int i = 0; i < prefix.length; i++) {
+            if (buffer.get(pos + 2 + i) != prefix[i]) return false;
+        }
+        return true;
+    }
+
+    private String readString(int poolOffset) {
+        int pos = stringPoolOffset + poolOffset;
+        int length = buffer.getShort(pos) & 0xFFFF;
+        byte[] bytes = new byte[length];
+        ByteBuffer view = buffer.duplicate();
+        view.position(pos + 2);
+        view.get(bytes);
+        return new String(bytes, StandardCharsets.UTF_8);
+    }
+}
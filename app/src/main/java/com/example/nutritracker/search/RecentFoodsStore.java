@@ -0,0 +1,250 @@
+package com.example.nutritracker.search;
+
+import android.content.Context;
+import android.util.Log;
+
+import com.example.nutritracker.FoodItem;
+
+import java.io.BufferedInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.File;
+import java.io.FileInputStream;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * On-device list of the foods a user logs, ranked per meal type.
+ *
+ * Every logged food bumps an exponentially decayed counter for its meal type: a use
+ * counts 1 today, 1/2 after {@link #HALF_LIFE_MS}, 1/4 after two half-lives, and so on.
+ * Foods eaten at other meals still count for a fraction, so a daily coffee logged at
+ * breakfast also shows up for a snack, just lower down.
+ *
+ * The full FoodItem is stored, so picking a recent food needs no network at all.
+ * The first call loads the file, and {@link #record} serializes the whole store while
+ * holding the lock, so call every method from a worker thread. The file itself is written
+ * on a background thread of its own, so a recorded food survives the activity finishing
+ * right after.
+ */
+public final class RecentFoodsStore {
+    private static final String TAG = "RecentFoodsStore";
+    private static final String FILE_NAME = "recent_foods.bin";
+    private static final int FORMAT_VERSION = 1;
+
+    static final long HALF_LIFE_MS = TimeUnit.DAYS.toMillis(14);
+    private static final int MAX_FOODS = 200;
+    // Weight of uses at other meals relative to the requested one
+    private static final double OTHER_MEAL_WEIGHT = 0.25;
+
+    private static RecentFoodsStore instance;
+
+    private final File file;
+    private final ExecutorService writer = Executors.newSingleThreadExecutor();
+    private final Map<String, Entry> entries = new LinkedHashMap<>();
+    private boolean loaded;
+
+    private static final class Counter {
+        double score;
+        long updatedAt;
+
+        double valueAt(long now) {
+            return decay(score, now - updatedAt);
+        }
+
+        void bump(long now) {
+            score = valueAt(now) + 1;
+            updatedAt = now;
+        }
+    }
+
+    private static final class Entry {
+        FoodItem food;
+        double lastQuantityGrams;
+        final Map<String, Counter> counters = new HashMap<>();
+
+        double score(String mealType, long now) {
+            double total = 0;
+            for (Map.Entry<String, Counter> counter : counters.entrySet()) {
+                double value = counter.getValue().valueAt(now);
+                total += counter.getKey().equals(mealType) ? value : OTHER_MEAL_WEIGHT * value;
+            }
+            return total;
+        }
+    }
+
+    public static synchronized RecentFoodsStore getInstance(Context context) {
+        if (instance == null) {
+            instance = new RecentFoodsStore(new File(context.getApplicationContext().getFilesDir(), FILE_NAME));
+        }
+        return instance;
+    }
+
+    RecentFoodsStore(File file) {
+        this.file = file;
+    }
+
+    /** Records that the food was logged for the meal type, and remembers the quantity used. */
+    public synchronized void record(FoodItem food, String mealType, double quantityGrams) {
+        ensureLoaded();
+        long now = System.currentTimeMillis();
+        String key = keyFor(food);
+        Entry entry = entries.get(key);
+        if (entry == null) {
+            entry = new Entry();
+            entries.put(key, entry);
+        }
+        // Keep the freshest nutrient data for the food
+        entry.food = food;
+        entry.lastQuantityGrams = quantityGrams;
+        Counter counter = entry.counters.get(mealType);
+        if (counter == null) {
+            counter = new Counter();
+            entry.counters.put(mealType, counter);
+        }
+        counter.bump(now);
+
+        evictIfNeeded(now);
+        byte[] snapshot = serialize();
+        if (snapshot != null) {
+            writer.execute(() -> writeFile(snapshot));
+        }
+    }
+
+    /** The highest ranked foods for the meal type, best first. */
+    public synchronized List<FoodItem> getTopFoods(String mealType, int limit) {
+        ensureLoaded();
+        long now = System.currentTimeMillis();
+        List<Entry> ranked = new ArrayList<>(entries.values());
+        Map<Entry, Double> scores = new HashMap<>();
+        for (Entry entry : ranked) {
+            scores.put(entry, entry.score(mealType, now));
+        }
+        Collections.sort(ranked, (a, b) -> Double.compare(scores.get(b), scores.get(a)));
+
+        List<FoodItem> foods = new ArrayList<>(Math.min(limit, ranked.size()));
+        for (int i = 0; i < ranked.size() && foods.size() < limit; i++) {
+            foods.add(ranked.get(i).food);
+        }
+        return foods;
+    }
+
+    /** Quantity last logged for the food, or 0 if it was never logged. */
+    public synchronized double getLastQuantityGrams(FoodItem food) {
+        ensureLoaded();
+        Entry entry = entries.get(keyFor(food));
+        return entry != null ? entry.lastQuantityGrams : 0;
+    }
+
+    static double decay(double score, long elapsedMs) {
+        return score * Math.pow(0.5, Math.max(0, elapsedMs) / (double) HALF_LIFE_MS);
+    }
+
+    private static String keyFor(FoodItem food) {
+        if (food.getFdcId() != FoodItem.NO_FDC_ID) {
+            return "fdc:" + food.getFdcId();
+        }
+        return "name:" + food.getDescription() + "|" + food.getBrand();
+    }
+
+    private void evictIfNeeded(long now) {
+        while (entries.size() > MAX_FOODS) {
+            String weakestKey = null;
+            double weakest = Double.MAX_VALUE;
+            for (Map.Entry<String, Entry> entry : entries.entrySet()) {
+                double total = 0;
+                for (Counter counter : entry.getValue().counters.values()) {
+                    total += counter.valueAt(now);
+                }
+                if (total < weakest) {
+                    weakest = total;
+                    weakestKey = entry.getKey();
+                }
+            }
+            entries.remove(weakestKey);
+        }
+    }
+
+    // --- Persistence ---
+
+    private void ensureLoaded() {
+        if (loaded) {
+            return;
+        }
+        loaded = true;
+        if (!file.exists()) {
+            return;
+        }
+        try (DataInputStream in = new DataInputStream(new BufferedInputStream(new FileInputStream(file)))) {
+            if (in.readInt() != FORMAT_VERSION) {
+                return;
+            }
+            int count = in.readInt();
+            for (int i = 0; i < count; i++) {
+                Entry entry = new Entry();
+                entry.food = FoodItemCodec.read(in);
+                entry.lastQuantityGrams = in.readDouble();
+                int meals = in.readInt();
+                for (int m = 0; m < meals; m++) {
+                    String mealType = in.readUTF();
+                    Counter counter = new Counter();
+                    counter.score = in.readDouble();
+                    counter.updatedAt = in.readLong();
+                    entry.counters.put(mealType, counter);
+                }
+                entries.put(keyFor(entry.food), entry);
+            }
+        } catch (IOException e) {
+            Log.w(TAG, "Dropping unreadable recent foods file", e);
+            entries.clear();
+            file.delete();
+        }
+    }
+
+    private byte[] serialize() {
+        ByteArrayOutputStream bytes = new ByteArrayOutputStream();
+        try (DataOutputStream out = new DataOutputStream(bytes)) {
+            out.writeInt(FORMAT_VERSION);
+            out.writeInt(entries.size());
+            for (Entry entry : entries.values()) {
+                FoodItemCodec.write(out, entry.food);
+                out.writeDouble(entry.lastQuantityGrams);
+                out.writeInt(entry.counters.size());
+                for (Map.Entry<String, Counter> counter : entry.counters.entrySet()) {
+                    out.writeUTF(counter.getKey());
+                    out.writeDouble(counter.getValue().score);
+                    out.writeLong(counter.getValue().updatedAt);
+                }
+            }
+        } catch (IOException e) {
+            Log.w(TAG, "Failed to serialize recent foods", e);
+            return null;
+        }
+        return bytes.toByteArray();
+    }
+
+    // Runs on the writer thread; snapshots are written in order, so the last one wins
+    private void writeFile(byte[] snapshot) {
+        File tmp = new File(file.getPath() + ".tmp");
+        try (FileOutputStream out = new FileOutputStream(tmp)) {
+            out.write(snapshot);
+        } catch (IOException e) {
+            Log.w(TAG, "Failed to save recent foods", e);
+            tmp.delete();
+            return;
+        }
+        if (!tmp.renameTo(file)) {
+            tmp.delete();
+        }
+    }
+}
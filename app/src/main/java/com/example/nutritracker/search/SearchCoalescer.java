@@ -0,0 +1,158 @@
+package com.example.nutritracker.search;
+
+import android.util.Log;
+
+import androidx.annotation.NonNull;
+
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.atomic.AtomicLong;
+
+import okhttp3.Call;
+import okhttp3.Callback;
+import okhttp3.Response;
+import okhttp3.ResponseBody;
+
+/**
+ * Single-flight layer for USDA food searches.
+ *
+ * While a request for a normalized query and page is in flight, further searches for
+ * the same query and page attach to it instead of starting their own call. The response
+ * is parsed once and the same immutable page is handed to every waiter. The underlying call is only
+ * cancelled when its last waiter cancels. Process-wide, so a search started before a
+ * rotation is picked up by the recreated activity.
+ */
+public final class SearchCoalescer {
+    private static final String TAG = "SearchCoalescer";
+
+    private static final SearchCoalescer INSTANCE = new SearchCoalescer();
+
+    public interface Listener {
+        void onResults(UsdaSearchParser.Page page);
+        void onFailure(IOException e);
+    }
+
+    public interface CallFactory {
+        Call newCall();
+    }
+
+    private final Map<String, Flight> flights = new HashMap<>();
+    private final AtomicLong callsStarted = new AtomicLong();
+    private final AtomicLong callsSaved = new AtomicLong();
+
+    public static SearchCoalescer getInstance() {
+        return INSTANCE;
+    }
+
+    private SearchCoalescer() {}
+
+    /** A caller's interest in a flight. Cancelling it never affects other waiters. */
+    public final class Subscription {
+        private final Flight flight;
+        private final Listener listener;
+
+        private Subscription(Flight flight, Listener listener) {
+            this.flight = flight;
+            this.listener = listener;
+        }
+
+        public void cancel() {
+            Call toCancel = null;
+            synchronized (SearchCoalescer.this) {
+                if (flight.waiters.remove(listener) && flight.waiters.isEmpty() && flights.get(flight.key) == flight) {
+                    flights.remove(flight.key);
+                    toCancel = flight.call;
+                }
+            }
+            if (toCancel != null) {
+                toCancel.cancel();
+            }
+        }
+    }
+
+    private final class Flight implements Callback {
+        final String key;
+        final List<Listener> waiters = new ArrayList<>();
+        Call call;
+
+        Flight(String key) {
+            this.key = key;
+        }
+
+        @Override
+        public void onFailure(@NonNull Call call, @NonNull IOException e) {
+            for (Listener listener : finish()) {
+                listener.onFailure(e);
+            }
+        }
+
+        @Override
+        public void onResponse(@NonNull Call call, @NonNull Response response) {
+            UsdaSearchParser.Page page;
+            try (ResponseBody body = response.body()) {
+                if (!response.isSuccessful() || body == null) {
+                    onFailure(call, new IOException("USDA search failed with HTTP " + response.code()));
+                    return;
+                }
+                page = UsdaSearchParser.parsePage(body.charStream());
+            } catch (IOException | RuntimeException e) {
+                onFailure(call, e instanceof IOException ? (IOException) e : new IOException(e));
+                return;
+            }
+            for (Listener listener : finish()) {
+                listener.onResults(page);
+            }
+        }
+
+        // Detaches the flight so new searches start fresh, and returns who was waiting
+        private List<Listener> finish() {
+            synchronized (SearchCoalescer.this) {
+                if (flights.get(key) == this) {
+                    flights.remove(key);
+                }
+                List<Listener> toNotify = new ArrayList<>(waiters);
+                waiters.clear();
+                return toNotify;
+            }
+        }
+    }
+
+    public Subscription search(String query, int page, CallFactory callFactory, Listener listener) {
+        String key = FoodSearchCache.normalize(query) + "#" + page;
+        Flight flight;
+        boolean start = false;
+        synchronized (this) {
+            flight = flights.get(key);
+            if (flight == null) {
+                flight = new Flight(key);
+                flight.call = callFactory.newCall();
+                flights.put(key, flight);
+                start = true;
+            } else {
+                callsSaved.incrementAndGet();
+                Log.d(TAG, "Joined in-flight search for '" + key + "' (" + getStats() + ")");
+            }
+            flight.waiters.add(listener);
+        }
+        if (start) {
+            callsStarted.incrementAndGet();
+            flight.call.enqueue(flight);
+        }
+        return new Subscription(flight, listener);
+    }
+
+    public long getCallsStarted() {
+        return callsStarted.get();
+    }
+
+    public long getCallsSaved() {
+        return callsSaved.get();
+    }
+
+    public String getStats() {
+        return "started=" + callsStarted.get() + ", saved=" + callsSaved.get();
+    }
+}
@@ -0,0 +1,190 @@
+package com.example.nutritracker.search;
+
+import com.example.nutritracker.FoodItem;
+import com.example.nutritracker.Nutrients;
+import com.google.gson.stream.JsonReader;
+import com.google.gson.stream.JsonToken;
+
+import java.io.IOException;
+import java.io.Reader;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+
+/**
+ * Streaming parser for the FoodData Central /foods/search response.
+ *
+ * Reads straight from the response body instead of building a String and a full
+ * JSONObject tree, skips every field we don't display (ingredients, food categories,
+ * measures, ...) and hands each {@link FoodItem} to the consumer as soon as its
+ * object closes.
+ */
+public final class UsdaSearchParser {
+
+    public interface FoodConsumer {
+        void onFood(FoodItem food);
+    }
+
+    private UsdaSearchParser() {}
+
+    /** One page of search results plus the paging info from the response. */
+    public static final class Page {
+        private final List<FoodItem> foods;
+        private final int currentPage;
+        private final int totalPages;
+
+        Page(List<FoodItem> foods, int currentPage, int totalPages) {
+            this.foods = foods;
+            this.currentPage = currentPage;
+            this.totalPages = totalPages;
+        }
+
+        public List<FoodItem> getFoods() { return foods; }
+        public int getCurrentPage() { return currentPage; }
+        public int getTotalPages() { return totalPages; }
+
+        public boolean hasMore() {
+            return currentPage < totalPages;
+        }
+    }
+
+    public static List<FoodItem> parse(Reader reader) throws IOException {
+        return parsePage(reader).getFoods();
+    }
+
+    public static Page parsePage(Reader reader) throws IOException {
+        List<FoodItem> items = new ArrayList<>();
+        int[] paging = readResponse(new JsonReader(reader), items::add);
+        return new Page(Collections.unmodifiableList(items), paging[0], paging[1]);
+    }
+
+    /**
+     * Parses a search response and returns the number of foods emitted.
+     * Foods without calorie data are skipped, as the search screen can't use them.
+     */
+    public static int parse(Reader reader, FoodConsumer consumer) throws IOException {
+        int[] emitted = new int[1];
+        readResponse(new JsonReader(reader), food -> {
+            consumer.onFood(food);
+            emitted[0]++;
+        });
+        return emitted[0];
+    }
+
+    // Returns {currentPage, totalPages}; both default to 1 when the response omits them
+    private static int[] readResponse(JsonReader json, FoodConsumer consumer) throws IOException {
+        int currentPage = 1;
+        int totalPages = 1;
+        json.beginObject();
+        while (json.hasNext()) {
+            String name = json.nextName();
+            if (name.equals("currentPage") && json.peek() == JsonToken.NUMBER) {
+                currentPage = json.nextInt();
+            } else if (name.equals("totalPages") && json.peek() == JsonToken.NUMBER) {
+                totalPages = json.nextInt();
+            } else if (name.equals("foods") && json.peek() == JsonToken.BEGIN_ARRAY) {
+                json.beginArray();
+                while (json.hasNext()) {
+                    FoodItem food = readFood(json);
+                    if (food != null) {
+                        consumer.onFood(food);
+                    }
+                }
+                json.endArray();
+            } else {
+                json.skipValue();
+            }
+        }
+        json.endObject();
+        return new int[] {currentPage, totalPages};
+    }
+
+    private static FoodItem readFood(JsonReader json) throws IOException {
+        int fdcId = FoodItem.NO_FDC_ID;
+        String description = null;
+        String brand = null;
+        String dataType = null;
+        String gtinUpc = null;
+        // API data is per 100g.
+        double[] nutrients = new double[Nutrients.COUNT];
+        int primarySlots = 0; // bit per slot already filled from its primary nutrient id
+
+        json.beginObject();
+        while (json.hasNext()) {
+            switch (json.nextName()) {
+                case "fdcId":
+                    fdcId = json.nextInt();
+                    break;
+                case "description":
+                    description = nextStringOrNull(json);
+                    break;
+                case "brandOwner":
+                    brand = nextStringOrNull(json);
+                    break;
+                case "dataType":
+                    dataType = nextStringOrNull(json);
+                    break;
+                case "gtinUpc":
+                    gtinUpc = nextStringOrNull(json);
+                    break;
+                case "foodNutrients":
+                    json.beginArray();
+                    while (json.hasNext()) {
+                        // Decode by numeric id; names and units are never materialized
+                        json.beginObject();
+                        int nutrientId = 0;
+                        double value = 0;
+                        while (json.hasNext()) {
+                            switch (json.nextName()) {
+                                case "nutrientId":
+                                    nutrientId = json.peek() == JsonToken.NUMBER ? json.nextInt() : (int) skip(json);
+                                    break;
+                                case "value":
+                                    value = json.peek() == JsonToken.NUMBER ? json.nextDouble() : skip(json);
+                                    break;
+                                default:
+                                    json.skipValue();
+                            }
+                        }
+                        json.endObject();
+
+                        int slot = Nutrients.slotForNutrientId(nutrientId);
+                        if (slot != Nutrients.UNTRACKED) {
+                            nutrients[slot] = value;
+                            primarySlots |= 1 << slot;
+                        } else {
+                            slot = Nutrients.fallbackSlotForNutrientId(nutrientId);
+                            if (slot != Nutrients.UNTRACKED && (primarySlots & (1 << slot)) == 0) {
+                                nutrients[slot] = value;
+                            }
+                        }
+                    }
+                    json.endArray();
+                    break;
+                default:
+                    json.skipValue();
+            }
+        }
+        json.endObject();
+
+        // Only keep foods that have calorie data
+        if (description == null || nutrients[Nutrients.KCAL] <= 0) {
+            return null;
+        }
+        return new FoodItem(fdcId, description, brand != null ? brand : "Generic", dataType, gtinUpc,
+                nutrients);
+    }
+
+    private static String nextStringOrNull(JsonReader json) throws IOException {
+        if (json.peek() == JsonToken.NULL) {
+            json.nextNull();
+            return null;
+        }
+        return json.nextString();
+    }
+
+    private static double skip(JsonReader json) throws IOException {
+        json.skipValue();
+        return 0;
+    }
+}
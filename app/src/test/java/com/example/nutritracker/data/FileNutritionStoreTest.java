@@ -0,0 +1,176 @@
+package com.example.nutritracker.data;
+
+import com.example.nutritracker.firebase.NutritionEntry;
+import com.example.nutritracker.firebase.UserActivityModel;
+import com.example.nutritracker.firebase.UserProfile;
+import com.google.firebase.Timestamp;
+
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
+
+import java.io.File;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.io.RandomAccessFile;
+import java.nio.file.Files;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+
+import static com.example.nutritracker.data.InMemoryNutritionStoreTest.entry;
+import static com.example.nutritracker.data.InMemoryNutritionStoreTest.ids;
+import static org.junit.Assert.*;
+
+public class FileNutritionStoreTest {
+    @Rule
+    public TemporaryFolder folder = new TemporaryFolder();
+
+    @Test
+    public void reopeningReplaysEveryWrite() throws Exception {
+        File file = new File(folder.getRoot(), "store.log");
+        try (FileNutritionStore store = new FileNutritionStore(file)) {
+            NutritionEntry first = entry("e1", "alice", "2024-03-01", "Lunch", 500);
+            first.setTimestamp(new Timestamp(1709290000L, 123000000));
+            first.setUpdatedAt(1709290000123L);
+            store.putEntry(first);
+            store.putEntry(entry("e2", "alice", "2024-03-01", null, 300));
+            store.putEntry(entry("e3", "alice", "2024-03-02", "Dinner", 700));
+            store.deleteEntry("e3");
+            store.putEntry(entry("e2", "alice", "2024-03-01", "Snack", 350));
+
+            UserActivityModel activity = new UserActivityModel("alice", "add_food", null);
+            activity.setCount(3);
+            store.addActivities(Arrays.asList(activity, new UserActivityModel("alice", "login", "second")));
+
+            UserProfile profile = new UserProfile("alice", "Alice", null);
+            profile.setGoalProtein(140);
+            store.putProfile(profile);
+        }
+
+        try (FileNutritionStore store = new FileNutritionStore(file)) {
+            assertEquals(Arrays.asList("e1", "e2"), ids(store.getEntries("alice", "2024-03-01")));
+            assertNull(store.getEntry("e3"));
+
+            NutritionEntry first = store.getEntry("e1");
+            assertEquals("Lunch", first.getMealType());
+            assertEquals("Food e1", first.getFoodName());
+            assertEquals(500, first.getKcal(), 0);
+            assertEquals(25, first.getProtein(), 0);
+            assertEquals(12.5, first.getFat(), 0);
+            assertEquals(100, first.getQuantity(), 0);
+            assertEquals(new Timestamp(1709290000L, 123000000), first.getTimestamp());
+            assertEquals(1709290000123L, first.getUpdatedAt());
+
+            assertEquals("Snack", store.getEntry("e2").getMealType());
+            assertEquals(850, store.getDailySummary("alice", "2024-03-01").getKcal(), 1e-9);
+            assertEquals(0, store.getDailySummary("alice", "2024-03-02").getEntryCount());
+
+            List<UserActivityModel> activities = store.getRecentActivities("alice", 10);
+            assertEquals(2, activities.size());
+            assertEquals("second", activities.get(0).getActivityDetails());
+            assertNull(activities.get(1).getActivityDetails());
+            assertEquals(3, activities.get(1).getCount());
+
+            UserProfile profile = store.getProfile("alice");
+            assertEquals("Alice", profile.getUsername());
+            assertNull(profile.getEmail());
+            assertEquals(140, profile.getGoalProtein());
+            assertEquals("Free", profile.getSubscriptionPlan());
+        }
+    }
+
+    @Test
+    public void tornTailIsDroppedAndTruncated() throws Exception {
+        File file = new File(folder.getRoot(), "store.log");
+        long lengthBeforeLastWrite;
+        try (FileNutritionStore store = new FileNutritionStore(file)) {
+            store.putEntry(entry("e1", "alice", "2024-03-01", "Lunch", 500));
+            store.putEntry(entry("e2", "alice", "2024-03-01", "Dinner", 700));
+            lengthBeforeLastWrite = file.length();
+            store.putEntry(entry("e3", "alice", "2024-03-01", "Snack", 150));
+        }
+        // Cut the last record short, as a crash in the middle of a write would
+        try (RandomAccessFile raf = new RandomAccessFile(file, "rw")) {
+            raf.setLength(file.length() - 5);
+        }
+
+        try (FileNutritionStore store = new FileNutritionStore(file)) {
+            assertEquals(Arrays.asList("e1", "e2"), ids(store.getEntries("alice", "2024-03-01")));
+            assertEquals(lengthBeforeLastWrite, file.length());
+            // Appends continue from the last whole record
+            store.putEntry(entry("e4", "alice", "2024-03-01", "Snack", 200));
+        }
+        try (FileNutritionStore store = new FileNutritionStore(file)) {
+            assertEquals(Arrays.asList("e1", "e2", "e4"), ids(store.getEntries("alice", "2024-03-01")));
+            assertEquals(1400, store.getDailySummary("alice", "2024-03-01").getKcal(), 1e-9);
+        }
+    }
+
+    @Test
+    public void garbageAfterTheLastRecordIsDropped() throws Exception {
+        File file = new File(folder.getRoot(), "store.log");
+        try (FileNutritionStore store = new FileNutritionStore(file)) {
+            store.putEntry(entry("e1", "alice", "2024-03-01", "Lunch", 500));
+        }
+        long length = file.length();
+        try (FileOutputStream out = new FileOutputStream(file, true)) {
+            out.write(new byte[] {(byte) 0x7F, 1, 2, 3});
+        }
+
+        try (FileNutritionStore store = new FileNutritionStore(file)) {
+            assertEquals(Collections.singletonList("e1"), ids(store.getEntries("alice", "2024-03-01")));
+            assertEquals(length, file.length());
+        }
+    }
+
+    @Test
+    public void tornHeaderStartsAnEmptyStore() throws Exception {
+        File file = new File(folder.getRoot(), "store.log");
+        Files.write(file.toPath(), new byte[] {0x4E, 0x54});
+
+        try (FileNutritionStore store = new FileNutritionStore(file)) {
+            assertTrue(store.getEntries("alice", "2024-03-01").isEmpty());
+            store.putEntry(entry("e1", "alice", "2024-03-01", "Lunch", 500));
+        }
+        try (FileNutritionStore store = new FileNutritionStore(file)) {
+            assertNotNull(store.getEntry("e1"));
+        }
+    }
+
+    @Test(expected = IOException.class)
+    public void rejectsFilesOfAnotherFormat() throws Exception {
+        File file = new File(folder.getRoot(), "store.log");
+        Files.write(file.toPath(), new byte[] {1, 2, 3, 4, 5, 6, 7, 8, 9});
+        new FileNutritionStore(file).close();
+    }
+
+    @Test
+    public void compactKeepsOnlyTheLiveState() throws Exception {
+        File file = new File(folder.getRoot(), "store.log");
+        try (FileNutritionStore store = new FileNutritionStore(file)) {
+            for (int i = 0; i < 50; i++) {
+                store.putEntry(entry("e1", "alice", "2024-03-01", "Lunch", 500 + i));
+                store.putEntry(entry("gone" + i, "alice", "2024-03-01", "Snack", 100));
+                store.deleteEntry("gone" + i);
+            }
+            store.putProfile(new UserProfile("alice", "Alice", "alice@example.com"));
+            store.addActivities(Collections.singletonList(new UserActivityModel("alice", "login", "x")));
+            long before = file.length();
+
+            store.compact();
+            assertTrue(file.length() < before);
+            assertFalse(new File(file.getPath() + ".tmp").exists());
+            // Still appendable after the swap
+            store.putEntry(entry("e2", "alice", "2024-03-02", "Dinner", 700));
+        }
+
+        try (FileNutritionStore store = new FileNutritionStore(file)) {
+            assertEquals(549, store.getEntry("e1").getKcal(), 0);
+            assertEquals(Collections.singletonList("e1"), ids(store.getEntries("alice", "2024-03-01")));
+            assertNotNull(store.getEntry("e2"));
+            assertEquals("alice@example.com", store.getProfile("alice").getEmail());
+            assertEquals(1, store.getRecentActivities("alice", 10).size());
+        }
+    }
+}
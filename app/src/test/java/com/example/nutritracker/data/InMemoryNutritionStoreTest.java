@@ -0,0 +1,115 @@
+package com.example.nutritracker.data;
+
+import com.example.nutritracker.firebase.DailySummary;
+import com.example.nutritracker.firebase.NutritionEntry;
+import com.example.nutritracker.firebase.UserActivityModel;
+import com.example.nutritracker.firebase.UserProfile;
+
+import org.junit.Test;
+
+import java.util.Arrays;
+import java.util.List;
+
+import static org.junit.Assert.*;
+
+public class InMemoryNutritionStoreTest {
+
+    private final InMemoryNutritionStore store = new InMemoryNutritionStore();
+
+    @Test
+    public void entriesAreFoundByIdDayAndRange() {
+        store.putEntry(entry("e1", "alice", "2024-03-02", "Lunch", 500));
+        store.putEntry(entry("e2", "alice", "2024-03-01", "Breakfast", 300));
+        store.putEntry(entry("e3", "alice", "2024-03-02", "Dinner", 700));
+        store.putEntry(entry("e4", "alice", "2024-03-04", "Dinner", 650));
+        store.putEntry(entry("e5", "bob", "2024-03-02", "Lunch", 900));
+
+        assertEquals("Lunch", store.getEntry("e1").getMealType());
+        assertNull(store.getEntry("missing"));
+        assertEquals(Arrays.asList("e1", "e3"), ids(store.getEntries("alice", "2024-03-02")));
+        assertTrue(store.getEntries("alice", "2024-03-03").isEmpty());
+        assertTrue(store.getEntries("carol", "2024-03-02").isEmpty());
+
+        // Both ends inclusive, ordered by date
+        assertEquals(Arrays.asList("e2", "e1", "e3"), ids(store.getEntriesInRange("alice", "2024-03-01", "2024-03-03")));
+        assertEquals(Arrays.asList("e1", "e3", "e4"), ids(store.getEntriesInRange("alice", "2024-03-02", "2024-03-04")));
+        assertTrue(store.getEntriesInRange("carol", "2024-03-01", "2024-03-31").isEmpty());
+    }
+
+    @Test
+    public void summariesFollowPutsMovesAndDeletes() {
+        store.putEntry(entry("e1", "alice", "2024-03-01", "Lunch", 500));
+        store.putEntry(entry("e2", "alice", "2024-03-01", "Dinner", 700));
+
+        DailySummary summary = store.getDailySummary("alice", "2024-03-01");
+        assertEquals(1200, summary.getKcal(), 1e-9);
+        assertEquals(2, summary.getEntryCount());
+        assertEquals(500, summary.getKcalForMeal("Lunch"), 1e-9);
+
+        // Putting an entry again replaces it, here moving it to another day
+        store.putEntry(entry("e2", "alice", "2024-03-02", "Dinner", 800));
+        assertEquals(500, store.getDailySummary("alice", "2024-03-01").getKcal(), 1e-9);
+        assertEquals(1, store.getDailySummary("alice", "2024-03-01").getEntryCount());
+        assertEquals(800, store.getDailySummary("alice", "2024-03-02").getKcal(), 1e-9);
+        assertEquals(Arrays.asList("e1"), ids(store.getEntries("alice", "2024-03-01")));
+
+        store.deleteEntry("e1");
+        store.deleteEntry("e1");
+        store.deleteEntry("missing");
+        assertNull(store.getEntry("e1"));
+        assertTrue(store.getEntries("alice", "2024-03-01").isEmpty());
+        DailySummary empty = store.getDailySummary("alice", "2024-03-01");
+        assertEquals(0, empty.getKcal(), 1e-9);
+        assertEquals(0, empty.getEntryCount());
+        assertEquals("alice", empty.getUserId());
+        assertEquals("2024-03-01", empty.getDate());
+    }
+
+    @Test
+    public void summariesAreCopies() {
+        store.putEntry(entry("e1", "alice", "2024-03-01", "Lunch", 500));
+        store.getDailySummary("alice", "2024-03-01").add(entry("x", "alice", "2024-03-01", "Lunch", 100));
+        assertEquals(500, store.getDailySummary("alice", "2024-03-01").getKcal(), 1e-9);
+    }
+
+    @Test
+    public void recentActivitiesAreNewestFirst() {
+        store.addActivities(Arrays.asList(
+                new UserActivityModel("alice", "login", "first"),
+                new UserActivityModel("bob", "login", "other user"),
+                new UserActivityModel("alice", "add_food", "second")));
+        store.addActivities(Arrays.asList(new UserActivityModel("alice", "logout", "third")));
+
+        List<UserActivityModel> recent = store.getRecentActivities("alice", 2);
+        assertEquals(2, recent.size());
+        assertEquals("third", recent.get(0).getActivityDetails());
+        assertEquals("second", recent.get(1).getActivityDetails());
+        assertEquals(3, store.getRecentActivities("alice", 10).size());
+        assertTrue(store.getRecentActivities("carol", 10).isEmpty());
+    }
+
+    @Test
+    public void profilesAreKeptPerUser() {
+        assertNull(store.getProfile("alice"));
+        store.putProfile(new UserProfile("alice", "Alice", "alice@example.com"));
+        UserProfile updated = new UserProfile("alice", "Alice", "alice@example.com");
+        updated.setGoalKcal(1800);
+        store.putProfile(updated);
+        assertEquals(1800, store.getProfile("alice").getGoalKcal());
+        assertNull(store.getProfile("bob"));
+    }
+
+    static NutritionEntry entry(String id, String userId, String date, String mealType, double kcal) {
+        NutritionEntry entry = new NutritionEntry(userId, date, mealType, "Food " + id, kcal, kcal / 20, kcal / 40, 100);
+        entry.setId(id);
+        return entry;
+    }
+
+    static List<String> ids(List<NutritionEntry> entries) {
+        String[] ids = new String[entries.size()];
+        for (int i = 0; i < ids.length; i++) {
+            ids[i] = entries.get(i).getId();
+        }
+        return Arrays.asList(ids);
+    }
+}
@@ -0,0 +1,100 @@
+package com.example.nutritracker.search;
+
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
+
+import java.io.File;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+
+import static org.junit.Assert.*;
+
+public class CsvReaderTest {
+    @Rule
+    public TemporaryFolder folder = new TemporaryFolder();
+
+    @Test
+    public void readsQuotedFields() throws Exception {
+        try (CsvReader csv = open("\"fdc_id\",\"description\"\n"
+                + "\"1\",\"Cheese, cheddar\"\n"
+                + "\"2\",\"12\"\" sub, \"\"Italian\"\"\"\n"
+                + "\"3\",\"Line one\nline two\"\n")) {
+            int id = csv.requireColumn("fdc_id");
+            int description = csv.requireColumn("description");
+
+            assertTrue(csv.next());
+            assertEquals(1, csv.getInt(id, 0));
+            assertEquals("Cheese, cheddar", csv.getString(description));
+
+            assertTrue(csv.next());
+            assertEquals("12\" sub, \"Italian\"", csv.getString(description));
+
+            assertTrue(csv.next());
+            assertEquals(3, csv.getInt(id, 0));
+            assertEquals("Line one\nline two", csv.getString(description));
+
+            assertFalse(csv.next());
+        }
+    }
+
+    @Test
+    public void handlesCrlfBomAndUnquotedFields() throws Exception {
+        try (CsvReader csv = open("\uFEFFa,b,c\r\n1,,x\r\n2,\"\",y")) {
+            assertEquals(0, csv.column("a"));
+            assertEquals(-1, csv.column("d"));
+
+            assertTrue(csv.next());
+            assertEquals(3, csv.getFieldCount());
+            assertTrue(csv.isEmpty(1));
+            assertEquals("x", csv.getString(2));
+
+            // Last row without a trailing newline
+            assertTrue(csv.next());
+            assertEquals(2, csv.getInt(0, 0));
+            assertTrue(csv.isEmpty(1));
+            assertEquals("y", csv.getString(2));
+            assertFalse(csv.next());
+        }
+    }
+
+    @Test
+    public void parsesNumbersWithFallbacks() throws Exception {
+        try (CsvReader csv = open("n\n\"403.25\"\n\"-1.5\"\n\"1e3\"\n\"n/a\"\n\"\"\n")) {
+            assertTrue(csv.next());
+            assertEquals(403.25, csv.getDouble(0, -1), 1e-9);
+            assertTrue(csv.next());
+            assertEquals(-1.5, csv.getDouble(0, -1), 1e-9);
+            assertTrue(csv.next());
+            assertEquals(1000, csv.getDouble(0, -1), 1e-9);
+            assertEquals(7, csv.getInt(0, 7));
+            assertTrue(csv.next());
+            assertEquals(-1, csv.getDouble(0, -1), 0);
+            assertTrue(csv.next());
+            assertEquals(-1, csv.getDouble(0, -1), 0);
+            assertEquals(-1, csv.getInt(0, -1));
+            assertEquals(-1, csv.getDouble(5, -1), 0);
+        }
+    }
+
+    @Test(expected = IOException.class)
+    public void unterminatedQuoteIsAnError() throws Exception {
+        try (CsvReader csv = open("a\n\"open\n")) {
+            csv.next();
+        }
+    }
+
+    @Test(expected = IOException.class)
+    public void missingRequiredColumnIsAnError() throws Exception {
+        try (CsvReader csv = open("a,b\n")) {
+            csv.requireColumn("fdc_id");
+        }
+    }
+
+    private CsvReader open(String content) throws IOException {
+        File file = folder.newFile();
+        Files.write(file.toPath(), content.getBytes(StandardCharsets.UTF_8));
+        return new CsvReader(file);
+    }
+}
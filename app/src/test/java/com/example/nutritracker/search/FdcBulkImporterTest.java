@@ -0,0 +1,123 @@
+package com.example.nutritracker.search;
+
+import com.example.nutritracker.FoodItem;
+
+import org.junit.Before;
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
+
+import java.io.File;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.util.List;
+
+import static org.junit.Assert.*;
+
+public class FdcBulkImporterTest {
+    @Rule
+    public TemporaryFolder folder = new TemporaryFolder();
+
+    private File csvDirectory;
+
+    @Before
+    public void setUp() throws Exception {
+        csvDirectory = folder.newFolder("csv");
+        write("food.csv",
+                "\"fdc_id\",\"data_type\",\"description\",\"food_category_id\"",
+                "\"100\",\"sr_legacy_food\",\"CHEDDAR CHEESE, SHARP\",\"1\"",
+                "\"101\",\"sample_food\",\"Cheddar cheese, lab sample\",\"1\"",
+                "\"200\",\"branded_food\",\"Granola bar, oats & honey\",\"\"",
+                "\"201\",\"branded_food\",\"Granola bar, oats and honey\",\"\"",
+                "\"300\",\"foundation_food\",\"  BANANA,   RAW.  \",\"9\"",
+                "\"301\",\"foundation_food\",\"Banana, raw\",\"9\"",
+                "\"400\",\"survey_fndds_food\",\"Water, tap\",\"14\"",
+                "\"500\",\"branded_food\",\"Protein shake\",\"\"");
+        write("branded_food.csv",
+                "\"fdc_id\",\"brand_owner\",\"brand_name\",\"gtin_upc\"",
+                "\"200\",\"Acme Foods\",\"ACME\",\"041570054161\"",
+                // Republished under a new fdc_id with the EAN-13 spelling of the same barcode
+                "\"201\",\"Acme Foods\",\"ACME\",\"0041570054161\"",
+                "\"500\",\"\",\"Shake Co\",\"\"");
+        write("food_nutrient.csv",
+                "\"id\",\"fdc_id\",\"nutrient_id\",\"amount\"",
+                "\"1\",\"100\",\"1008\",\"403\"",
+                "\"2\",\"100\",\"1003\",\"24.9\"",
+                "\"3\",\"100\",\"1004\",\"33.1\"",
+                "\"4\",\"101\",\"1008\",\"400\"",
+                "\"5\",\"200\",\"1008\",\"450\"",
+                "\"6\",\"201\",\"1008\",\"460\"",
+                "\"7\",\"201\",\"1003\",\"8\"",
+                // Foundation foods report energy as Atwater factors; the primary id wins either way
+                "\"8\",\"300\",\"2047\",\"97\"",
+                "\"9\",\"301\",\"2047\",\"98\"",
+                "\"10\",\"301\",\"1008\",\"89\"",
+                "\"11\",\"301\",\"2048\",\"85\"",
+                "\"12\",\"400\",\"1003\",\"0\"",
+                "\"13\",\"500\",\"1008\",\"120\"");
+    }
+
+    @Test
+    public void keepsTheNewestPublicationOfEachFood() throws Exception {
+        File indexFile = new File(folder.getRoot(), "food_index.bin");
+        File gtinFile = new File(folder.getRoot(), "gtin_index.bin");
+        FdcBulkImporter.Stats stats = new FdcBulkImporter(csvDirectory).run(indexFile, gtinFile);
+
+        // Granola bar by barcode, banana by description; the lab sample is another data
+        // type and water has no energy
+        assertEquals(2, stats.getDuplicates());
+        assertEquals(4, stats.getFoodsKept());
+
+        LocalFoodIndex index = LocalFoodIndex.open(indexFile);
+        assertEquals(4, index.size());
+        assertTrue(index.search("sample", 10).isEmpty());
+        assertTrue(index.search("water", 10).isEmpty());
+
+        List<FoodItem> granola = index.search("granola", 10);
+        assertEquals(1, granola.size());
+        assertEquals(201, granola.get(0).getFdcId());
+        assertEquals("Acme Foods", granola.get(0).getBrand());
+        assertEquals("Branded", granola.get(0).getDataType());
+        assertEquals(460, granola.get(0).getKcal(), 1e-4);
+        assertEquals(8, granola.get(0).getProtein(), 1e-4);
+
+        List<FoodItem> banana = index.search("banana", 10);
+        assertEquals(1, banana.size());
+        assertEquals(301, banana.get(0).getFdcId());
+        assertEquals("Banana, raw", banana.get(0).getDescription());
+        assertEquals("Foundation", banana.get(0).getDataType());
+        assertEquals(89, banana.get(0).getKcal(), 1e-4);
+
+        FoodItem cheddar = index.search("cheddar", 10).get(0);
+        assertEquals("Cheddar cheese, sharp", cheddar.getDescription());
+        assertEquals("SR Legacy", cheddar.getDataType());
+        assertEquals(33.1, cheddar.getFat(), 1e-4);
+
+        // Falls back to brand_name when brand_owner is empty
+        assertEquals("Shake Co", index.search("shake", 10).get(0).getBrand());
+
+        GtinIndex gtinIndex = GtinIndex.open(gtinFile);
+        assertEquals(1, gtinIndex.size());
+        assertEquals(201, index.getFood(gtinIndex.find("041570054161")).getFdcId());
+    }
+
+    @Test
+    public void normalizeDescriptionTidiesLabelText() {
+        assertEquals("Cheddar cheese, sharp", FdcBulkImporter.normalizeDescription("CHEDDAR CHEESE, SHARP"));
+        assertEquals("Banana, raw", FdcBulkImporter.normalizeDescription("  Banana,\t  raw.; "));
+        assertEquals("Greek yogurt, plain", FdcBulkImporter.normalizeDescription("Greek yogurt, plain"));
+        assertEquals("", FdcBulkImporter.normalizeDescription(" ,. "));
+    }
+
+    @Test(expected = IOException.class)
+    public void missingFoodFileIsAnError() throws Exception {
+        File empty = folder.newFolder("empty");
+        new FdcBulkImporter(empty).run(new File(folder.getRoot(), "out.bin"), null);
+    }
+
+    private void write(String name, String... lines) throws IOException {
+        Files.write(new File(csvDirectory, name).toPath(),
+                (String.join("\n", lines) + "\n").getBytes(StandardCharsets.UTF_8));
+    }
+}
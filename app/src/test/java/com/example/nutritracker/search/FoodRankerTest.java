@@ -0,0 +1,91 @@
+package com.example.nutritracker.search;
+
+import com.example.nutritracker.FoodItem;
+import com.example.nutritracker.Nutrients;
+
+import org.junit.Test;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+
+import static org.junit.Assert.*;
+
+public class FoodRankerTest {
+
+    @Test
+    public void shorterDescriptionsCoveringTheQueryRankFirst() {
+        List<FoodItem> ranked = FoodRanker.rank("banana", Arrays.asList(
+                food("Banana cream pie filling", "Foundation"),
+                food("Pudding, banana flavor", "Foundation"),
+                food("Banana, raw", "Foundation")));
+        assertEquals(Arrays.asList("Banana, raw", "Banana cream pie filling", "Pudding, banana flavor"),
+                descriptions(ranked));
+    }
+
+    @Test
+    public void referenceFoodsBeatBrandedLabelData() {
+        List<FoodItem> ranked = FoodRanker.rank("cheddar cheese", Arrays.asList(
+                food("Cheddar cheese", "Branded"),
+                food("Cheddar cheese", "Survey (FNDDS)"),
+                food("Cheddar cheese", "Foundation"),
+                food("Cheddar cheese", "SR Legacy")));
+        List<String> dataTypes = new ArrayList<>();
+        for (FoodItem item : ranked) dataTypes.add(item.getDataType());
+        assertEquals(Arrays.asList("Foundation", "SR Legacy", "Survey (FNDDS)", "Branded"), dataTypes);
+    }
+
+    @Test
+    public void misspelledWordsStillMatch() {
+        List<FoodItem> ranked = FoodRanker.rank("chiken brest", Arrays.asList(
+                food("Beef, ground", "SR Legacy"),
+                food("Chicken, breast, roasted", "SR Legacy")));
+        assertEquals("Chicken, breast, roasted", ranked.get(0).getDescription());
+    }
+
+    @Test
+    public void equalScoresKeepTheirOrder() {
+        List<FoodItem> items = Arrays.asList(
+                food("Apple, raw", "Foundation"),
+                food("Apple, raw", "Foundation"),
+                food("Apple, raw", "Foundation"));
+        List<FoodItem> ranked = FoodRanker.rank("apple", items);
+        for (int i = 0; i < items.size(); i++) {
+            assertSame(items.get(i), ranked.get(i));
+        }
+    }
+
+    @Test
+    public void blankQueriesAndSingleResultsAreReturnedAsIs() {
+        List<FoodItem> items = Arrays.asList(food("Banana, raw", "Foundation"), food("Apple, raw", "Foundation"));
+        assertSame(items, FoodRanker.rank("  ", items));
+        List<FoodItem> single = Collections.singletonList(food("Apple, raw", "Foundation"));
+        assertSame(single, FoodRanker.rank("apple", single));
+    }
+
+    @Test
+    public void tokenSimilarityPrefersExactThenPrefixThenEdits() {
+        assertEquals(1, FoodRanker.tokenSimilarity("cheese", "cheese"), 0);
+        assertEquals(0.9, FoodRanker.tokenSimilarity("chee", "cheese"), 1e-9);
+        assertEquals(0.6, FoodRanker.tokenSimilarity("cheeze", "cheese"), 1e-9);
+        assertEquals(0.6, FoodRanker.tokenSimilarity("chikcen", "chicken"), 1e-9);
+        assertEquals(0.4, FoodRanker.tokenSimilarity("chikcens", "chicken"), 1e-9);
+        assertEquals(0.9, FoodRanker.tokenSimilarity("egg", "eggs"), 1e-9);
+        // Short words need an exact or prefix match
+        assertEquals(0, FoodRanker.tokenSimilarity("pea", "tea"), 0);
+        assertEquals(0, FoodRanker.tokenSimilarity("bread", "beef"), 0);
+    }
+
+    private static FoodItem food(String description, String dataType) {
+        double[] nutrients = new double[Nutrients.COUNT];
+        nutrients[Nutrients.KCAL] = 100;
+        return new FoodItem(FoodItem.NO_FDC_ID, description, null, dataType, nutrients);
+    }
+
+    private static List<String> descriptions(List<FoodItem> items) {
+        List<String> descriptions = new ArrayList<>();
+        for (FoodItem item : items) descriptions.add(item.getDescription());
+        return descriptions;
+    }
+}
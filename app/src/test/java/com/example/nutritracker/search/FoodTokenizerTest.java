@@ -0,0 +1,40 @@
+package com.example.nutritracker.search;
+
+import org.junit.Test;
+
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.Locale;
+
+import static org.junit.Assert.*;
+
+public class FoodTokenizerTest {
+
+    @Test
+    public void splitsOnAnythingButLettersAndDigits() {
+        assertEquals(Arrays.asList("chicken", "breast", "roasted"),
+                FoodTokenizer.tokenize("Chicken, breast, roasted"));
+        assertEquals(Arrays.asList("milk", "2", "fat", "reduced"),
+                FoodTokenizer.tokenize("  MILK (2% fat), reduced-"));
+        assertEquals(Arrays.asList("crème", "fraîche"), FoodTokenizer.tokenize("Crème Fraîche"));
+    }
+
+    @Test
+    public void blankTextHasNoTokens() {
+        assertEquals(Collections.emptyList(), FoodTokenizer.tokenize(null));
+        assertEquals(Collections.emptyList(), FoodTokenizer.tokenize(""));
+        assertEquals(Collections.emptyList(), FoodTokenizer.tokenize(" ,.- "));
+    }
+
+    @Test
+    public void ignoresTheDefaultLocale() {
+        Locale saved = Locale.getDefault();
+        try {
+            // Turkish lowercases "I" to a dotless i
+            Locale.setDefault(new Locale("tr", "TR"));
+            assertEquals(Collections.singletonList("pita"), FoodTokenizer.tokenize("PITA"));
+        } finally {
+            Locale.setDefault(saved);
+        }
+    }
+}
@@ -0,0 +1,84 @@
+package com.example.nutritracker.search;
+
+import org.junit.Before;
+import org.junit.Test;
+
+import static org.junit.Assert.*;
+
+public class FuzzyMatcherTest {
+    private FuzzyMatcher matcher;
+
+    @Before
+    public void setUp() {
+        matcher = new FuzzyMatcher();
+        for (String word : new String[]{"chicken", "breast", "cheese", "bread", "banana", "yogurt", "greek"}) {
+            matcher.addWord(word, 1);
+        }
+    }
+
+    @Test
+    public void correctsSubstitution() {
+        assertEquals("yogurt", matcher.correct("yoghrt"));
+        assertEquals("chicken", matcher.correct("chickan"));
+    }
+
+    @Test
+    public void correctsInsertion() {
+        assertEquals("bread", matcher.correct("breadd"));
+        assertEquals("banana", matcher.correct("bananna"));
+    }
+
+    @Test
+    public void correctsDeletion() {
+        assertEquals("breast", matcher.correct("brest"));
+        assertEquals("chicken", matcher.correct("chiken"));
+    }
+
+    @Test
+    public void correctsAdjacentTransposition() {
+        // Breaks four of the six padded trigrams, more than a substitution can
+        assertEquals("cheese", matcher.correct("cehese"));
+        assertEquals("greek", matcher.correct("gerek"));
+    }
+
+    @Test
+    public void leavesFarWordsAndShortWordsAlone() {
+        assertNull(matcher.correct("pizza"));
+        assertNull(matcher.correct("brd"));
+    }
+
+    @Test
+    public void prefersTheMoreFrequentWordOnATie() {
+        matcher.addWord("bready", 1);
+        matcher.addWord("breads", 5);
+        assertEquals("breads", matcher.correct("breadz"));
+    }
+
+    @Test
+    public void suggestCorrectsEveryUnknownWord() {
+        assertEquals("chicken breast", matcher.suggest("chiken brest"));
+        assertEquals("greek yogurt", matcher.suggest("Greek yoghrt"));
+    }
+
+    @Test
+    public void suggestReturnsNullWhenNothingChanges() {
+        assertNull(matcher.suggest("chicken breast"));
+        // Still being typed
+        assertNull(matcher.suggest("chick"));
+        assertNull(matcher.suggest("2 eggs 100g"));
+    }
+
+    @Test
+    public void editDistanceCountsTranspositionAsOneEdit() {
+        assertEquals(0, FuzzyMatcher.editDistance("cheese", "cheese", 2));
+        assertEquals(1, FuzzyMatcher.editDistance("cheese", "cehese", 2));
+        assertEquals(1, FuzzyMatcher.editDistance("bread", "breadd", 2));
+        assertEquals(1, FuzzyMatcher.editDistance("chicken", "chikcen", 2));
+    }
+
+    @Test
+    public void editDistanceStopsPastTheBound() {
+        assertEquals(2, FuzzyMatcher.editDistance("banana", "yogurt", 1));
+        assertEquals(2, FuzzyMatcher.editDistance("bread", "breadcrumbs", 1));
+    }
+}
@@ -0,0 +1,88 @@
+package com.example.nutritracker.search;
+
+import com.example.nutritracker.Nutrients;
+
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
+
+import java.io.File;
+import java.io.IOException;
+import java.nio.file.Files;
+import java.util.ArrayList;
+import java.util.List;
+
+import static org.junit.Assert.*;
+
+public class GtinIndexTest {
+    @Rule
+    public TemporaryFolder folder = new TemporaryFolder();
+
+    @Test
+    public void normalizeMapsEveryLengthOntoTheSameNumber() {
+        long gtin = GtinIndex.normalize("041570054161");
+        assertEquals(41570054161L, gtin);
+        assertEquals(gtin, GtinIndex.normalize("0041570054161"));
+        assertEquals(gtin, GtinIndex.normalize("00041570054161"));
+        assertEquals(gtin, GtinIndex.normalize("0 41570 05416 1"));
+        assertEquals(gtin, GtinIndex.normalize("041570-054161"));
+        assertEquals(12345670L, GtinIndex.normalize("12345670"));
+    }
+
+    @Test
+    public void normalizeRejectsWhatIsNotABarcode() {
+        assertEquals(-1, GtinIndex.normalize(null));
+        assertEquals(-1, GtinIndex.normalize(""));
+        assertEquals(-1, GtinIndex.normalize("1234567"));
+        assertEquals(-1, GtinIndex.normalize("123456789012345"));
+        assertEquals(-1, GtinIndex.normalize("00000000"));
+        assertEquals(-1, GtinIndex.normalize("04157005416A"));
+        assertEquals(-1, GtinIndex.normalize("chicken"));
+        assertFalse(GtinIndex.isBarcode("banana 12345678"));
+        assertTrue(GtinIndex.isBarcode("12345670"));
+    }
+
+    @Test
+    public void collidingBarcodesAreFoundByProbing() throws Exception {
+        // Three barcodes give an 8-slot table; pick ones that all hash to the same slot
+        List<String> colliding = new ArrayList<>();
+        int firstSlot = -1;
+        for (long gtin = 10000000L; colliding.size() < 3; gtin++) {
+            int slot = GtinIndex.hash(gtin) & 7;
+            if (firstSlot < 0) firstSlot = slot;
+            if (slot == firstSlot) colliding.add(Long.toString(gtin));
+        }
+
+        FoodIndexWriter writer = new FoodIndexWriter();
+        for (int i = 0; i < colliding.size(); i++) {
+            int ordinal = writer.add(2000 + i, "Food " + (char) ('a' + i), null, "Branded", colliding.get(i));
+            writer.setNutrient(ordinal, Nutrients.KCAL, 100);
+        }
+        File indexFile = folder.newFile("food_index.bin");
+        File gtinFile = folder.newFile("gtin_index.bin");
+        writer.write(indexFile, gtinFile);
+        LocalFoodIndex index = LocalFoodIndex.open(indexFile);
+        GtinIndex gtinIndex = GtinIndex.open(gtinFile);
+
+        assertEquals(3, gtinIndex.size());
+        for (int i = 0; i < colliding.size(); i++) {
+            int ordinal = gtinIndex.find(colliding.get(i));
+            assertNotEquals(GtinIndex.NOT_FOUND, ordinal);
+            assertEquals(2000 + i, index.getFood(ordinal).getFdcId());
+        }
+        assertEquals(GtinIndex.NOT_FOUND, gtinIndex.find("99999999"));
+        assertEquals(GtinIndex.NOT_FOUND, gtinIndex.find("not a barcode"));
+    }
+
+    @Test
+    public void rejectsFilesThatAreNotAGtinIndex() throws Exception {
+        File file = folder.newFile("garbage.bin");
+        Files.write(file.toPath(), new byte[GtinIndex.HEADER_SIZE]);
+        try {
+            GtinIndex.open(file);
+            fail("Expected IOException");
+        } catch (IOException expected) {
+            // Zero magic
+        }
+    }
+}
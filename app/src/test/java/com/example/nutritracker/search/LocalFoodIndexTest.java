@@ -0,0 +1,140 @@
+package com.example.nutritracker.search;
+
+import com.example.nutritracker.FoodItem;
+import com.example.nutritracker.Nutrients;
+
+import org.junit.Before;
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
+
+import java.io.File;
+import java.io.IOException;
+import java.nio.file.Files;
+import java.util.List;
+
+import static org.junit.Assert.*;
+
+public class LocalFoodIndexTest {
+    @Rule
+    public TemporaryFolder folder = new TemporaryFolder();
+
+    private LocalFoodIndex index;
+    private GtinIndex gtinIndex;
+
+    @Before
+    public void setUp() throws Exception {
+        FoodIndexWriter writer = new FoodIndexWriter();
+        writer.add(food(1001, "Chicken, breast, roasted", null, "SR Legacy", null, 165, 31, 3.6));
+        writer.add(food(1002, "Chicken breast strips, breaded", "Acme Foods", "Branded", "0041570054161", 250, 18, 12));
+        writer.add(food(1003, "Banana, raw", null, "Foundation", null, 89, 1.1, 0.3));
+        writer.add(food(1004, "Crème fraîche", "Laiterie", null, null, 292, 2.4, 30));
+        int excluded = writer.add(1005, "Chicken nuggets", "Acme Foods", "Branded", "12345670");
+        writer.setNutrient(excluded, Nutrients.KCAL, 300);
+        writer.exclude(excluded);
+        assertEquals(4, writer.size());
+
+        File indexFile = folder.newFile("food_index.bin");
+        File gtinFile = folder.newFile("gtin_index.bin");
+        writer.write(indexFile, gtinFile);
+        index = LocalFoodIndex.open(indexFile);
+        gtinIndex = GtinIndex.open(gtinFile);
+    }
+
+    @Test
+    public void excludedFoodsAreNotWritten() {
+        assertEquals(4, index.size());
+        assertTrue(index.search("nuggets", 10).isEmpty());
+        assertEquals(GtinIndex.NOT_FOUND, gtinIndex.find("12345670"));
+    }
+
+    @Test
+    public void searchMatchesEveryTokenAsAPrefix() {
+        List<FoodItem> results = index.search("chick bre", 10);
+        assertEquals(2, results.size());
+        // Shorter descriptions rank first
+        assertEquals("Chicken, breast, roasted", results.get(0).getDescription());
+        assertEquals("Chicken breast strips, breaded", results.get(1).getDescription());
+
+        assertEquals(1, index.search("CHICKEN roasted", 10).size());
+        assertEquals(1, index.search("chick bre", 1).size());
+        assertTrue(index.search("chicken banana", 10).isEmpty());
+        assertTrue(index.search("  ", 10).isEmpty());
+    }
+
+    @Test
+    public void searchHandlesNonAsciiTokens() {
+        List<FoodItem> results = index.search("crème", 10);
+        assertEquals(1, results.size());
+        assertEquals("Crème fraîche", results.get(0).getDescription());
+    }
+
+    @Test
+    public void foodsRoundTripWithEveryColumn() {
+        FoodItem branded = index.search("strips", 1).get(0);
+        assertEquals(1002, branded.getFdcId());
+        assertEquals("Acme Foods", branded.getBrand());
+        assertEquals("Branded", branded.getDataType());
+        assertTrue(branded.isBranded());
+        assertEquals(GtinIndex.normalize("0041570054161"), GtinIndex.normalize(branded.getGtinUpc()));
+        assertEquals(250, branded.getKcal(), 1e-4);
+        assertEquals(18, branded.getProtein(), 1e-4);
+        assertEquals(12, branded.getFat(), 1e-4);
+
+        FoodItem generic = index.search("banana", 1).get(0);
+        assertEquals("Generic", generic.getBrand());
+        assertEquals("Foundation", generic.getDataType());
+        assertFalse(generic.isBranded());
+        assertNull(generic.getGtinUpc());
+
+        FoodItem unknownType = index.search("crème", 1).get(0);
+        assertNull(unknownType.getDataType());
+        assertTrue(unknownType.isBranded());
+    }
+
+    @Test
+    public void gtinIndexPointsAtTheRankedOrdinal() {
+        // UPC-A and EAN-13 spellings of the same barcode
+        int ordinal = gtinIndex.find("041570054161");
+        assertNotEquals(GtinIndex.NOT_FOUND, ordinal);
+        assertEquals(ordinal, gtinIndex.find("0041570054161"));
+        assertEquals(1002, index.getFood(ordinal).getFdcId());
+        assertEquals(1, gtinIndex.size());
+    }
+
+    @Test
+    public void tokenVocabularyCountsFoodsPerToken() {
+        int chicken = -1;
+        for (int t = 0; t < index.getTokenCount(); t++) {
+            if (index.getToken(t).equals("chicken")) chicken = t;
+        }
+        assertTrue(chicken >= 0);
+        assertEquals(2, index.getTokenFrequency(chicken));
+    }
+
+    @Test
+    public void emptyIndexFindsNothing() throws Exception {
+        File indexFile = folder.newFile("empty_index.bin");
+        new FoodIndexWriter().write(indexFile);
+        LocalFoodIndex empty = LocalFoodIndex.open(indexFile);
+        assertEquals(0, empty.size());
+        assertTrue(empty.search("chicken", 10).isEmpty());
+        assertFalse(new File(indexFile.getPath() + ".tmp").exists());
+    }
+
+    @Test(expected = IOException.class)
+    public void rejectsFilesThatAreNotAFoodIndex() throws Exception {
+        File file = folder.newFile("garbage.bin");
+        Files.write(file.toPath(), new byte[LocalFoodIndex.HEADER_SIZE]);
+        LocalFoodIndex.open(file);
+    }
+
+    private static FoodItem food(int fdcId, String description, String brand, String dataType, String gtin,
+                                 double kcal, double protein, double fat) {
+        double[] nutrients = new double[Nutrients.COUNT];
+        nutrients[Nutrients.KCAL] = kcal;
+        nutrients[Nutrients.PROTEIN] = protein;
+        nutrients[Nutrients.FAT] = fat;
+        return new FoodItem(fdcId, description, brand, dataType, gtin, nutrients);
+    }
+}
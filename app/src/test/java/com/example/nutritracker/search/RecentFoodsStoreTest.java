@@ -0,0 +1,73 @@
+package com.example.nutritracker.search;
+
+import com.example.nutritracker.FoodItem;
+
+import org.junit.Before;
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
+
+import java.io.File;
+import java.util.List;
+
+import static org.junit.Assert.*;
+
+public class RecentFoodsStoreTest {
+    @Rule
+    public TemporaryFolder folder = new TemporaryFolder();
+
+    private RecentFoodsStore store;
+
+    @Before
+    public void setUp() {
+        store = new RecentFoodsStore(new File(folder.getRoot(), "recent_foods.bin"));
+    }
+
+    @Test
+    public void decayHalvesEveryHalfLife() {
+        assertEquals(4, RecentFoodsStore.decay(4, 0), 1e-9);
+        assertEquals(2, RecentFoodsStore.decay(4, RecentFoodsStore.HALF_LIFE_MS), 1e-9);
+        assertEquals(1, RecentFoodsStore.decay(4, 2 * RecentFoodsStore.HALF_LIFE_MS), 1e-9);
+        // Clock skew never makes an old use count for more
+        assertEquals(4, RecentFoodsStore.decay(4, -1000), 1e-9);
+    }
+
+    @Test
+    public void foodsRankByUsesAtTheRequestedMeal() {
+        FoodItem oats = new FoodItem(1, "Oats, rolled", "Generic", 379, 13, 6.5);
+        FoodItem coffee = new FoodItem(2, "Coffee, brewed", "Generic", 1, 0.1, 0);
+        FoodItem salad = new FoodItem(3, "Salad, garden", "Generic", 20, 1.2, 0.2);
+
+        store.record(oats, "Breakfast", 40);
+        store.record(coffee, "Breakfast", 240);
+        store.record(coffee, "Breakfast", 240);
+        store.record(salad, "Lunch", 150);
+
+        List<FoodItem> breakfast = store.getTopFoods("Breakfast", 10);
+        assertEquals(3, breakfast.size());
+        assertEquals(2, breakfast.get(0).getFdcId());
+        assertEquals(1, breakfast.get(1).getFdcId());
+        assertEquals(3, breakfast.get(2).getFdcId());
+
+        // Uses at other meals still count, just for less
+        List<FoodItem> lunch = store.getTopFoods("Lunch", 2);
+        assertEquals(2, lunch.size());
+        assertEquals(3, lunch.get(0).getFdcId());
+        assertEquals(2, lunch.get(1).getFdcId());
+    }
+
+    @Test
+    public void remembersTheLastQuantity() {
+        FoodItem banana = new FoodItem(4, "Banana, raw", "Generic", 89, 1.1, 0.3);
+        assertEquals(0, store.getLastQuantityGrams(banana), 0);
+        store.record(banana, "Snack", 120);
+        store.record(banana, "Snack", 90);
+        assertEquals(90, store.getLastQuantityGrams(banana), 0);
+
+        // Foods without an fdc_id are keyed by description and brand
+        FoodItem homemade = new FoodItem("Banana bread", "Home", 326, 4.3, 10.5);
+        store.record(homemade, "Snack", 60);
+        assertEquals(60, store.getLastQuantityGrams(new FoodItem("Banana bread", "Home", 300, 4, 10)), 0);
+        assertEquals(0, store.getLastQuantityGrams(new FoodItem("Banana bread", "Bakery", 300, 4, 10)), 0);
+    }
+}
@@ -21,4 +21,5 @@ dependencyResolutionManagement {
 
 rootProject.name = "nutritracker"
 include(":app")
+include(":tools:fdc-importer")
  
\ No newline at end of file
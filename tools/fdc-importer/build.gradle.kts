@@ -0,0 +1,38 @@
+// Desktop command line for building the local food index from a FoodData Central bulk download.
+// Compiles the importer straight from the app's sources, so the APK carries no CLI code:
+//
+//   ./gradlew :tools:fdc-importer:run --args="FoodData_Central_csv_2024-10-31 food_index.bin gtin_index.bin"
+plugins {
+    application
+}
+
+java {
+    sourceCompatibility = JavaVersion.VERSION_11
+    targetCompatibility = JavaVersion.VERSION_11
+}
+
+sourceSets {
+    main {
+        java {
+            srcDir("../../app/src/main/java")
+            // Only the importer and the plain Java classes it uses; the rest of the app needs Android
+            include(
+                "com/example/nutritracker/tools/**",
+                "com/example/nutritracker/FoodItem.java",
+                "com/example/nutritracker/Nutrients.java",
+                "com/example/nutritracker/search/CsvReader.java",
+                "com/example/nutritracker/search/FdcBulkImporter.java",
+                "com/example/nutritracker/search/FoodIndexWriter.java",
+                "com/example/nutritracker/search/FoodTokenizer.java",
+                "com/example/nutritracker/search/GtinIndex.java",
+                "com/example/nutritracker/search/IntList.java",
+                "com/example/nutritracker/search/LocalFoodIndex.java"
+            )
+        }
+    }
+}
+
+application {
+    mainClass.set("com.example.nutritracker.tools.FdcImport")
+    applicationDefaultJvmArgs = listOf("-Xmx2g")
+}
@@ -0,0 +1,22 @@
+package com.example.nutritracker.tools;
+
+import com.example.nutritracker.search.FdcBulkImporter;
+
+import java.io.File;
+import java.io.IOException;
+
+// Entry point of the desktop importer; see FdcBulkImporter for what it reads and writes
+public final class FdcImport {
+
+    private FdcImport() {}
+
+    public static void main(String[] args) throws IOException {
+        if (args.length < 2) {
+            System.err.println("usage: FdcImport <csv dir> <food_index.bin> [gtin_index.bin]");
+            System.exit(2);
+        }
+        File gtinOut = args.length > 2 ? new File(args[2]) : null;
+        FdcBulkImporter.Stats stats = new FdcBulkImporter(new File(args[0])).run(new File(args[1]), gtinOut);
+        System.out.println(stats);
+    }
+}